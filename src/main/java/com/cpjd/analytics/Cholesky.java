@@ -0,0 +1,138 @@
+package com.cpjd.analytics;
+
+/**
+ * Dense Cholesky factorization (A = L * L^T) of a symmetric positive definite matrix, with in place solves.
+ * Matrices are stored row-major in a flat double[] so a factorization can be reused across solves and events
+ * without allocating.
+ *
+ * @since 1.0.1
+ */
+public class Cholesky {
+
+    /**
+     * Smallest pivot, relative to its diagonal entry, for a matrix to count as positive definite
+     */
+    private static final double PIVOT_TOLERANCE = 1e-10;
+
+    private int n;
+    private double[] l;
+
+    public Cholesky() {
+        this(0);
+    }
+
+    public Cholesky(int capacity) {
+        l = new double[capacity * capacity];
+    }
+
+    /**
+     * Factors the top-left n x n block of a (row-major, n * n entries). a isn't modified.
+     * @param a the symmetric matrix
+     * @param n the matrix size
+     * @return false if the matrix isn't positive definite (or is numerically singular), in which case the factorization is unusable
+     */
+    public boolean factor(double[] a, int n) {
+        return factor(a, n, 0);
+    }
+
+    /**
+     * Factors a + ridge * I, see factor(double[], int)
+     */
+    public boolean factor(double[] a, int n, double ridge) {
+        this.n = n;
+        if(l.length < n * n) l = new double[n * n];
+        for(int i = 0; i < n; i++) {
+            int ri = i * n;
+            for(int j = 0; j <= i; j++) {
+                int rj = j * n;
+                double sum = a[ri + j];
+                if(i == j) sum += ridge;
+                for(int k = 0; k < j; k++) sum -= l[ri + k] * l[rj + k];
+                if(i == j) {
+                    // relative to the diagonal, since roundoff leaves tiny positive pivots in singular matrices
+                    if(sum <= PIVOT_TOLERANCE * (a[ri + i] + ridge)) return false;
+                    l[ri + i] = Math.sqrt(sum);
+                } else {
+                    l[ri + j] = sum / l[rj + j];
+                }
+            }
+            for(int j = i + 1; j < n; j++) l[ri + j] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Solves A * x = b in place
+     * @param b the right hand side, overwritten with x
+     */
+    public void solve(double[] b) {
+        solve(b, 0, 1);
+    }
+
+    /**
+     * Solves A * x = b in place, where b is stored with a stride, eg column c of a row-major n x m matrix is
+     * solve(matrix, c, m). This lets several right hand sides share one factorization.
+     * @param b the right hand side(s), overwritten with x
+     * @param offset index of the first entry of b
+     * @param stride distance between consecutive entries of b
+     */
+    public void solve(double[] b, int offset, int stride) {
+        // forward, L * y = b
+        for(int i = 0; i < n; i++) {
+            int ri = i * n;
+            double sum = b[offset + i * stride];
+            for(int k = 0; k < i; k++) sum -= l[ri + k] * b[offset + k * stride];
+            b[offset + i * stride] = sum / l[ri + i];
+        }
+        // backward, L^T * x = y
+        for(int i = n - 1; i >= 0; i--) {
+            double sum = b[offset + i * stride];
+            for(int k = i + 1; k < n; k++) sum -= l[k * n + i] * b[offset + k * stride];
+            b[offset + i * stride] = sum / l[i * n + i];
+        }
+    }
+
+    /**
+     * Solves A * X = B in place for every column of B at once. Rows of B are swept together, which is much friendlier
+     * to the cache than solving the columns one at a time when there are many of them.
+     * @param b row-major n x m matrix, overwritten with X
+     * @param m number of columns (right hand sides)
+     */
+    public void solveColumns(double[] b, int m) {
+        // forward, L * Y = B
+        for(int i = 0; i < n; i++) {
+            int ri = i * n, bi = i * m;
+            for(int k = 0; k < i; k++) {
+                double lik = l[ri + k];
+                if(lik == 0) continue;
+                int bk = k * m;
+                for(int c = 0; c < m; c++) b[bi + c] -= lik * b[bk + c];
+            }
+            double d = l[ri + i];
+            for(int c = 0; c < m; c++) b[bi + c] /= d;
+        }
+        // backward, L^T * X = Y
+        for(int i = n - 1; i >= 0; i--) {
+            int bi = i * m;
+            for(int k = i + 1; k < n; k++) {
+                double lki = l[k * n + i];
+                if(lki == 0) continue;
+                int bk = k * m;
+                for(int c = 0; c < m; c++) b[bi + c] -= lki * b[bk + c];
+            }
+            double d = l[i * n + i];
+            for(int c = 0; c < m; c++) b[bi + c] /= d;
+        }
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return the factor L, row-major, only the lower triangle of the first n * n entries is meaningful
+     */
+    public double[] getFactor() {
+        return l;
+    }
+}
@@ -0,0 +1,142 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates component OPRs, one for every numeric field in the matches' score breakdowns (Match.getRedScoreBreakdown() /
+ * getBlueScoreBreakdown()).
+ *
+ * All components share the event's design matrix, so A^T * A is factored once and every breakdown field is solved as
+ * another column of a single multi right hand side solve, instead of repeating the factorization per field.
+ *
+ * Not thread safe, but calculateComponents(Map) runs events in parallel, with a calculator per event being solved at the same time
+ * that's reused for the call's other events.
+ *
+ * @since 1.0.1
+ */
+public class ComponentOPRCalculator extends OPRCalculator {
+
+    /**
+     * Row-major n x m, one column per breakdown field
+     */
+    private double[] components = new double[0];
+
+    /**
+     * @param matches the event's matches (full models, simple models don't have score breakdowns)
+     * @return component OPRs for every team that played a qualification match
+     */
+    public ComponentOPRTable calculateComponents(Match[] matches) {
+        MatchTable table = MatchTable.of(matches);
+        String eventKey = table.size() == 0 ? null : table.getEventKey(0);
+        index(table, null);
+        accumulate(table, null);
+
+        LinkedHashMap<String, Integer> fields = new LinkedHashMap<>();
+        for(int row = 0; row < table.size(); row++) {
+            if(!counts(table, row)) continue;
+            collectFields(matches[row].getRedScoreBreakdown(), fields);
+            collectFields(matches[row].getBlueScoreBreakdown(), fields);
+        }
+        int m = fields.size();
+        String[] teamKeys = new String[n];
+        for(int i = 0; i < n; i++) teamKeys[i] = "frc"+teams[i];
+        if(n == 0 || m == 0) return new ComponentOPRTable(eventKey, teamKeys, fields.keySet().toArray(new String[m]), new double[n * m]);
+
+        if(components.length < n * m) components = new double[n * m];
+        Arrays.fill(components, 0, n * m, 0);
+        int[] t = table.getTeams();
+        for(int row = 0; row < table.size(); row++) {
+            if(!counts(table, row)) continue;
+            addAlliance(t, row * MatchTable.WIDTH, matches[row].getRedScoreBreakdown(), fields, m);
+            addAlliance(t, row * MatchTable.WIDTH + 3, matches[row].getBlueScoreBreakdown(), fields, m);
+        }
+
+        factor();
+        solve(components, m);
+        return new ComponentOPRTable(eventKey, teamKeys, fields.keySet().toArray(new String[m]), Arrays.copyOf(components, n * m));
+    }
+
+    /**
+     * Calculates component OPRs for many events in parallel on the common fork-join pool
+     * @param events event key -> the event's matches
+     * @return event key -> component OPRs
+     */
+    public static Map<String, ComponentOPRTable> calculateComponents(Map<String, Match[]> events) {
+        return calculateComponents(ForkJoinPool.commonPool(), events);
+    }
+
+    /**
+     * Calculates component OPRs for many events in parallel on the specified pool
+     * @param pool the pool to run on
+     * @param events event key -> the event's matches
+     * @return event key -> component OPRs
+     */
+    public static Map<String, ComponentOPRTable> calculateComponents(ForkJoinPool pool, Map<String, Match[]> events) {
+        return pool.invoke(new RecursiveTask<Map<String, ComponentOPRTable>>() {
+            @Override
+            protected Map<String, ComponentOPRTable> compute() {
+                // calculators that aren't solving an event right now, shared by this call's tasks
+                ConcurrentLinkedQueue<ComponentOPRCalculator> idle = new ConcurrentLinkedQueue<>();
+                ArrayList<EventTask> tasks = new ArrayList<>();
+                for(Map.Entry<String, Match[]> e : events.entrySet()) tasks.add(new EventTask(e.getKey(), e.getValue(), idle));
+                ForkJoinTask.invokeAll(tasks);
+                HashMap<String, ComponentOPRTable> toReturn = new HashMap<>();
+                for(EventTask task : tasks) toReturn.put(task.eventKey, task.join());
+                return toReturn;
+            }
+        });
+    }
+
+    private static class EventTask extends RecursiveTask<ComponentOPRTable> {
+        private final String eventKey;
+        private final Match[] matches;
+        private final ConcurrentLinkedQueue<ComponentOPRCalculator> idle;
+
+        EventTask(String eventKey, Match[] matches, ConcurrentLinkedQueue<ComponentOPRCalculator> idle) {
+            this.eventKey = eventKey;
+            this.matches = matches;
+            this.idle = idle;
+        }
+
+        @Override
+        protected ComponentOPRTable compute() {
+            ComponentOPRCalculator calculator = idle.poll();
+            if(calculator == null) calculator = new ComponentOPRCalculator();
+            try {
+                return calculator.calculateComponents(matches);
+            } finally {
+                idle.add(calculator);
+            }
+        }
+    }
+
+    private static void collectFields(HashMap<String, Object> breakdown, LinkedHashMap<String, Integer> fields) {
+        if(breakdown == null) return;
+        for(Map.Entry<String, Object> e : breakdown.entrySet()) {
+            if(e.getValue() instanceof Number && !fields.containsKey(e.getKey())) fields.put(e.getKey(), fields.size());
+        }
+    }
+
+    private void addAlliance(int[] t, int base, HashMap<String, Object> breakdown, LinkedHashMap<String, Integer> fields, int m) {
+        if(breakdown == null) return;
+        for(Map.Entry<String, Object> e : breakdown.entrySet()) {
+            if(!(e.getValue() instanceof Number)) continue;
+            int c = fields.get(e.getKey());
+            double value = ((Number) e.getValue()).doubleValue();
+            for(int i = base; i < base + 3; i++) {
+                if(t[i] > 0) components[lookup[t[i]] * m + c] += value;
+            }
+        }
+    }
+}
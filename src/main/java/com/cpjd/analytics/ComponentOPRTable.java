@@ -0,0 +1,99 @@
+package com.cpjd.analytics;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Component OPRs for one event, one value per team per score breakdown field (auto points, climb points, fouls, etc.)
+ *
+ * @since 1.0.1
+ */
+public class ComponentOPRTable implements Serializable {
+
+    private final String eventKey;
+    private final String[] teamKeys;
+    private final String[] fields;
+    /**
+     * Row-major, teamKeys.length x fields.length
+     */
+    private final double[] values;
+
+    private transient HashMap<String, Integer> teamIndex;
+    private transient HashMap<String, Integer> fieldIndex;
+
+    public ComponentOPRTable(String eventKey, String[] teamKeys, String[] fields, double[] values) {
+        this.eventKey = eventKey;
+        this.teamKeys = teamKeys;
+        this.fields = fields;
+        this.values = values;
+    }
+
+    /**
+     * @param teamKey TBA team key, eg frc254
+     * @param field score breakdown field, eg autoPoints
+     * @return the team's component OPR for the field, or 0 if either isn't in the table
+     */
+    public double get(String teamKey, String field) {
+        int t = teamIndex(teamKey), f = fieldIndex(field);
+        if(t == -1 || f == -1) return 0;
+        return values[t * fields.length + f];
+    }
+
+    /**
+     * @param field score breakdown field, eg autoPoints
+     * @return component OPR of every team (in getTeamKeys() order) for the field, or null if the field isn't in the table
+     */
+    public double[] getField(String field) {
+        int f = fieldIndex(field);
+        if(f == -1) return null;
+        double[] toReturn = new double[teamKeys.length];
+        for(int t = 0; t < teamKeys.length; t++) toReturn[t] = values[t * fields.length + f];
+        return toReturn;
+    }
+
+    /**
+     * @param teamKey TBA team key, eg frc254
+     * @return field -> component OPR for the team, or null if the team isn't in the table
+     */
+    public HashMap<String, Double> getTeam(String teamKey) {
+        int t = teamIndex(teamKey);
+        if(t == -1) return null;
+        HashMap<String, Double> toReturn = new HashMap<>();
+        for(int f = 0; f < fields.length; f++) toReturn.put(fields[f], values[t * fields.length + f]);
+        return toReturn;
+    }
+
+    private int teamIndex(String teamKey) {
+        if(teamIndex == null) teamIndex = index(teamKeys);
+        Integer i = teamIndex.get(teamKey);
+        return i == null ? -1 : i;
+    }
+
+    private int fieldIndex(String field) {
+        if(fieldIndex == null) fieldIndex = index(fields);
+        Integer i = fieldIndex.get(field);
+        return i == null ? -1 : i;
+    }
+
+    private static HashMap<String, Integer> index(String[] keys) {
+        HashMap<String, Integer> map = new HashMap<>();
+        for(int i = 0; i < keys.length; i++) map.put(keys[i], i);
+        return map;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public String[] getTeamKeys() {
+        return teamKeys;
+    }
+
+    public String[] getFields() {
+        return fields;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,258 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.storage.MatchStore;
+
+import java.util.Arrays;
+
+/**
+ * Elo-style team ratings over match history.
+ *
+ * Matches are processed season by season, in chronological order within a season (actual start time, or scheduled time if the
+ * match has no actual time).
+ * Before each match, the expected result for red is 1 / (1 + 10^((blue - red) / 400)), where red and blue are the sums of the
+ * alliance members' ratings. After it, every red team gains K * (result - expected) and every blue team loses the same, where
+ * result is 1 for a red win, 0.5 for a tie and 0 for a blue win.
+ *
+ * Ratings are kept in a double[] indexed by team number, and matches are read straight out of a MatchTable or MatchStore,
+ * so processing doesn't allocate anything per match. Feed it from EventRequest.getMatchTable() / TeamRequest.getTeamMatchTable()
+ * (joined with MatchTable.addAll()) or a MatchStore holding every season.
+ *
+ * Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class EloRating {
+
+    /**
+     * How much a single match moves the ratings
+     */
+    public interface KFactor {
+        /**
+         * @param year the season
+         * @param compLevel the comp level code, see MatchTable
+         * @return the K factor for the match
+         */
+        double get(int year, byte compLevel);
+    }
+
+    /**
+     * How a team's rating carries over into a new season
+     */
+    public interface Carryover {
+        /**
+         * @param rating the team's rating at the end of its previous season
+         * @param initial the rating new teams start with
+         * @param seasons the number of seasons since the team last played, 1 for consecutive seasons
+         * @return the team's rating at the start of the new season
+         */
+        double get(double rating, double initial, int seasons);
+    }
+
+    /**
+     * 12 for qualification matches, 3 for playoffs, since playoff alliances are picked and not random
+     */
+    public static final KFactor DEFAULT_K_FACTOR = (year, compLevel) -> compLevel == MatchTable.QM ? 12 : 3;
+
+    /**
+     * Regresses 20% of the way back to the initial rating per season
+     */
+    public static final Carryover DEFAULT_CARRYOVER = (rating, initial, seasons) -> initial + (rating - initial) * Math.pow(0.8, seasons);
+
+    private final double initial;
+    private final KFactor kFactor;
+    private final Carryover carryover;
+
+    private double[] ratings = new double[0];
+    /**
+     * Last season each team played, 0 if never
+     */
+    private int[] seasons = new int[0];
+    private int matchCount;
+
+    public EloRating() {
+        this(1500, DEFAULT_K_FACTOR, DEFAULT_CARRYOVER);
+    }
+
+    public EloRating(double initial, KFactor kFactor, Carryover carryover) {
+        this.initial = initial;
+        this.kFactor = kFactor;
+        this.carryover = carryover;
+    }
+
+    /**
+     * Processes every played match of the table, in chronological order
+     * @param table the matches
+     */
+    public void process(MatchTable table) {
+        long[] order = new long[table.size()];
+        int[] years = new int[table.size()];
+        int count = 0;
+        for(int row = 0; row < table.size(); row++) {
+            if(!table.isPlayed(row)) continue;
+            years[count] = year(table.getKey(row));
+            order[count++] = orderKey(table.getActualTime(row), table.getTime(row), row);
+        }
+        sort(order, years, count);
+
+        int[] t = table.getTeams();
+        for(int i = 0; i < count; i++) {
+            int row = (int) order[i];
+            int base = row * MatchTable.WIDTH;
+            update(year(table.getKey(row)), table.getCompLevel(row), t[base], t[base + 1], t[base + 2], t[base + 3], t[base + 4], t[base + 5],
+                    table.getRedScore(row), table.getBlueScore(row));
+        }
+    }
+
+    /**
+     * Processes every played match of the store, in chronological order
+     * @param store the matches
+     */
+    public void process(MatchStore store) {
+        long[] order = new long[store.size()];
+        int[] years = new int[store.size()];
+        int count = 0;
+        MatchStore.Cursor c = store.cursor();
+        while(c.next()) {
+            if(c.getRedScore() < 0 || c.getBlueScore() < 0) continue;
+            years[count] = c.getYear();
+            order[count++] = orderKey(c.getActualTime(), c.getTime(), c.getIndex());
+        }
+        sort(order, years, count);
+
+        for(int i = 0; i < count; i++) {
+            c.seek((int) order[i]);
+            update(c.getYear(), c.getCompLevel(), c.getTeam(0), c.getTeam(1), c.getTeam(2), c.getTeam(3), c.getTeam(4), c.getTeam(5),
+                    c.getRedScore(), c.getBlueScore());
+        }
+    }
+
+    /**
+     * Processes every played match, in chronological order
+     * @param matches the matches, full or simple models
+     */
+    public void process(SMatch[] matches) {
+        process(MatchTable.of(matches));
+    }
+
+    /**
+     * Sorting key, time in the high 32 bits and the row in the low 32 bits. The time is unsigned (unix seconds fit until 2106),
+     * so the sign bit is flipped to keep the signed order of the keys.
+     */
+    private static long orderKey(long actualTime, long time, int row) {
+        long when = Math.max(0, Math.min(actualTime > 0 ? actualTime : time, 0xffffffffL));
+        return ((when << 32) | (row & 0xffffffffL)) ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Sorts the first count keys by season, then by key, so a match without a time stays in its own season instead of going
+     * ahead of every earlier season's matches
+     * @param keys keys from orderKey()
+     * @param years the season of each key
+     */
+    private static void sort(long[] keys, int[] years, int count) {
+        if(count == 0) return;
+        int min = years[0], max = years[0];
+        for(int i = 1; i < count; i++) {
+            min = Math.min(min, years[i]);
+            max = Math.max(max, years[i]);
+        }
+        // counting sort by season, then each season's keys
+        int[] starts = new int[max - min + 2];
+        for(int i = 0; i < count; i++) starts[years[i] - min + 1]++;
+        for(int y = 1; y < starts.length; y++) starts[y] += starts[y - 1];
+        int[] fill = Arrays.copyOf(starts, starts.length);
+        long[] sorted = new long[count];
+        for(int i = 0; i < count; i++) sorted[fill[years[i] - min]++] = keys[i];
+        for(int y = 0; y + 1 < starts.length; y++) Arrays.sort(sorted, starts[y], starts[y + 1]);
+        System.arraycopy(sorted, 0, keys, 0, count);
+    }
+
+    private static int year(String matchKey) {
+        if(matchKey == null || matchKey.length() < 4) return 0;
+        int year = 0;
+        for(int i = 0; i < 4; i++) {
+            char ch = matchKey.charAt(i);
+            if(ch < '0' || ch > '9') return 0;
+            year = year * 10 + (ch - '0');
+        }
+        return year;
+    }
+
+    private void update(int year, byte compLevel, int r1, int r2, int r3, int b1, int b2, int b3, int redScore, int blueScore) {
+        double red = rating(r1, year) + rating(r2, year) + rating(r3, year);
+        double blue = rating(b1, year) + rating(b2, year) + rating(b3, year);
+        double expected = 1 / (1 + Math.pow(10, (blue - red) / 400));
+        double result = redScore > blueScore ? 1 : redScore == blueScore ? 0.5 : 0;
+        double delta = kFactor.get(year, compLevel) * (result - expected);
+        adjust(r1, delta);
+        adjust(r2, delta);
+        adjust(r3, delta);
+        adjust(b1, -delta);
+        adjust(b2, -delta);
+        adjust(b3, -delta);
+        matchCount++;
+    }
+
+    /**
+     * @return the team's rating going into a match in the specified season, applying carryover if it's the team's first match of the season
+     */
+    private double rating(int team, int year) {
+        if(team <= 0) return 0;
+        if(team >= ratings.length) {
+            int old = ratings.length;
+            ratings = Arrays.copyOf(ratings, Math.max(team + 1, old * 2));
+            seasons = Arrays.copyOf(seasons, ratings.length);
+            Arrays.fill(ratings, old, ratings.length, initial);
+        }
+        int last = seasons[team];
+        if(last != year) {
+            if(last != 0 && year > last) ratings[team] = carryover.get(ratings[team], initial, year - last);
+            seasons[team] = year;
+        }
+        return ratings[team];
+    }
+
+    private void adjust(int team, double delta) {
+        if(team > 0) ratings[team] += delta;
+    }
+
+    /**
+     * @param r1 red team number
+     * @param r2 red team number
+     * @param r3 red team number
+     * @param b1 blue team number
+     * @param b2 blue team number
+     * @param b3 blue team number
+     * @return the probability that red wins, based on the current ratings
+     */
+    public double predict(int r1, int r2, int r3, int b1, int b2, int b3) {
+        double red = getRating(r1) + getRating(r2) + getRating(r3);
+        double blue = getRating(b1) + getRating(b2) + getRating(b3);
+        return 1 / (1 + Math.pow(10, (blue - red) / 400));
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the team's current rating, the initial rating if they haven't played
+     */
+    public double getRating(int team) {
+        if(team <= 0 || team >= ratings.length) return initial;
+        return ratings[team];
+    }
+
+    /**
+     * @return ratings indexed by team number, entries for teams that haven't played hold the initial rating
+     */
+    public double[] getRatings() {
+        return ratings;
+    }
+
+    /**
+     * @return the number of matches processed so far
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+}
@@ -0,0 +1,321 @@
+package com.cpjd.analytics;
+
+import com.cpjd.main.TBA;
+import com.cpjd.models.events.EventOPR;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Keeps OPR, DPR and CCWM up to date for a single event as matches are posted, without recalculating from scratch.
+ *
+ * The Cholesky factor of the normal equations (A^T * A + ridge * I) is kept between calls. A newly completed match adds two
+ * alliance rows to A, which is applied as two rank-1 updates of the factor (O(n^2) each, instead of O(n^3) for a new factorization).
+ * A team seen for the first time adds a column, which is cheap since it has no overlap with the other columns yet.
+ * A score correction on a match that was already applied only changes the right hand side. Only a change to the teams
+ * of an applied match (rare) causes a rebuild.
+ *
+ * The tiny ridge keeps the factorization valid before every team has played. Its effect is removed by a couple of steps of
+ * iterative refinement against the unregularized normal equations when the results are read, so they match OPRCalculator's.
+ *
+ * Pass the full result of every EventRequest.getMatches() (or getSMatches()) poll to update(), matches that didn't change
+ * are skipped. Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class IncrementalOPR {
+
+    private static final double RIDGE = 1e-6;
+    /**
+     * Each step shrinks the ridge's effect by about RIDGE over the smallest eigenvalue of A^T * A
+     */
+    private static final int REFINEMENT_STEPS = 2;
+
+    private int n;
+    private int capacity;
+    /**
+     * Lower triangular factor, row-major with a row length of capacity
+     */
+    private double[] l;
+    /**
+     * A^T * own score, A^T * opposing score
+     */
+    private double[] ownTotals;
+    private double[] opposingTotals;
+    private double[] opr;
+    private double[] dpr;
+    private double[] x;
+    private double[] residual;
+    private boolean dirty;
+
+    private int[] teams;
+    private final HashMap<Integer, Integer> columns = new HashMap<>();
+
+    /**
+     * Match key -> the 6 team numbers, red score, blue score that have been applied
+     */
+    private final HashMap<String, int[]> applied = new HashMap<>();
+
+    public IncrementalOPR() {
+        resize(64);
+    }
+
+    /**
+     * Applies every match that was completed or corrected since the last call
+     * @param matches the event's matches, full or simple models
+     * @return the number of matches that changed the results
+     */
+    public int update(SMatch[] matches) {
+        int changed = 0;
+        for(SMatch m : matches) if(update(m)) changed++;
+        return changed;
+    }
+
+    /**
+     * Applies a single match if it's a completed qualification match that isn't applied yet, or that was applied with different scores
+     * @param match the match
+     * @return true if the results changed
+     */
+    public boolean update(SMatch match) {
+        if(MatchTable.compLevelCode(match.getCompLevel()) != MatchTable.QM || match.getRed() == null || match.getBlue() == null) return false;
+        int[] row = new int[8];
+        fill(row, 0, match.getRed().getTeamKeys());
+        fill(row, 3, match.getBlue().getTeamKeys());
+        row[6] = (int) match.getRed().getScore();
+        row[7] = (int) match.getBlue().getScore();
+        if(row[6] < 0 || row[7] < 0) return false;
+
+        int[] previous = applied.get(match.getKey());
+        if(previous != null) {
+            if(Arrays.equals(previous, row)) return false;
+            if(!sameTeams(previous, row)) {
+                applied.put(match.getKey(), row);
+                rebuild();
+                return true;
+            }
+            // same design rows, only the right hand side moves
+            addTotals(previous, -1);
+            addTotals(row, 1);
+            applied.put(match.getKey(), row);
+            dirty = true;
+            return true;
+        }
+
+        applied.put(match.getKey(), row);
+        apply(row);
+        return true;
+    }
+
+    /**
+     * @return EventOPR[] containing an EventOPR for each team that played a qualification match, sorted like EventRequest.getOprs()
+     */
+    public EventOPR[] getOprs() {
+        solve();
+        EventOPR[] toReturn = new EventOPR[n];
+        for(int i = 0; i < n; i++) {
+            EventOPR o = new EventOPR();
+            o.setTeamKey("frc"+teams[i]);
+            o.setOpr(opr[i]);
+            o.setDpr(dpr[i]);
+            o.setCcwm(opr[i] - dpr[i]);
+            toReturn[i] = o;
+        }
+        TBA.sort(toReturn);
+        return toReturn;
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the team's OPR, or 0 if they haven't played a qualification match
+     */
+    public double getOpr(int team) {
+        Integer c = columns.get(team);
+        if(c == null) return 0;
+        solve();
+        return opr[c];
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the team's DPR, or 0 if they haven't played a qualification match
+     */
+    public double getDpr(int team) {
+        Integer c = columns.get(team);
+        if(c == null) return 0;
+        solve();
+        return dpr[c];
+    }
+
+    /**
+     * @return the number of matches applied so far
+     */
+    public int getMatchCount() {
+        return applied.size();
+    }
+
+    /**
+     * Forgets every match, eg when the event's schedule is regenerated
+     */
+    public void clear() {
+        applied.clear();
+        reset();
+    }
+
+    /*
+     * Internals
+     */
+
+    private static void fill(int[] row, int offset, String[] keys) {
+        if(keys == null) return;
+        for(int i = 0; i < keys.length && i < 3; i++) row[offset + i] = MatchTable.teamNumber(keys[i]);
+    }
+
+    private static boolean sameTeams(int[] a, int[] b) {
+        for(int i = 0; i < MatchTable.WIDTH; i++) if(a[i] != b[i]) return false;
+        return true;
+    }
+
+    private void apply(int[] row) {
+        for(int i = 0; i < MatchTable.WIDTH; i++) if(row[i] > 0) column(row[i]);
+        rankOneUpdate(row, 0);
+        rankOneUpdate(row, 3);
+        addTotals(row, 1);
+        dirty = true;
+    }
+
+    private void addTotals(int[] row, int sign) {
+        for(int i = 0; i < MatchTable.WIDTH; i++) {
+            if(row[i] <= 0) continue;
+            int c = columns.get(row[i]);
+            boolean red = i < 3;
+            ownTotals[c] += sign * (red ? row[6] : row[7]);
+            opposingTotals[c] += sign * (red ? row[7] : row[6]);
+        }
+    }
+
+    /**
+     * L * L^T += a * a^T, where a has a 1 in the column of each team of the alliance starting at row[offset]
+     */
+    private void rankOneUpdate(int[] row, int offset) {
+        Arrays.fill(x, 0, n, 0);
+        int first = n;
+        for(int i = offset; i < offset + 3; i++) {
+            if(row[i] <= 0) continue;
+            int c = columns.get(row[i]);
+            x[c] = 1;
+            first = Math.min(first, c);
+        }
+        for(int k = first; k < n; k++) {
+            double xk = x[k];
+            if(xk == 0) continue;
+            int kk = k * capacity + k;
+            double lkk = l[kk];
+            double r = Math.sqrt(lkk * lkk + xk * xk);
+            double c = r / lkk;
+            double s = xk / lkk;
+            l[kk] = r;
+            for(int i = k + 1; i < n; i++) {
+                int ik = i * capacity + k;
+                l[ik] = (l[ik] + s * x[i]) / c;
+                x[i] = c * x[i] - s * l[ik];
+            }
+        }
+    }
+
+    /**
+     * @return the column for the team, adding one (with only the ridge on its diagonal) if the team is new
+     */
+    private int column(int team) {
+        Integer c = columns.get(team);
+        if(c != null) return c;
+        if(n == capacity) resize(capacity * 2);
+        int col = n++;
+        teams[col] = team;
+        columns.put(team, col);
+        Arrays.fill(l, col * capacity, col * capacity + col, 0);
+        l[col * capacity + col] = Math.sqrt(RIDGE);
+        ownTotals[col] = 0;
+        opposingTotals[col] = 0;
+        return col;
+    }
+
+    private void resize(int newCapacity) {
+        double[] newL = new double[newCapacity * newCapacity];
+        for(int i = 0; i < n; i++) System.arraycopy(l, i * capacity, newL, i * newCapacity, i + 1);
+        l = newL;
+        capacity = newCapacity;
+        teams = teams == null ? new int[newCapacity] : Arrays.copyOf(teams, newCapacity);
+        ownTotals = ownTotals == null ? new double[newCapacity] : Arrays.copyOf(ownTotals, newCapacity);
+        opposingTotals = opposingTotals == null ? new double[newCapacity] : Arrays.copyOf(opposingTotals, newCapacity);
+        opr = new double[newCapacity];
+        dpr = new double[newCapacity];
+        x = new double[newCapacity];
+        residual = new double[newCapacity];
+        dirty = true;
+    }
+
+    private void reset() {
+        n = 0;
+        columns.clear();
+        dirty = true;
+    }
+
+    private void rebuild() {
+        reset();
+        for(int[] row : applied.values()) apply(row);
+    }
+
+    private void solve() {
+        if(!dirty) return;
+        System.arraycopy(ownTotals, 0, opr, 0, n);
+        System.arraycopy(opposingTotals, 0, dpr, 0, n);
+        substitute(opr);
+        substitute(dpr);
+        for(int i = 0; i < REFINEMENT_STEPS; i++) {
+            refine(opr, ownTotals);
+            refine(dpr, opposingTotals);
+        }
+        dirty = false;
+    }
+
+    /**
+     * b' += (A^T * A + ridge * I)^-1 * (totals - A^T * A * b')
+     */
+    private void refine(double[] b, double[] totals) {
+        System.arraycopy(totals, 0, residual, 0, n);
+        for(int[] row : applied.values()) {
+            subtractAlliance(row, 0, b);
+            subtractAlliance(row, 3, b);
+        }
+        substitute(residual);
+        for(int i = 0; i < n; i++) b[i] += residual[i];
+    }
+
+    /**
+     * residual -= a * (a . b), where a has a 1 in the column of each team of the alliance starting at row[offset]
+     */
+    private void subtractAlliance(int[] row, int offset, double[] b) {
+        double sum = 0;
+        for(int i = offset; i < offset + 3; i++) if(row[i] > 0) sum += b[columns.get(row[i])];
+        for(int i = offset; i < offset + 3; i++) if(row[i] > 0) residual[columns.get(row[i])] -= sum;
+    }
+
+    /**
+     * Solves L * L^T * b' = b in place
+     */
+    private void substitute(double[] b) {
+        for(int i = 0; i < n; i++) {
+            int ri = i * capacity;
+            double sum = b[i];
+            for(int k = 0; k < i; k++) sum -= l[ri + k] * b[k];
+            b[i] = sum / l[ri + i];
+        }
+        for(int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for(int k = i + 1; k < n; k++) sum -= l[k * capacity + i] * b[k];
+            b[i] = sum / l[i * capacity + i];
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.cpjd.analytics;
+
+import com.cpjd.main.TBA;
+import com.cpjd.models.events.EventOPR;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+
+import java.util.Arrays;
+
+/**
+ * Calculates OPR, DPR and CCWM locally from match results, so they don't lag behind the server.
+ *
+ * Every played qualification match contributes two rows (one per alliance) to the design matrix A, with a 1 in the column
+ * of each team on the alliance. OPR solves the least squares system A * x = own alliance score, DPR solves
+ * A * x = opposing alliance score and CCWM is OPR - DPR. Since each row of A only has three non-zero entries, the
+ * normal equations A^T * A are accumulated straight from the matches (never building A) and solved with a Cholesky factorization.
+ *
+ * An OPRCalculator reuses its buffers between calls, so keep one around if you calculate many events. It isn't thread safe.
+ *
+ * @since 1.0.1
+ */
+public class OPRCalculator {
+
+    /**
+     * Each step shrinks the ridge's effect by about the ridge over the smallest nonzero eigenvalue of A^T * A
+     */
+    private static final int REFINEMENT_STEPS = 3;
+
+    /**
+     * Team number -> column, -1 if the team isn't in the current event
+     */
+    int[] lookup = new int[0];
+    /**
+     * Column -> team number
+     */
+    int[] teams = new int[64];
+    int n;
+
+    double[] normal = new double[0];
+    /**
+     * Right hand sides, row-major n x 2, OPR in column 0 and DPR in column 1
+     */
+    private double[] rhs = new double[0];
+    final Cholesky cholesky = new Cholesky();
+    /**
+     * The ridge factor() had to add, 0 if the normal matrix was factored as is
+     */
+    private double ridge;
+    /**
+     * Scratch for solve(double[], int), the original right hand sides and the residuals
+     */
+    private double[] original = new double[0], residual = new double[0];
+
+    /**
+     * @param matches the event's matches, full or simple models
+     * @return EventOPR[] containing an EventOPR for each team that played a qualification match, sorted like EventRequest.getOprs()
+     */
+    public EventOPR[] calculate(SMatch[] matches) {
+        return calculate(MatchTable.of(matches));
+    }
+
+    /**
+     * @param table the event's matches
+     * @return EventOPR[] containing an EventOPR for each team that played a qualification match, sorted like EventRequest.getOprs()
+     */
+    public EventOPR[] calculate(MatchTable table) {
+        solve(table, null);
+
+        EventOPR[] toReturn = new EventOPR[n];
+        for(int i = 0; i < n; i++) {
+            EventOPR opr = new EventOPR();
+            opr.setTeamKey("frc"+teams[i]);
+            opr.setOpr(rhs[i * 2]);
+            opr.setDpr(rhs[i * 2 + 1]);
+            opr.setCcwm(rhs[i * 2] - rhs[i * 2 + 1]);
+            toReturn[i] = opr;
+        }
+        TBA.sort(toReturn);
+        return toReturn;
+    }
+
+    /**
+     * Solves OPR and DPR for some rows of a table, leaving the results in getOpr() / getDpr()
+     * @param table the matches
+     * @param rows the rows to use, or null for every row
+     * @return the number of teams solved for
+     */
+    int solve(MatchTable table, int[] rows) {
+        index(table, rows);
+        accumulate(table, rows);
+        if(n == 0) return 0;
+        factor();
+        solve(rhs, 2);
+        return n;
+    }
+
+    double getOpr(int column) {
+        return rhs[column * 2];
+    }
+
+    double getDpr(int column) {
+        return rhs[column * 2 + 1];
+    }
+
+    /**
+     * @param table the matches
+     * @param row the row
+     * @return true if the row counts towards OPR (a played qualification match)
+     */
+    static boolean counts(MatchTable table, int row) {
+        return table.getCompLevel(row) == MatchTable.QM && table.isPlayed(row);
+    }
+
+    /**
+     * Assigns a column to every team in a counted match, rows is null for every row
+     */
+    void index(MatchTable table, int[] rows) {
+        for(int i = 0; i < n; i++) lookup[teams[i]] = -1;
+        n = 0;
+        int[] t = table.getTeams();
+        for(int r = 0, count = rows == null ? table.size() : rows.length; r < count; r++) {
+            int row = rows == null ? r : rows[r];
+            if(!counts(table, row)) continue;
+            for(int i = row * MatchTable.WIDTH, end = i + MatchTable.WIDTH; i < end; i++) {
+                int team = t[i];
+                if(team <= 0) continue;
+                if(team >= lookup.length) {
+                    int old = lookup.length;
+                    lookup = Arrays.copyOf(lookup, Math.max(team + 1, old * 2));
+                    Arrays.fill(lookup, old, lookup.length, -1);
+                }
+                if(lookup[team] != -1) continue;
+                if(n == teams.length) teams = Arrays.copyOf(teams, n * 2);
+                teams[n] = team;
+                lookup[team] = n++;
+            }
+        }
+        // columns in team number order, so results are stable regardless of match order
+        Arrays.sort(teams, 0, n);
+        for(int i = 0; i < n; i++) lookup[teams[i]] = i;
+    }
+
+    /**
+     * Builds A^T * A and A^T * b for the indexed teams, rows is null for every row
+     */
+    void accumulate(MatchTable table, int[] rows) {
+        if(normal.length < n * n) normal = new double[n * n];
+        if(rhs.length < n * 2) rhs = new double[n * 2];
+        Arrays.fill(normal, 0, n * n, 0);
+        Arrays.fill(rhs, 0, n * 2, 0);
+        int[] t = table.getTeams();
+        int[] red = table.getRedScores();
+        int[] blue = table.getBlueScores();
+        for(int r = 0, count = rows == null ? table.size() : rows.length; r < count; r++) {
+            int row = rows == null ? r : rows[r];
+            if(!counts(table, row)) continue;
+            int base = row * MatchTable.WIDTH;
+            addAlliance(t, base, red[row], blue[row]);
+            addAlliance(t, base + 3, blue[row], red[row]);
+        }
+    }
+
+    private void addAlliance(int[] t, int base, int score, int opposing) {
+        for(int i = base; i < base + 3; i++) {
+            if(t[i] <= 0) continue;
+            int ci = lookup[t[i]];
+            rhs[ci * 2] += score;
+            rhs[ci * 2 + 1] += opposing;
+            for(int j = base; j < base + 3; j++) {
+                if(t[j] > 0) normal[ci * n + lookup[t[j]]]++;
+            }
+        }
+    }
+
+    /**
+     * Factors the normal matrix, adding a tiny ridge if it's singular (teams that always played together, or early in an event)
+     */
+    void factor() {
+        ridge = 0;
+        if(cholesky.factor(normal, n)) return;
+        ridge = 1e-6;
+        while(!cholesky.factor(normal, n, ridge)) ridge *= 10;
+    }
+
+    /**
+     * Solves the normal equations for every column of b in place, after factor(). If factor() had to add a ridge, its effect is removed
+     * by a couple of steps of iterative refinement against the unregularized normal matrix, which leaves the smallest least squares
+     * solution instead of one shrunk by the ridge.
+     * @param b row-major n x m right hand sides
+     * @param m the number of columns
+     */
+    void solve(double[] b, int m) {
+        if(ridge == 0) {
+            cholesky.solveColumns(b, m);
+            return;
+        }
+        if(original.length < n * m) {
+            original = new double[n * m];
+            residual = new double[n * m];
+        }
+        System.arraycopy(b, 0, original, 0, n * m);
+        cholesky.solveColumns(b, m);
+        for(int step = 0; step < REFINEMENT_STEPS; step++) {
+            for(int i = 0; i < n; i++) {
+                int ri = i * n;
+                for(int c = 0; c < m; c++) {
+                    double sum = original[i * m + c];
+                    for(int j = 0; j < n; j++) sum -= normal[ri + j] * b[j * m + c];
+                    residual[i * m + c] = sum;
+                }
+            }
+            cholesky.solveColumns(residual, m);
+            for(int k = 0; k < n * m; k++) b[k] += residual[k];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cpjd.analytics;
+
+import java.io.Serializable;
+
+/**
+ * Columnar OPR, DPR and CCWM results for many events. Rows are grouped by event, the rows of event e are
+ * getEventStart(e) up to getEventStart(e + 1).
+ *
+ * @since 1.0.1
+ */
+public class OPRTable implements Serializable {
+
+    private final String[] eventKeys;
+    private final int[] eventStarts;
+    private final int[] teams;
+    private final double[] oprs;
+    private final double[] dprs;
+
+    OPRTable(String[] eventKeys, int[] eventStarts, int[] teams, double[] oprs, double[] dprs) {
+        this.eventKeys = eventKeys;
+        this.eventStarts = eventStarts;
+        this.teams = teams;
+        this.oprs = oprs;
+        this.dprs = dprs;
+    }
+
+    /**
+     * @return number of rows (team-event pairs)
+     */
+    public int size() {
+        return teams.length;
+    }
+
+    public int getEventCount() {
+        return eventKeys.length;
+    }
+
+    public String getEventKey(int event) {
+        return eventKeys[event];
+    }
+
+    /**
+     * @param event the event index, 0 to getEventCount(), where getEventCount() returns size()
+     * @return the first row of the event
+     */
+    public int getEventStart(int event) {
+        return eventStarts[event];
+    }
+
+    /**
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param team the team's frc number
+     * @return the row for the team at the event, or -1 if it isn't in the table
+     */
+    public int find(String eventKey, int team) {
+        for(int e = 0; e < eventKeys.length; e++) {
+            if(!eventKeys[e].equals(eventKey)) continue;
+            for(int row = eventStarts[e]; row < eventStarts[e + 1]; row++) if(teams[row] == team) return row;
+            return -1;
+        }
+        return -1;
+    }
+
+    public int getTeam(int row) {
+        return teams[row];
+    }
+
+    public double getOpr(int row) {
+        return oprs[row];
+    }
+
+    public double getDpr(int row) {
+        return dprs[row];
+    }
+
+    public double getCcwm(int row) {
+        return oprs[row] - dprs[row];
+    }
+
+    /*
+     * Raw column access
+     */
+
+    public int[] getTeams() {
+        return teams;
+    }
+
+    public double[] getOprs() {
+        return oprs;
+    }
+
+    public double[] getDprs() {
+        return dprs;
+    }
+}
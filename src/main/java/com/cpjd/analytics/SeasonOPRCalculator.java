@@ -0,0 +1,131 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.matches.MatchTable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates OPR, DPR and CCWM for every event in a season (or any other batch of events) in parallel.
+ *
+ * The input is a single MatchTable holding every event's matches, eg built with MatchTable.addAll() from EventRequest.getMatchTable()
+ * calls or loaded from a snapshot. Each call keeps a few OPRCalculators, one per event being solved at the same time, so the normal matrix
+ * and factorization buffers are reused across the call's events and released when it returns, and results are written straight into a
+ * columnar OPRTable without creating EventOPR objects.
+ *
+ * @since 1.0.1
+ */
+public class SeasonOPRCalculator {
+
+    /**
+     * Calculates every event in the table on the common fork-join pool
+     * @param season the matches of every event
+     * @return results for every event with at least one played qualification match
+     */
+    public static OPRTable calculate(MatchTable season) {
+        return calculate(ForkJoinPool.commonPool(), season);
+    }
+
+    /**
+     * Calculates every event in the table on the specified pool, eg new ForkJoinPool(4) to limit it to 4 cores
+     * @param pool the pool to run on
+     * @param season the matches of every event
+     * @return results for every event with at least one played qualification match
+     */
+    public static OPRTable calculate(ForkJoinPool pool, MatchTable season) {
+        int[][] rows = groupByEvent(season);
+        String[] eventKeys = season.getEventKeys();
+        // calculators that aren't solving an event right now, shared by this call's tasks
+        ConcurrentLinkedQueue<OPRCalculator> idle = new ConcurrentLinkedQueue<>();
+        EventTask[] tasks = new EventTask[rows.length];
+        for(int e = 0; e < rows.length; e++) tasks[e] = new EventTask(season, rows[e], idle);
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+
+        // events without played qualification matches are left out
+        int eventCount = 0, size = 0;
+        for(EventTask task : tasks) {
+            if(task.teams.length == 0) continue;
+            eventCount++;
+            size += task.teams.length;
+        }
+        String[] keys = new String[eventCount];
+        int[] starts = new int[eventCount + 1];
+        int[] teams = new int[size];
+        double[] oprs = new double[size];
+        double[] dprs = new double[size];
+        int e = 0, offset = 0;
+        for(int i = 0; i < tasks.length; i++) {
+            EventTask task = tasks[i];
+            int n = task.teams.length;
+            if(n == 0) continue;
+            keys[e] = eventKeys[i];
+            starts[e++] = offset;
+            System.arraycopy(task.teams, 0, teams, offset, n);
+            System.arraycopy(task.oprs, 0, oprs, offset, n);
+            System.arraycopy(task.dprs, 0, dprs, offset, n);
+            offset += n;
+        }
+        starts[eventCount] = offset;
+        return new OPRTable(keys, starts, teams, oprs, dprs);
+    }
+
+    /**
+     * @return for each event index of the table, the rows that belong to it
+     */
+    private static int[][] groupByEvent(MatchTable season) {
+        int eventCount = season.getEventKeys().length;
+        int[] events = season.getEvents();
+        int[] counts = new int[eventCount];
+        for(int row = 0; row < season.size(); row++) counts[events[row]]++;
+        int[][] rows = new int[eventCount][];
+        for(int e = 0; e < eventCount; e++) rows[e] = new int[counts[e]];
+        int[] fill = new int[eventCount];
+        for(int row = 0; row < season.size(); row++) {
+            int e = events[row];
+            rows[e][fill[e]++] = row;
+        }
+        return rows;
+    }
+
+    private static class EventTask extends RecursiveAction {
+        private final MatchTable season;
+        private final int[] rows;
+        private final ConcurrentLinkedQueue<OPRCalculator> idle;
+        private int[] teams;
+        private double[] oprs;
+        private double[] dprs;
+
+        EventTask(MatchTable season, int[] rows, ConcurrentLinkedQueue<OPRCalculator> idle) {
+            this.season = season;
+            this.rows = rows;
+            this.idle = idle;
+        }
+
+        @Override
+        protected void compute() {
+            OPRCalculator calculator = idle.poll();
+            if(calculator == null) calculator = new OPRCalculator();
+            try {
+                int n = calculator.solve(season, rows);
+                teams = new int[n];
+                oprs = new double[n];
+                dprs = new double[n];
+                System.arraycopy(calculator.teams, 0, teams, 0, n);
+                for(int i = 0; i < n; i++) {
+                    oprs[i] = calculator.getOpr(i);
+                    dprs[i] = calculator.getDpr(i);
+                }
+            } finally {
+                idle.add(calculator);
+            }
+        }
+    }
+}
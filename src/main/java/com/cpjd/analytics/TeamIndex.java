@@ -0,0 +1,263 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.events.Award;
+import com.cpjd.models.events.AwardRecipient;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.utils.ModelListener;
+import com.cpjd.utils.Parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An inverted index from team number to the matches, events and awards the team appears in, built from data that has
+ * already been fetched. Answers questions like "every match 254 played in with 1678" without any requests.
+ *
+ * Match keys, event keys and award ids are assigned increasing int ids as they're seen, and each team has a posting list per
+ * kind: a sorted int[] of ids. Multi team queries intersect the posting lists.
+ *
+ * Call register() to have the index updated automatically with every Match, SMatch, MatchTable and Award parsed by the com.cpjd.requests classes,
+ * and with the team lists of EventRequest.getEventTeams() / getSEventTeams() / getTeamKeys(). Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class TeamIndex implements ModelListener {
+
+    private final Dictionary matches = new Dictionary();
+    private final Dictionary events = new Dictionary();
+    private final Dictionary awards = new Dictionary();
+
+    private final Postings matchPostings = new Postings();
+    private final Postings eventPostings = new Postings();
+    private final Postings awardPostings = new Postings();
+
+    /**
+     * Starts indexing everything the com.cpjd.requests classes parse
+     */
+    public void register() {
+        Parser.addListener(this);
+    }
+
+    public void unregister() {
+        Parser.removeListener(this);
+    }
+
+    /*
+     * Updates
+     */
+
+    @Override
+    public synchronized void onMatch(SMatch match) {
+        if(match.getKey() == null) return;
+        int id = matches.id(match.getKey());
+        int event = match.getEventKey() == null ? -1 : events.id(match.getEventKey());
+        if(match.getRed() != null) add(match.getRed().getTeamKeys(), id, event);
+        if(match.getBlue() != null) add(match.getBlue().getTeamKeys(), id, event);
+    }
+
+    @Override
+    public synchronized void onMatchTable(MatchTable table) {
+        for(int row = 0; row < table.size(); row++) {
+            if(table.getKey(row) == null) continue;
+            int id = matches.id(table.getKey(row));
+            int event = table.getEventKey(row) == null ? -1 : events.id(table.getEventKey(row));
+            for(int slot = 0; slot < MatchTable.WIDTH; slot++) {
+                int team = table.getTeam(row, slot);
+                if(team <= 0) continue;
+                matchPostings.add(team, id);
+                if(event != -1) eventPostings.add(team, event);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onAward(Award award) {
+        if(award.getEventKey() == null || award.getRecipients() == null) return;
+        int id = awards.id(award.getEventKey()+":"+award.getAwardType());
+        int event = events.id(award.getEventKey());
+        for(AwardRecipient r : award.getRecipients()) {
+            int team = MatchTable.teamNumber(r.getTeamKey());
+            if(team <= 0) continue;
+            awardPostings.add(team, id);
+            eventPostings.add(team, event);
+        }
+    }
+
+    @Override
+    public synchronized void onEventTeams(String eventKey, String[] teamKeys) {
+        int event = events.id(eventKey);
+        for(String key : teamKeys) {
+            int team = MatchTable.teamNumber(key);
+            if(team > 0) eventPostings.add(team, event);
+        }
+    }
+
+    private void add(String[] teamKeys, int match, int event) {
+        if(teamKeys == null) return;
+        for(String key : teamKeys) {
+            int team = MatchTable.teamNumber(key);
+            if(team <= 0) continue;
+            matchPostings.add(team, match);
+            if(event != -1) eventPostings.add(team, event);
+        }
+    }
+
+    /*
+     * Queries
+     */
+
+    /**
+     * @param teams one or more frc team numbers
+     * @return keys of every indexed match all the teams played in (on either alliance)
+     */
+    public synchronized String[] getMatchKeys(int... teams) {
+        return matches.keys(matchPostings.intersect(teams));
+    }
+
+    /**
+     * @param teams one or more frc team numbers
+     * @return keys of every indexed event all the teams attended
+     */
+    public synchronized String[] getEventKeys(int... teams) {
+        return events.keys(eventPostings.intersect(teams));
+    }
+
+    /**
+     * @param teams one or more frc team numbers
+     * @return ids (event key:award type, eg 2016nytr:1) of every indexed award all the teams won together
+     */
+    public synchronized String[] getAwardKeys(int... teams) {
+        return awards.keys(awardPostings.intersect(teams));
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the number of indexed matches the team played in
+     */
+    public synchronized int getMatchCount(int team) {
+        return matchPostings.size(team);
+    }
+
+    /**
+     * Intersects two sorted int arrays. Uses a linear merge when they're of similar size, and galloping
+     * (exponential then binary search) through the longer one when they're not.
+     * @return the ids in both a and b, sorted
+     */
+    public static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        if(aLength > bLength) return intersect(b, bLength, a, aLength);
+        int[] toReturn = new int[aLength];
+        int count = 0;
+        if(aLength * 32 < bLength) {
+            int lo = 0;
+            for(int i = 0; i < aLength && lo < bLength; i++) {
+                int target = a[i];
+                int step = 1, hi = lo;
+                while(hi < bLength && b[hi] < target) {
+                    lo = hi + 1;
+                    hi += step;
+                    step <<= 1;
+                }
+                int found = Arrays.binarySearch(b, lo, Math.min(hi + 1, bLength), target);
+                if(found >= 0) {
+                    toReturn[count++] = target;
+                    lo = found + 1;
+                } else {
+                    lo = -found - 1;
+                }
+            }
+        } else {
+            int i = 0, j = 0;
+            while(i < aLength && j < bLength) {
+                if(a[i] < b[j]) i++;
+                else if(a[i] > b[j]) j++;
+                else {
+                    toReturn[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(toReturn, count);
+    }
+
+    /**
+     * Assigns increasing int ids to string keys
+     */
+    private static class Dictionary {
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private String[] keys = new String[256];
+
+        int id(String key) {
+            Integer id = ids.get(key);
+            if(id != null) return id;
+            int next = ids.size();
+            if(next == keys.length) keys = Arrays.copyOf(keys, next * 2);
+            keys[next] = key;
+            ids.put(key, next);
+            return next;
+        }
+
+        String[] keys(int[] ids) {
+            String[] toReturn = new String[ids.length];
+            for(int i = 0; i < ids.length; i++) toReturn[i] = keys[ids[i]];
+            return toReturn;
+        }
+    }
+
+    /**
+     * One sorted posting list per team number
+     */
+    private static class Postings {
+        private int[][] lists = new int[0][];
+        private int[] sizes = new int[0];
+
+        void add(int team, int id) {
+            if(team >= lists.length) {
+                int capacity = Math.max(team + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            int[] list = lists[team];
+            int size = sizes[team];
+            if(list == null) list = lists[team] = new int[4];
+            // ids are mostly handed out in increasing order, so this is usually an append
+            int at;
+            if(size == 0 || list[size - 1] < id) at = size;
+            else {
+                int found = Arrays.binarySearch(list, 0, size, id);
+                if(found >= 0) return;
+                at = -found - 1;
+            }
+            if(size == list.length) list = lists[team] = Arrays.copyOf(list, size * 2);
+            System.arraycopy(list, at, list, at + 1, size - at);
+            list[at] = id;
+            sizes[team] = size + 1;
+        }
+
+        int size(int team) {
+            return team < 0 || team >= sizes.length ? 0 : sizes[team];
+        }
+
+        int[] intersect(int[] teams) {
+            if(teams.length == 0) return new int[0];
+            // start from the shortest list, it bounds the result
+            int[] sorted = teams.clone();
+            for(int i = 1; i < sorted.length; i++) {
+                for(int j = i; j > 0 && size(sorted[j]) < size(sorted[j - 1]); j--) {
+                    int t = sorted[j];
+                    sorted[j] = sorted[j - 1];
+                    sorted[j - 1] = t;
+                }
+            }
+            if(size(sorted[0]) == 0) return new int[0];
+            int[] result = Arrays.copyOf(lists[sorted[0]], sizes[sorted[0]]);
+            for(int i = 1; i < sorted.length && result.length > 0; i++) {
+                int team = sorted[i];
+                if(size(team) == 0) return new int[0];
+                result = TeamIndex.intersect(result, result.length, lists[team], sizes[team]);
+            }
+            return result;
+        }
+    }
+}
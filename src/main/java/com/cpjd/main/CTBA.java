@@ -7,8 +7,15 @@ import com.cpjd.models.teams.Robot;
 import com.cpjd.models.matches.SMatch;
 import com.cpjd.models.teams.STeam;
 import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchTable;
 import com.cpjd.models.teams.Team;
+import com.cpjd.models.teams.TeamEventStatus;
+import com.cpjd.models.teams.TeamEventStatuses;
 import com.cpjd.requests.*;
+import com.cpjd.utils.Flow;
+import com.cpjd.utils.LiveMatchFeed;
+
+import java.util.function.Consumer;
 
 /**
  * This is an alternative to the TBA class. It allows you to use constructors/getters/setters. For more information on this,
@@ -45,18 +52,50 @@ public class CTBA {
      */
     private int year;
 
-    private DistrictRequest dr;
-    private EventRequest er;
-    private MatchRequest mr;
-    private OtherRequest or;
-    private TeamRequest tr;
+    private volatile boolean sortResults = true;
+
+    /**
+     * This facade's own handlers, set with setDr() etc or created by getDr() etc, null to use the shared ones from Handlers
+     */
+    private volatile DistrictRequest dr;
+    private volatile EventRequest er;
+    private volatile MatchRequest mr;
+    private volatile OtherRequest or;
+    private volatile TeamRequest tr;
+
+    public CTBA() {}
+
+    /**
+     * By default every list method sorts its results before returning them, see TBA.setSortResults()
+     * @param sortResults false to return results in server order
+     */
+    public void setSortResults(boolean sortResults) {
+        this.sortResults = sortResults;
+        if(dr != null && !dr.isShared()) dr.setSortResults(sortResults);
+        if(er != null && !er.isShared()) er.setSortResults(sortResults);
+        if(mr != null && !mr.isShared()) mr.setSortResults(sortResults);
+        if(or != null && !or.isShared()) or.setSortResults(sortResults);
+        if(tr != null && !tr.isShared()) tr.setSortResults(sortResults);
+    }
+
+    private DistrictRequest dr() {
+        return dr != null ? dr : Handlers.districts(sortResults);
+    }
 
-    public CTBA() {
-        dr = new DistrictRequest();
-        er = new EventRequest();
-        mr = new MatchRequest();
-        or = new OtherRequest();
-        tr = new TeamRequest();
+    private EventRequest er() {
+        return er != null ? er : Handlers.events(sortResults);
+    }
+
+    private MatchRequest mr() {
+        return mr != null ? mr : Handlers.matches(sortResults);
+    }
+
+    private OtherRequest or() {
+        return or != null ? or : Handlers.others(sortResults);
+    }
+
+    private TeamRequest tr() {
+        return tr != null ? tr : Handlers.teams(sortResults);
     }
 
     /**
@@ -65,7 +104,7 @@ public class CTBA {
      * @return Team[] including a Team object for every team in the specified district
      */
     public Team[] getDistrictTeams() {
-        return dr.getDistrictTeams(districtKey);
+        return dr().getDistrictTeams(districtKey);
     }
 
     /**
@@ -74,7 +113,7 @@ public class CTBA {
      * @return STeam[] including a STeam object for every team in the specified district (simple model)
      */
     public STeam[] getDistrictSTeams() {
-        return dr.getDistrictSTeams(districtKey);
+        return dr().getDistrictSTeams(districtKey);
     }
 
     /**
@@ -85,7 +124,7 @@ public class CTBA {
      * @return String[] containing all the team keys in this district
      */
     public String[] getDistrictTeamKeys() {
-        return dr.getDistrictTeamKeys(districtKey);
+        return dr().getDistrictTeamKeys(districtKey);
     }
 
     /**
@@ -94,7 +133,7 @@ public class CTBA {
      * @return Event[] including an Event object for every event in the specified district
      */
     public Event[] getDistrictEvents() {
-        return dr.getDistrictEvents(districtKey);
+        return dr().getDistrictEvents(districtKey);
     }
 
     /**
@@ -103,7 +142,7 @@ public class CTBA {
      * @return SEvent[] including an SEvent object for every event in the specified district (simple model)
      */
     public SEvent[] getDistrictSEvents() {
-        return dr.getDistrictSEvents(districtKey);
+        return dr().getDistrictSEvents(districtKey);
     }
 
     /**
@@ -114,7 +153,7 @@ public class CTBA {
      * @return String[] containing all the team keys in this district
      */
     public String[] getDistrictEventKeys() {
-        return dr.getDistrictEventKeys(districtKey);
+        return dr().getDistrictEventKeys(districtKey);
     }
 
     /**
@@ -125,7 +164,7 @@ public class CTBA {
      * @return District[] containing a District for each active district in the specified year
      */
     public District[] getDistricts() {
-        return dr.getDistricts(year);
+        return dr().getDistricts(year);
     }
 
     /**
@@ -137,7 +176,7 @@ public class CTBA {
      * @return the Team[] array that this event includes
      */
     public Team[] getEventTeams(String eventKey) {
-        return er.getEventTeams(eventKey);
+        return er().getEventTeams(eventKey);
     }
 
     /**
@@ -149,7 +188,18 @@ public class CTBA {
      * @return the STeam[] array that this event includes (simple model)
      */
     public STeam[] getSEventTeams(String eventKey) {
-        return er.getSEventTeams(eventKey);
+        return er().getSEventTeams(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/teams/statuses
+     * <p>
+     * Gets the status of every team at this event in one request.
+     *
+     * @return TeamEventStatuses indexed by team number
+     */
+    public TeamEventStatuses getEventTeamStatuses() {
+        return er().getEventTeamStatuses(eventKey);
     }
 
     /**
@@ -161,7 +211,7 @@ public class CTBA {
      * @return String[] containing all the team keys in this event
      */
     public String[] getEventTeamKeys(String eventKey) {
-        return er.getTeamKeys(eventKey);
+        return er().getTeamKeys(eventKey);
     }
 
     /**
@@ -172,7 +222,17 @@ public class CTBA {
      * @return Event[] containing all the events in the specified year
      */
     public Event[] getEvents() {
-        return er.getEvents(year);
+        return er().getEvents(year);
+    }
+
+    /**
+     * Mirror of: /events/{year}
+     *
+     * Publishes the events in the given year as they're parsed, with backpressure, see ModelPublisher.
+     * @return a Publisher of the events, in the order returned by the server
+     */
+    public Flow.Publisher<Event> publishEvents() {
+        return er().publishEvents(year);
     }
 
     /**
@@ -180,7 +240,18 @@ public class CTBA {
      * <p>
      * @return EventRanking[] containing rankings of teams in this event
      */
-    public EventRanking[] getEventRankings() { return er.getEventRankings(eventKey); }
+    public EventRanking[] getEventRankings() { return er().getEventRankings(eventKey); }
+
+    /**
+     * Mirror of: /event/{event_key}/rankings
+     *
+     * Streams the rankings of the given event to the consumer as they're parsed, instead of building an EventRanking[].
+     * @param consumer receives each EventRanking, in the order returned by the server
+     * @return the number of rankings streamed
+     */
+    public int streamEventRankings(Consumer<? super EventRanking> consumer) {
+        return er().streamEventRankings(eventKey, consumer);
+    }
 
     /**
      * Mirror of: /events/{year}/simple
@@ -190,7 +261,7 @@ public class CTBA {
      * @return SEvent[] containing all the events in the specified year
      */
     public SEvent[] getSEvents() {
-        return er.getSEvents(year);
+        return er().getSEvents(year);
     }
 
     /**
@@ -201,7 +272,7 @@ public class CTBA {
      * @return String[] containing event keys for the specified year
      */
     public String[] getEventKeys() {
-        return er.getEventKeys(year);
+        return er().getEventKeys(year);
     }
 
     /**
@@ -212,7 +283,7 @@ public class CTBA {
      * @return Event model representing the event associated with the event key
      */
     public Event getEvent() {
-        return er.getEvent(eventKey);
+        return er().getEvent(eventKey);
     }
 
     /**
@@ -223,7 +294,7 @@ public class CTBA {
      * @return Event model representing the event associated with the event key
      */
     public SEvent getSEvent() {
-        return er.getSEvent(eventKey);
+        return er().getSEvent(eventKey);
     }
 
     /**
@@ -233,7 +304,17 @@ public class CTBA {
      * @return EventOPR[] containing an EventOPR for each team
      */
     public EventOPR[] getOprs() {
-        return er.getOprs(eventKey);
+        return er().getOprs(eventKey);
+    }
+
+    /**
+     * Calculates OPR, DPR and CCWM locally from the event's matches instead of using /event/{event_key}/oprs,
+     * which can lag behind the real results during an event.
+     *
+     * @return EventOPR[] containing an EventOPR for each team
+     */
+    public EventOPR[] calculateOprs() {
+        return er().calculateOprs(eventKey);
     }
 
     /**
@@ -245,7 +326,7 @@ public class CTBA {
      * @return JSON String containing prediction information
      */
     public String getPredictions() {
-        return er.getPredictions(eventKey);
+        return er().getPredictions(eventKey);
     }
 
     /**
@@ -255,7 +336,7 @@ public class CTBA {
      * @return Match[] containing a Match object for each match in the specified event
      */
     public Match[] getMatches() {
-        return er.getMatches(eventKey);
+        return er().getMatches(eventKey);
     }
 
     /**
@@ -265,7 +346,49 @@ public class CTBA {
      * @return Match[] containing a Match object for each match in the specified event
      */
     public SMatch[] getSMatches() {
-        return er.getSMatches(eventKey);
+        return er().getSMatches(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Gets the matches for the given event as a columnar MatchTable instead of a Match[].
+     * @return MatchTable containing a row for each match in the specified event
+     */
+    public MatchTable getMatchTable() {
+        return er().getMatchTable(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches
+     *
+     * Streams the matches of the given event to the consumer as they're parsed, instead of building a Match[].
+     * @param consumer receives each Match, in the order returned by the server
+     * @return the number of matches streamed
+     */
+    public int streamMatches(Consumer<? super Match> consumer) {
+        return er().streamMatches(eventKey, consumer);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches
+     *
+     * Creates a feed that polls the matches of this event and only reports the ones that were added or changed, see LiveMatchFeed.
+     * @return a new LiveMatchFeed, call poll() or start() on it
+     */
+    public LiveMatchFeed liveMatches() {
+        return new LiveMatchFeed(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Streams the simple matches of the given event to the consumer as they're parsed, instead of building an SMatch[].
+     * @param consumer receives each SMatch, in the order returned by the server
+     * @return the number of matches streamed
+     */
+    public int streamSMatches(Consumer<? super SMatch> consumer) {
+        return er().streamSMatches(eventKey, consumer);
     }
 
 
@@ -276,7 +399,7 @@ public class CTBA {
      * @return String[] containing matches keys for the specified event
      */
     public String[] getMatchKeys() {
-        return er.getMatchKeys(eventKey);
+        return er().getMatchKeys(eventKey);
     }
 
     /**
@@ -286,7 +409,7 @@ public class CTBA {
      * @return Award[] containing all the awards won in this event
      */
     public Award[] getEventAwards() {
-        return er.getEventAwards(eventKey);
+        return er().getEventAwards(eventKey);
     }
 
     /**
@@ -296,7 +419,7 @@ public class CTBA {
      * @return Match object represented by the match key
      */
     public Match getMatch() {
-        return mr.getMatch(matchKey);
+        return mr().getMatch(matchKey);
     }
 
     /**
@@ -306,7 +429,7 @@ public class CTBA {
      * @return SMatch object represented by the match key (simple model)
      */
     public SMatch getSMatch() {
-        return mr.getSMatch(matchKey);
+        return mr().getSMatch(matchKey);
     }
 
     /**
@@ -314,7 +437,7 @@ public class CTBA {
      * @return APIStatus representing the state of the TBA API interface
      */
     public APIStatus getStatus() {
-        return or.getStatus();
+        return or().getStatus();
     }
 
     /**
@@ -323,7 +446,7 @@ public class CTBA {
      * @return an Object (json formatted), representing the data received from the server
      */
     public Object customCall(String URL) {
-        return or.customCall(URL);
+        return or().customCall(URL);
     }
 
     /**
@@ -333,7 +456,7 @@ public class CTBA {
      * @return list of Team objects (full team models)
      */
     public Team[] getTeams() {
-        return tr.getTeams(pageNum);
+        return tr().getTeams(pageNum);
     }
 
     /**
@@ -343,7 +466,7 @@ public class CTBA {
      * @return list of STeam objects (simple team models)
      */
     public STeam[] getSTeams() {
-        return tr.getSTeams(pageNum);
+        return tr().getSTeams(pageNum);
     }
 
     /**
@@ -353,7 +476,7 @@ public class CTBA {
      * @return String[] of team keys in the format 'frc254'
      */
     public String[] getTeamKeys() {
-        return tr.getTeamKeys(pageNum);
+        return tr().getTeamKeys(pageNum);
     }
 
     /**
@@ -363,7 +486,7 @@ public class CTBA {
      * @return list of Team objects (full models)
      */
     public Team[] getTeamsByPage() {
-        return tr.getTeams(pageNum);
+        return tr().getTeams(pageNum);
     }
 
     /**
@@ -373,7 +496,7 @@ public class CTBA {
      * @return list of Team objects (simple models)
      */
     public STeam[] getSTeamsByPage() {
-        return tr.getSTeams(year, pageNum);
+        return tr().getSTeams(year, pageNum);
     }
 
     /**
@@ -383,7 +506,7 @@ public class CTBA {
      * @return String[] of team keys in format 'frc254'
      */
     public String[] getTeamKeysByPage() {
-        return tr.getTeamKeys(year, pageNum);
+        return tr().getTeamKeys(year, pageNum);
     }
 
     /**
@@ -393,7 +516,7 @@ public class CTBA {
      * @return Team object (full model)
      */
     public Team getTeam() {
-        return tr.getTeam(number);
+        return tr().getTeam(number);
     }
 
     /**
@@ -403,7 +526,7 @@ public class CTBA {
      * @return STeam object (simple model)
      */
     public STeam getSTeam() {
-        return tr.getSTeam(number);
+        return tr().getSTeam(number);
     }
 
     /**
@@ -413,7 +536,7 @@ public class CTBA {
      * @return long[] containing years participated
      */
     public long[] getYearsParticipated() {
-        return tr.getYearsParticipated(number);
+        return tr().getYearsParticipated(number);
     }
 
     /**
@@ -423,7 +546,7 @@ public class CTBA {
      * @return District[] containing a District object for each district this team was in
      */
     public String[] getTeamDistricts() {
-        return tr.getTeamDistricts(number);
+        return tr().getTeamDistricts(number);
     }
 
     /**
@@ -433,7 +556,7 @@ public class CTBA {
      * @return Robot[] containing a Robot object for each robot this team has built
      */
     public Robot[] getRobots() {
-        return tr.getRobots(number);
+        return tr().getRobots(number);
     }
 
     /**
@@ -443,7 +566,7 @@ public class CTBA {
      * @return Event[] containing an Event object for each event this team was in
      */
     public Event[] getTeamEvents() {
-        return tr.getTeamEvents(number);
+        return tr().getTeamEvents(number);
     }
 
     /**
@@ -453,7 +576,7 @@ public class CTBA {
      * @return SEvent[] containing an Event object for each event this team was in (simple model)
      */
     public SEvent[] getTeamSEvents() {
-        return tr.getTeamSEvents(number);
+        return tr().getTeamSEvents(number);
     }
 
     /**
@@ -463,7 +586,7 @@ public class CTBA {
      * @return String[] containg all the event keys for events this team is in
      */
     public String[] getTeamEventKeys() {
-        return tr.getTeamEventKeys(number);
+        return tr().getTeamEventKeys(number);
     }
 
     /**
@@ -473,7 +596,7 @@ public class CTBA {
      * @return Event[] containing an Event object for each event this team was in the specified year (full model)
      */
     public Event[] getTeamEventsByYear() {
-        return tr.getEvents(number, year);
+        return tr().getEvents(number, year);
     }
 
     /**
@@ -483,7 +606,7 @@ public class CTBA {
      * @return Event[] containing an Event object for each event this team was in the specified year (simple model)
      */
     public SEvent[] getTeamSEventsByYear() {
-        return tr.getSEvents(number, year);
+        return tr().getSEvents(number, year);
     }
 
     /**
@@ -493,7 +616,7 @@ public class CTBA {
      * @return String[] containing an event key for each event this team has participated in
      */
     public String[] getTeamEventKeysByYear() {
-        return tr.getEventKeys(number, year);
+        return tr().getEventKeys(number, year);
     }
 
     /**
@@ -503,7 +626,7 @@ public class CTBA {
      * @return Match[] containing a match for each match this team was in in the specified event
      */
     public Match[] getTeamEventMatches() {
-        return tr.getTeamEventMatches(number, eventKey);
+        return tr().getTeamEventMatches(number, eventKey);
     }
 
     /**
@@ -513,7 +636,7 @@ public class CTBA {
      * @return SMatch[] containing a match for each match this team was in in the specified event (simple model)
      */
     public SMatch[] getTeamEventSMatches() {
-        return tr.getTeamEventSMatches(number, eventKey);
+        return tr().getTeamEventSMatches(number, eventKey);
     }
 
     /**
@@ -523,7 +646,17 @@ public class CTBA {
      * @return String[] containing an event key for each event this team has participated in
      */
     public String[] getTeamMatchKeysByEvent() {
-        return tr.getMatchKeys(number, eventKey);
+        return tr().getMatchKeys(number, eventKey);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/event/{event_key}/status
+     *
+     * Gets the team's status at the event: its ranking, alliance and playoff progress.
+     * @return TeamEventStatus of the team at the event
+     */
+    public TeamEventStatus getTeamEventStatus() {
+        return tr().getTeamEventStatus(number, eventKey);
     }
 
     /**
@@ -533,7 +666,7 @@ public class CTBA {
      * @return Award[] containing n award object for each award this team won in the specified event
      */
     public Award[] getTeamEventAwards() {
-        return tr.getTeamEventAwards(number, eventKey);
+        return tr().getTeamEventAwards(number, eventKey);
     }
 
     /**
@@ -543,7 +676,7 @@ public class CTBA {
      * @return Award[] containing all the awards this team has won
      */
     public Award[] getTeamAwardsByNumber() {
-        return tr.getTeamAwards(number);
+        return tr().getTeamAwards(number);
     }
 
     /**
@@ -553,7 +686,7 @@ public class CTBA {
      * @return Award[] containing all the awards this team has won
      */
     public Award[] getTeamAwards() {
-        return tr.getTeamAwards(number, year);
+        return tr().getTeamAwards(number, year);
     }
 
     /**
@@ -563,7 +696,17 @@ public class CTBA {
      * @return Match[] containing all the matches the specified team was in for the specified year
      */
     public Match[] getTeamMatches() {
-        return tr.getTeamMatches(number, year);
+        return tr().getTeamMatches(number, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}
+     *
+     * Publishes the matches for the given team and year as they're parsed, with backpressure, see ModelPublisher.
+     * @return a Publisher of the matches, in the order returned by the server
+     */
+    public Flow.Publisher<Match> publishTeamMatches() {
+        return tr().publishTeamMatches(number, year);
     }
 
     /**
@@ -573,7 +716,17 @@ public class CTBA {
      * @return SMatch[] containing all the matches the specified team was in for the specified year (simple models)
      */
     public SMatch[] getTeamSMatches() {
-        return tr.getTeamSMatches(number, year);
+        return tr().getTeamSMatches(number, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}/simple
+     *
+     * Gets the matches for the given team and year as a columnar MatchTable instead of a Match[].
+     * @return MatchTable containing a row for each match the specified team was in for the specified year
+     */
+    public MatchTable getTeamMatchTable() {
+        return tr().getTeamMatchTable(number, year);
     }
 
     /**
@@ -583,7 +736,7 @@ public class CTBA {
      * @return String[] containing match string keys for each match
      */
     public String[] getTeamMatchKeys() {
-        return tr.getTeamMatchKeys(number, year);
+        return tr().getTeamMatchKeys(number, year);
     }
 
     /**
@@ -593,7 +746,7 @@ public class CTBA {
      * @return Media[] containing all the media associated with this team for the specified year
      */
     public Media[] getTeamMedia() {
-        return tr.getTeamMedia(number, year);
+        return tr().getTeamMedia(number, year);
     }
 
     /**
@@ -603,7 +756,7 @@ public class CTBA {
      * @return Media[] containing all social media associated with this team
      */
     public Media[] getTeamSocialMedia() {
-        return tr.getTeamSocialMedia(number);
+        return tr().getTeamSocialMedia(number);
     }
 
     /**
@@ -612,7 +765,7 @@ public class CTBA {
      * @return List of all alliances in this event
      */
     public Alliance[] getEventAlliances() {
-        return er.getEventAlliances(eventKey);
+        return er().getEventAlliances(eventKey);
     }
 
     /**
@@ -621,7 +774,7 @@ public class CTBA {
      * @return Insights for this event
      */
     public Insight getEventInsights() {
-        return er.getEventInsights(eventKey);
+        return er().getEventInsights(eventKey);
     }
 
     public void setDistrictKey(String districtKey) {
@@ -692,23 +845,52 @@ public class CTBA {
         return year;
     }
 
-    public DistrictRequest getDr() {
+    /**
+     * Creates this facade's own handler the first time, so its settings can be changed without affecting other facades
+     * @return the handler used by this facade
+     */
+    public synchronized DistrictRequest getDr() {
+        if(dr == null) {
+            DistrictRequest handler = new DistrictRequest();
+            handler.setSortResults(sortResults);
+            dr = handler;
+        }
         return dr;
     }
 
-    public EventRequest getEr() {
+    public synchronized EventRequest getEr() {
+        if(er == null) {
+            EventRequest handler = new EventRequest();
+            handler.setSortResults(sortResults);
+            er = handler;
+        }
         return er;
     }
 
-    public MatchRequest getMr() {
+    public synchronized MatchRequest getMr() {
+        if(mr == null) {
+            MatchRequest handler = new MatchRequest();
+            handler.setSortResults(sortResults);
+            mr = handler;
+        }
         return mr;
     }
 
-    public OtherRequest getOr() {
+    public synchronized OtherRequest getOr() {
+        if(or == null) {
+            OtherRequest handler = new OtherRequest();
+            handler.setSortResults(sortResults);
+            or = handler;
+        }
         return or;
     }
 
-    public TeamRequest getTr() {
+    public synchronized TeamRequest getTr() {
+        if(tr == null) {
+            TeamRequest handler = new TeamRequest();
+            handler.setSortResults(sortResults);
+            tr = handler;
+        }
         return tr;
     }
 }
@@ -8,16 +8,25 @@ import com.cpjd.models.teams.Robot;
 import com.cpjd.models.matches.SMatch;
 import com.cpjd.models.teams.STeam;
 import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchTable;
 import com.cpjd.models.teams.Team;
+import com.cpjd.models.teams.TeamEventStatus;
+import com.cpjd.models.teams.TeamEventStatuses;
 import com.cpjd.requests.*;
 import com.cpjd.sorting.Sortable;
 import com.cpjd.sorting.SortingType;
+import com.cpjd.utils.Flow;
 import com.cpjd.utils.IO;
+import com.cpjd.utils.LiveMatchFeed;
+import com.cpjd.utils.ResponseCache;
 import com.cpjd.utils.exceptions.DataNotFoundException;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 /**
  * This is the com.cpjd.main interface for the API, let's talk about that.
@@ -36,19 +45,13 @@ import java.util.Arrays;
 @SuppressWarnings("unused")
 public class TBA {
 
-    private DistrictRequest dr;
-    private EventRequest er;
-    private MatchRequest mr;
-    private OtherRequest or;
-    private TeamRequest tr;
+    /**
+     * Which of the shared handlers (see Handlers) this instance uses. That flag is the only state a TBA has,
+     * so instances are cheap to create and safe to share between threads.
+     */
+    private volatile boolean sortResults = true;
 
-    public TBA() {
-        dr = new DistrictRequest();
-        er = new EventRequest();
-        mr = new MatchRequest();
-        or = new OtherRequest();
-        tr = new TeamRequest();
-    }
+    public TBA() {}
 
     /**
      * Sets the authentication token for the API, required for all calls!
@@ -59,22 +62,136 @@ public class TBA {
         Constants.AUTH_TOKEN = authToken;
     }
 
+    /**
+     * Caches responses in memory, shared by every TBA and CTBA. Simple models and key lists are answered from fresh full
+     * responses when possible, see ResponseCache.
+     * @param cache the cache to use, or null to turn caching off (the default)
+     */
+    public static void setCache(ResponseCache cache) {
+        IO.setCache(cache);
+    }
+
     /*
      * Sorting functions
      */
 
-    public static <T extends Sortable> void sort(T[] array, SortingType type, boolean ascending) {
-        Arrays.sort(array, (o1, o2) -> ascending ? o1.sort(type, ascending, o2) : o2.sort(type, ascending, o1));
+    /**
+     * Arrays at least this long are sorted in parallel
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Sorts the array. If every element has a primitive sort key for the type (see Sortable.hasSortKey()), the key is
+     * extracted once per element and the keys are sorted instead of comparing models. The sort is stable either way.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Sortable<?>> void sort(T[] array, SortingType type, boolean ascending) {
+        if(array.length < 2) return;
+        if(hasSortKeys(array, type)) {
+            sortByKey(array, type, ascending);
+            return;
+        }
+        Comparator<T> comparator = comparator(type, ascending);
+        if(array.length >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(array, comparator);
+        else Arrays.sort(array, comparator);
+    }
+
+    private static <T extends Sortable<?>> boolean hasSortKeys(T[] array, SortingType type) {
+        for(T t : array) if(t == null || !t.hasSortKey(type)) return false;
+        return true;
+    }
+
+    /**
+     * Packs each element's key (as an order preserving unsigned int) and index into a long, sorts the longs and then
+     * rearranges the array. The index in the low bits keeps equal keys in their original order.
+     */
+    private static <T extends Sortable<?>> void sortByKey(T[] array, SortingType type, boolean ascending) {
+        long[] packed = new long[array.length];
+        for(int i = 0; i < array.length; i++) {
+            long key = (array[i].sortKey(type) ^ 0x80000000) & 0xFFFFFFFFL;
+            if(!ascending) key = 0xFFFFFFFFL - key;
+            packed[i] = ((key << 32) | i) ^ Long.MIN_VALUE;
+        }
+        if(array.length >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(packed);
+        else Arrays.sort(packed);
+        T[] copy = array.clone();
+        for(int i = 0; i < array.length; i++) array[i] = copy[(int) packed[i]];
     }
 
-    public static <T extends Sortable> void sort(T[] array) {
+    public static <T extends Sortable<?>> void sort(T[] array) {
         sort(array, SortingType.DEFAULT, true);
     }
 
-    public static <T extends Sortable> void sort(T[] array, SortingType type) {
+    public static <T extends Sortable<?>> void sort(T[] array, SortingType type) {
         sort(array, type, true);
     }
 
+    @SuppressWarnings("unchecked")
+    public static <T extends Sortable<?>> Comparator<T> comparator(SortingType type, boolean ascending) {
+        // T is a Sortable of itself or of a superclass (Match is a Sortable<SMatch>), so it can be compared with any other T
+        return (o1, o2) -> ascending ? ((Sortable<T>) o1).sort(type, ascending, o2) : ((Sortable<T>) o2).sort(type, ascending, o1);
+    }
+
+    /**
+     * Selects the first k elements of the array in sorted order, without sorting the whole array (O(n log k)).
+     * For example, the best 8 teams by OPR are top(oprs, 8, SortingType.RANK, false). The array isn't modified.
+     * @param array the elements to select from
+     * @param k the number of elements to select
+     * @param type the sorting type
+     * @param ascending the sort direction
+     * @return the first min(k, array.length) elements, sorted
+     */
+    public static <T extends Sortable<?>> T[] top(T[] array, int k, SortingType type, boolean ascending) {
+        k = Math.max(0, Math.min(k, array.length));
+        T[] toReturn = Arrays.copyOf(array, k);
+        if(k == 0) return toReturn;
+        Comparator<T> order = comparator(type, ascending);
+        // the heap's head is the worst element kept so far
+        PriorityQueue<T> heap = new PriorityQueue<>(k + 1, order.reversed());
+        for(T t : array) {
+            if(heap.size() < k) heap.add(t);
+            else if(order.compare(t, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(t);
+            }
+        }
+        for(int i = k - 1; i >= 0; i--) toReturn[i] = heap.poll();
+        return toReturn;
+    }
+
+    public static <T extends Sortable<?>> T[] top(T[] array, int k) {
+        return top(array, k, SortingType.DEFAULT, true);
+    }
+
+    /**
+     * By default every list method sorts its results with sort() before returning them. Turning that off returns results
+     * in the order the server sent them, which saves the sort if you re-sort, index, or only need a few elements (see top() and LazySorted).
+     * @param sortResults false to return results in server order
+     */
+    public void setSortResults(boolean sortResults) {
+        this.sortResults = sortResults;
+    }
+
+    private DistrictRequest dr() {
+        return Handlers.districts(sortResults);
+    }
+
+    private EventRequest er() {
+        return Handlers.events(sortResults);
+    }
+
+    private MatchRequest mr() {
+        return Handlers.matches(sortResults);
+    }
+
+    private OtherRequest or() {
+        return Handlers.others(sortResults);
+    }
+
+    private TeamRequest tr() {
+        return Handlers.teams(sortResults);
+    }
+
     /**
      * Mirror of: /district/{district_key}/teams
      *
@@ -82,7 +199,7 @@ public class TBA {
      * @return Team[] including a Team object for every team in the specified district
      */
     public Team[] getDistrictTeams(String districtKey) {
-        return dr.getDistrictTeams(districtKey);
+        return dr().getDistrictTeams(districtKey);
     }
 
     /**
@@ -92,7 +209,7 @@ public class TBA {
      * @return STeam[] including a STeam object for every team in the specified district (simple model)
      */
     public STeam[] getDistrictSTeams(String districtKey) {
-        return dr.getDistrictSTeams(districtKey);
+        return dr().getDistrictSTeams(districtKey);
     }
 
     /**
@@ -104,7 +221,7 @@ public class TBA {
      * @return String[] containing all the team keys in this district
      */
     public String[] getDistrictTeamKeys(String districtKey) {
-        return dr.getDistrictTeamKeys(districtKey);
+        return dr().getDistrictTeamKeys(districtKey);
     }
 
     /**
@@ -114,7 +231,7 @@ public class TBA {
      * @return Event[] including an Event object for every event in the specified district
      */
     public Event[] getDistrictEvents(String districtKey) {
-        return dr.getDistrictEvents(districtKey);
+        return dr().getDistrictEvents(districtKey);
     }
 
     /**
@@ -124,7 +241,7 @@ public class TBA {
      * @return SEvent[] including an SEvent object for every event in the specified district (simple model)
      */
     public SEvent[] getDistrictSEvents(String districtKey) {
-        return dr.getDistrictSEvents(districtKey);
+        return dr().getDistrictSEvents(districtKey);
     }
 
     /**
@@ -136,7 +253,7 @@ public class TBA {
      * @return String[] containing all the team keys in this district
      */
     public String[] getDistrictEventKeys(String districtKey) {
-        return dr.getDistrictEventKeys(districtKey);
+        return dr().getDistrictEventKeys(districtKey);
     }
 
     /**
@@ -148,7 +265,7 @@ public class TBA {
      * @return District[] containing a District for each active district in the specified year
      */
     public District[] getDistricts(int year) {
-        return dr.getDistricts(year);
+        return dr().getDistricts(year);
     }
 
     /**
@@ -160,7 +277,7 @@ public class TBA {
      * @return the Team[] array that this event includes
      */
     public Team[] getEventTeams(String eventKey) {
-        return er.getEventTeams(eventKey);
+        return er().getEventTeams(eventKey);
     }
 
     /**
@@ -172,7 +289,19 @@ public class TBA {
      * @return the STeam[] array that this event includes (simple model)
      */
     public STeam[] getSEventTeams(String eventKey) {
-        return er.getSEventTeams(eventKey);
+        return er().getSEventTeams(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/teams/statuses
+     * <p>
+     * Gets the status of every team at the given event in one request.
+     *
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return TeamEventStatuses indexed by team number
+     */
+    public TeamEventStatuses getEventTeamStatuses(String eventKey) {
+        return er().getEventTeamStatuses(eventKey);
     }
 
     /**
@@ -184,7 +313,7 @@ public class TBA {
      * @return String[] containing all the team keys in this event
      */
     public String[] getTeamKeys(String eventKey) {
-        return er.getTeamKeys(eventKey);
+        return er().getTeamKeys(eventKey);
     }
 
     /**
@@ -196,7 +325,18 @@ public class TBA {
      * @return Event[] containing all the events in the specified year
      */
     public Event[] getEvents(int year) {
-        return er.getEvents(year);
+        return er().getEvents(year);
+    }
+
+    /**
+     * Mirror of: /events/{year}
+     *
+     * Publishes the events in the given year as they're parsed, with backpressure, see ModelPublisher.
+     * @param year Competition Year (or Season). Must be 4 digits.
+     * @return a Publisher of the events, in the order returned by the server
+     */
+    public Flow.Publisher<Event> publishEvents(int year) {
+        return er().publishEvents(year);
     }
 
     /**
@@ -208,7 +348,7 @@ public class TBA {
      * @return SEvent[] containing all the events in the specified year
      */
     public SEvent[] getSEvents(int year) {
-        return er.getSEvents(year);
+        return er().getSEvents(year);
     }
 
     /**
@@ -220,7 +360,7 @@ public class TBA {
      * @return String[] containing event keys for the specified year
      */
     public String[] getEventKeys(int year) {
-        return er.getEventKeys(year);
+        return er().getEventKeys(year);
     }
 
     /**
@@ -232,7 +372,7 @@ public class TBA {
      * @return Event model representing the event associated with the event key
      */
     public Event getEvent(String eventKey) {
-        return er.getEvent(eventKey);
+        return er().getEvent(eventKey);
     }
 
     /**
@@ -244,7 +384,7 @@ public class TBA {
      * @return Event model representing the event associated with the event key
      */
     public SEvent getSEvent(String eventKey) {
-        return er.getSEvent(eventKey);
+        return er().getSEvent(eventKey);
     }
 
     /**
@@ -255,7 +395,18 @@ public class TBA {
      * @return EventOPR[] containing an EventOPR for each team
      */
     public EventOPR[] getOprs(String eventKey) {
-        return er.getOprs(eventKey);
+        return er().getOprs(eventKey);
+    }
+
+    /**
+     * Calculates OPR, DPR and CCWM locally from the event's matches instead of using /event/{event_key}/oprs,
+     * which can lag behind the real results during an event.
+     *
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return EventOPR[] containing an EventOPR for each team
+     */
+    public EventOPR[] calculateOprs(String eventKey) {
+        return er().calculateOprs(eventKey);
     }
 
     /**
@@ -268,7 +419,7 @@ public class TBA {
      * @return JSON String containing prediction information
      */
     public String getPredictions(String eventKey) {
-        return er.getPredictions(eventKey);
+        return er().getPredictions(eventKey);
     }
 
     /**
@@ -279,7 +430,7 @@ public class TBA {
      * @return Match[] containing a Match object for each match in the specified event
      */
     public Match[] getMatches(String eventKey) {
-        return er.getMatches(eventKey);
+        return er().getMatches(eventKey);
     }
 
     /**
@@ -290,7 +441,53 @@ public class TBA {
      * @return Match[] containing a Match object for each match in the specified event
      */
     public SMatch[] getSMatches(String eventKey) {
-        return er.getSMatches(eventKey);
+        return er().getSMatches(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Gets the matches for the given event as a columnar MatchTable instead of a Match[].
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return MatchTable containing a row for each match in the specified event
+     */
+    public MatchTable getMatchTable(String eventKey) {
+        return er().getMatchTable(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches
+     *
+     * Streams the matches of the given event to the consumer as they're parsed, instead of building a Match[].
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each Match, in the order returned by the server
+     * @return the number of matches streamed
+     */
+    public int streamMatches(String eventKey, Consumer<? super Match> consumer) {
+        return er().streamMatches(eventKey, consumer);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches
+     *
+     * Creates a feed that polls the matches of the given event and only reports the ones that were added or changed, see LiveMatchFeed.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return a new LiveMatchFeed, call poll() or start() on it
+     */
+    public LiveMatchFeed liveMatches(String eventKey) {
+        return new LiveMatchFeed(eventKey);
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Streams the simple matches of the given event to the consumer as they're parsed, instead of building an SMatch[].
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each SMatch, in the order returned by the server
+     * @return the number of matches streamed
+     */
+    public int streamSMatches(String eventKey, Consumer<? super SMatch> consumer) {
+        return er().streamSMatches(eventKey, consumer);
     }
 
 
@@ -302,7 +499,7 @@ public class TBA {
      * @return String[] containing matches keys for the specified event
      */
     public String[] getMatchKeys(String eventKey) {
-        return er.getMatchKeys(eventKey);
+        return er().getMatchKeys(eventKey);
     }
 
     /**
@@ -313,7 +510,7 @@ public class TBA {
      * @return Award[] containing all the awards won in this event
      */
     public Award[] getEventAwards(String eventKey) {
-        return er.getEventAwards(eventKey);
+        return er().getEventAwards(eventKey);
     }
 
     /**
@@ -324,7 +521,7 @@ public class TBA {
      * @return Match object represented by the match key
      */
     public Match getMatch(String matchKey) {
-        return mr.getMatch(matchKey);
+        return mr().getMatch(matchKey);
     }
 
     /**
@@ -335,7 +532,7 @@ public class TBA {
      * @return SMatch object represented by the match key (simple model)
      */
     public SMatch getSMatch(String matchKey) {
-        return mr.getSMatch(matchKey);
+        return mr().getSMatch(matchKey);
     }
 
     /**
@@ -343,7 +540,7 @@ public class TBA {
      * @return APIStatus representing the state of the TBA API interface
      */
     public APIStatus getStatus() {
-        return or.getStatus();
+        return or().getStatus();
     }
 
     /**
@@ -352,7 +549,7 @@ public class TBA {
      * @return an Object (json formatted), representing the data received from the server
      */
     public Object customCall(String URL) {
-        return or.customCall(URL);
+        return or().customCall(URL);
     }
 
     /**
@@ -363,7 +560,7 @@ public class TBA {
      * @return list of Team objects (full team models)
      */
     public Team[] getTeams(int pageNum) {
-        return tr.getTeams(pageNum);
+        return tr().getTeams(pageNum);
     }
 
     /**
@@ -374,7 +571,7 @@ public class TBA {
      * @return list of STeam objects (simple team models)
      */
     public STeam[] getSTeams(int pageNum) {
-        return tr.getSTeams(pageNum);
+        return tr().getSTeams(pageNum);
     }
 
     /**
@@ -385,7 +582,7 @@ public class TBA {
      * @return String[] of team keys in the format 'frc254'
      */
     public String[] getTeamKeys(int pageNum) {
-        return tr.getTeamKeys(pageNum);
+        return tr().getTeamKeys(pageNum);
     }
 
     /**
@@ -397,7 +594,7 @@ public class TBA {
      * @return list of Team objects (full models)
      */
     public Team[] getTeams(int year, int pageNum) {
-        return tr.getTeams(year, pageNum);
+        return tr().getTeams(year, pageNum);
     }
 
     /**
@@ -409,7 +606,7 @@ public class TBA {
      * @return list of Team objects (simple models)
      */
     public STeam[] getSTeams(int year, int pageNum) {
-        return tr.getSTeams(year, pageNum);
+        return tr().getSTeams(year, pageNum);
     }
 
     /**
@@ -420,7 +617,7 @@ public class TBA {
      * @return String[] of team keys in format 'frc254'
      */
     public String[] getTeamKeys(int year, int pageNum) {
-        return tr.getTeamKeys(year, pageNum);
+        return tr().getTeamKeys(year, pageNum);
     }
 
     /**
@@ -431,7 +628,7 @@ public class TBA {
      * @return Team object (full model)
      */
     public Team getTeam(int number) {
-        return tr.getTeam(number);
+        return tr().getTeam(number);
     }
 
     /**
@@ -442,7 +639,7 @@ public class TBA {
      * @return STeam object (simple model)
      */
     public STeam getSTeam(int number) {
-        return tr.getSTeam(number);
+        return tr().getSTeam(number);
     }
 
     /**
@@ -453,7 +650,7 @@ public class TBA {
      * @return long[] containing years participated
      */
     public long[] getYearsParticipated(int number) {
-        return tr.getYearsParticipated(number);
+        return tr().getYearsParticipated(number);
     }
 
     /**
@@ -464,7 +661,7 @@ public class TBA {
      * @return District[] containing a District object for each district this team was in
      */
     public String[] getTeamDistricts(int number) {
-        return tr.getTeamDistricts(number);
+        return tr().getTeamDistricts(number);
     }
 
     /**
@@ -477,7 +674,7 @@ public class TBA {
      *
      */
     public Robot[] getRobots(int number) {
-        return tr.getRobots(number);
+        return tr().getRobots(number);
     }
 
     /**
@@ -488,7 +685,7 @@ public class TBA {
      * @return Event[] containing an Event object for each event this team was in
      */
     public Event[] getTeamEvents(int number) {
-        return tr.getTeamEvents(number);
+        return tr().getTeamEvents(number);
     }
 
     /**
@@ -499,7 +696,7 @@ public class TBA {
      * @return SEvent[] containing an Event object for each event this team was in (simple model)
      */
     public SEvent[] getTeamSEvents(int number) {
-        return tr.getTeamSEvents(number);
+        return tr().getTeamSEvents(number);
     }
 
     /**
@@ -510,7 +707,7 @@ public class TBA {
      * @return String[] containg all the event keys for events this team is in
      */
     public String[] getTeamEventKeys(int number) {
-        return tr.getTeamEventKeys(number);
+        return tr().getTeamEventKeys(number);
     }
 
     /**
@@ -522,7 +719,7 @@ public class TBA {
      * @return Event[] containing an Event object for each event this team was in the specified year (full model)
      */
     public Event[] getEvents(int number, int year) {
-        return tr.getEvents(number, year);
+        return tr().getEvents(number, year);
     }
 
     /**
@@ -534,7 +731,7 @@ public class TBA {
      * @return Event[] containing an Event object for each event this team was in the specified year (simple model)
      */
     public SEvent[] getSEvents(int number, int year) {
-        return tr.getSEvents(number, year);
+        return tr().getSEvents(number, year);
     }
 
     /**
@@ -546,7 +743,7 @@ public class TBA {
      * @return String[] containing an event key for each event this team has participated in
      */
     public String[] getEventKeys(int number, int year) {
-        return tr.getEventKeys(number, year);
+        return tr().getEventKeys(number, year);
     }
 
     /**
@@ -558,7 +755,7 @@ public class TBA {
      * @return Match[] containing a match for each match this team was in in the specified event
      */
     public Match[] getTeamEventMatches(int number, String eventKey) {
-        return tr.getTeamEventMatches(number, eventKey);
+        return tr().getTeamEventMatches(number, eventKey);
     }
 
     /**
@@ -566,7 +763,19 @@ public class TBA {
      * @param eventKey the event's key code (example: '2016nytr')
      * @return EventRanking[] containing rankings of teams in this event
      */
-    public EventRanking[] getEventRankings(String eventKey) {return er.getEventRankings(eventKey); }
+    public EventRanking[] getEventRankings(String eventKey) {return er().getEventRankings(eventKey); }
+
+    /**
+     * Mirror of: /event/{event_key}/rankings
+     *
+     * Streams the rankings of the given event to the consumer as they're parsed, instead of building an EventRanking[].
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each EventRanking, in the order returned by the server
+     * @return the number of rankings streamed
+     */
+    public int streamEventRankings(String eventKey, Consumer<? super EventRanking> consumer) {
+        return er().streamEventRankings(eventKey, consumer);
+    }
 
     /**
      * Mirror of: /team/{team_key}/event/{event_key}/matches/simple
@@ -577,7 +786,7 @@ public class TBA {
      * @return SMatch[] containing a match for each match this team was in in the specified event (simple model)
      */
     public SMatch[] getTeamEventSMatches(int number, String eventKey) {
-        return tr.getTeamEventSMatches(number, eventKey);
+        return tr().getTeamEventSMatches(number, eventKey);
     }
 
     /**
@@ -589,7 +798,19 @@ public class TBA {
      * @return String[] containing an event key for each event this team has participated in
      */
     public String[] getMatchKeys(int number, String eventKey) {
-        return tr.getMatchKeys(number, eventKey);
+        return tr().getMatchKeys(number, eventKey);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/event/{event_key}/status
+     *
+     * Gets the given team's status at the given event: its ranking, alliance and playoff progress.
+     * @param number the team's frc number
+     * @param eventKey the event's key code (example: '2016nytr')
+     * @return TeamEventStatus of the team at the event
+     */
+    public TeamEventStatus getTeamEventStatus(int number, String eventKey) {
+        return tr().getTeamEventStatus(number, eventKey);
     }
 
     /**
@@ -601,7 +822,7 @@ public class TBA {
      * @return Award[] containing n award object for each award this team won in the specified event
      */
     public Award[] getTeamEventAwards(int number, String eventKey) {
-        return tr.getTeamEventAwards(number, eventKey);
+        return tr().getTeamEventAwards(number, eventKey);
     }
 
     /**
@@ -612,7 +833,7 @@ public class TBA {
      * @return Award[] containing all the awards this team has won
      */
     public Award[] getTeamAwards(int number) {
-        return tr.getTeamAwards(number);
+        return tr().getTeamAwards(number);
     }
 
     /**
@@ -624,7 +845,7 @@ public class TBA {
      * @return Award[] containing all the awards this team has won
      */
     public Award[] getTeamAwards(int number, int year) {
-        return tr.getTeamAwards(number, year);
+        return tr().getTeamAwards(number, year);
     }
 
     /**
@@ -636,7 +857,31 @@ public class TBA {
      * @return Match[] containing all the matches the specified team was in for the specified year
      */
     public Match[] getTeamMatches(int number, int year) {
-        return tr.getTeamMatches(number, year);
+        return tr().getTeamMatches(number, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}
+     *
+     * Publishes the matches for the given team and year as they're parsed, with backpressure, see ModelPublisher.
+     * @param number the team's frc number
+     * @param year the year
+     * @return a Publisher of the matches, in the order returned by the server
+     */
+    public Flow.Publisher<Match> publishTeamMatches(int number, int year) {
+        return tr().publishTeamMatches(number, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}
+     *
+     * Publishes the matches of several teams in the given year, one team after another, with backpressure.
+     * @param numbers the teams' frc numbers
+     * @param year the year
+     * @return a Publisher of the matches, in the order returned by the server
+     */
+    public Flow.Publisher<Match> publishTeamMatches(int[] numbers, int year) {
+        return tr().publishTeamMatches(numbers, year);
     }
 
     /**
@@ -648,7 +893,19 @@ public class TBA {
      * @return SMatch[] containing all the matches the specified team was in for the specified year (simple models)
      */
     public SMatch[] getTeamSMatches(int number, int year) {
-        return tr.getTeamSMatches(number, year);
+        return tr().getTeamSMatches(number, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}/simple
+     *
+     * Gets the matches for the given team and year as a columnar MatchTable instead of a Match[].
+     * @param number the team's frc number
+     * @param year the year
+     * @return MatchTable containing a row for each match the specified team was in for the specified year
+     */
+    public MatchTable getTeamMatchTable(int number, int year) {
+        return tr().getTeamMatchTable(number, year);
     }
 
     /**
@@ -660,7 +917,7 @@ public class TBA {
      * @return String[] containing match string keys for each match
      */
     public String[] getTeamMatchKeys(int number, int year) {
-        return tr.getTeamMatchKeys(number, year);
+        return tr().getTeamMatchKeys(number, year);
     }
 
     /**
@@ -672,7 +929,7 @@ public class TBA {
      * @return Media[] containing all the media associated with this team for the specified year
      */
     public Media[] getTeamMedia(int number, int year) {
-        return tr.getTeamMedia(number, year);
+        return tr().getTeamMedia(number, year);
     }
 
     /**
@@ -683,7 +940,7 @@ public class TBA {
      * @return Media[] containing all social media associated with this team
      */
     public Media[] getTeamSocialMedia(int number) {
-        return tr.getTeamSocialMedia(number);
+        return tr().getTeamSocialMedia(number);
     }
 
     /**
@@ -693,7 +950,7 @@ public class TBA {
      * @return List of all alliances in this event
      */
     public Alliance[] getEventAlliances(String eventKey) {
-        return er.getEventAlliances(eventKey);
+        return er().getEventAlliances(eventKey);
     }
 
     /**
@@ -703,6 +960,6 @@ public class TBA {
      * @return Insights for this event
      */
     public Insight getEventInsights(String eventKey) {
-        return er.getEventInsights(eventKey);
+        return er().getEventInsights(eventKey);
     }
 }
\ No newline at end of file
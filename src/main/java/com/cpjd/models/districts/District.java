@@ -38,6 +38,16 @@ public class District extends Sortable<District> implements Serializable {
         throw new RuntimeException("Unsupported sort type for model District.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.DATE;
+    }
+
+    @Override
+    public int sortKey(SortingType type) {
+        return (int) year;
+    }
+
     public String getAbbreviation() {
         return abbreviation;
     }
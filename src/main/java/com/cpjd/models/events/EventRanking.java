@@ -36,6 +36,16 @@ public class EventRanking extends Sortable<EventRanking> implements Serializable
         throw new RuntimeException("Unsupported sort type for model EventRanking.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.RANK;
+    }
+
+    @Override
+    public int sortKey(SortingType type) {
+        return (int) rank;
+    }
+
     public String getTeamKey() {
         return teamKey;
     }
@@ -79,6 +79,25 @@ public class SEvent extends Sortable<SEvent> implements Serializable {
         throw new RuntimeException("Unsupported sorting type for event model type.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.DATE;
+    }
+
+    /**
+     * The start date as yyyymmdd, which orders the same as getTimeInMillis(startDate) without creating a Calendar
+     */
+    @Override
+    public int sortKey(SortingType type) {
+        if(startDate == null) return 0;
+        int key = 0;
+        for(int i = 0; i < startDate.length(); i++) {
+            char c = startDate.charAt(i);
+            if(c >= '0' && c <= '9') key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
     public String getKey() {
         return key;
     }
@@ -0,0 +1,382 @@
+package com.cpjd.models.matches;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A columnar alternative to Match[] for bulk analytics. Instead of one Match object (plus two MatchAlliance objects,
+ * their team key arrays and a Media[]) per match, every field is stored in its own primitive array, indexed by row.
+ *
+ * Team numbers are stored in a single int[] that is 6 entries wide per row, red alliance in slots 0-2 and blue alliance in
+ * slots 3-5. An empty slot (for example, an unscheduled playoff match) is 0.
+ *
+ * Only the first size() entries of the arrays returned by the raw getters are valid.
+ *
+ * @since 1.0.1
+ */
+public class MatchTable implements Serializable {
+
+    /*
+     * Competition level codes, in the same order matches are sorted by
+     */
+    public static final byte UNKNOWN = 0;
+    public static final byte QM = 1;
+    public static final byte EF = 2;
+    public static final byte QF = 3;
+    public static final byte SF = 4;
+    public static final byte F = 5;
+
+    /**
+     * Number of team slots per row, red 0-2, blue 3-5
+     */
+    public static final int WIDTH = 6;
+
+    private int size;
+
+    /**
+     * TBA match keys, eg 2016nytr_qm1
+     */
+    private String[] keys;
+    /**
+     * Distinct event keys in this table, referenced by events[]
+     */
+    private String[] eventKeys;
+    private int eventKeyCount;
+    private transient HashMap<String, Integer> eventIndex;
+
+    private int[] events;
+    private byte[] compLevels;
+    private int[] setNumbers;
+    private int[] matchNumbers;
+    private long[] times;
+    private long[] actualTimes;
+    private int[] redScores;
+    private int[] blueScores;
+    private int[] teams;
+
+    public MatchTable() {
+        this(64);
+    }
+
+    public MatchTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new String[capacity];
+        eventKeys = new String[4];
+        events = new int[capacity];
+        compLevels = new byte[capacity];
+        setNumbers = new int[capacity];
+        matchNumbers = new int[capacity];
+        times = new long[capacity];
+        actualTimes = new long[capacity];
+        redScores = new int[capacity];
+        blueScores = new int[capacity];
+        teams = new int[capacity * WIDTH];
+    }
+
+    /**
+     * Builds a table from already parsed matches, useful if you have a Match[] or SMatch[] lying around
+     * @param matches the matches to copy into the table
+     * @return a MatchTable with a row for each match, in the same order
+     */
+    public static MatchTable of(SMatch[] matches) {
+        MatchTable table = new MatchTable(matches.length);
+        for(SMatch m : matches) {
+            int row = table.add(m.getKey(), m.getEventKey(), m.getCompLevel(), m.getSetNumber(), m.getMatchNumber(), m.getTime(), m.getActualTime());
+            if(m.getRed() != null) table.setAlliance(row, false, m.getRed().getScore(), m.getRed().getTeamKeys());
+            if(m.getBlue() != null) table.setAlliance(row, true, m.getBlue().getScore(), m.getBlue().getTeamKeys());
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row. Scores default to -1 (unplayed) and teams to 0 until setAlliance() is called.
+     * @return the index of the new row
+     */
+    public int add(String key, String eventKey, String compLevel, long setNumber, long matchNumber, long time, long actualTime) {
+        if(size == keys.length) grow();
+        int row = size++;
+        keys[row] = key;
+        events[row] = eventIndex(eventKey);
+        compLevels[row] = compLevelCode(compLevel);
+        setNumbers[row] = (int) setNumber;
+        matchNumbers[row] = (int) matchNumber;
+        times[row] = time;
+        actualTimes[row] = actualTime;
+        redScores[row] = -1;
+        blueScores[row] = -1;
+        return row;
+    }
+
+    /**
+     * Appends every row of another table, eg to build a season table out of event tables
+     * @param other the table to copy rows from
+     */
+    public void addAll(MatchTable other) {
+        for(int row = 0; row < other.size(); row++) {
+            int r = add(other.keys[row], other.getEventKey(row), null, other.setNumbers[row], other.matchNumbers[row], other.times[row], other.actualTimes[row]);
+            compLevels[r] = other.compLevels[row];
+            redScores[r] = other.redScores[row];
+            blueScores[r] = other.blueScores[row];
+            System.arraycopy(other.teams, row * WIDTH, teams, r * WIDTH, WIDTH);
+        }
+    }
+
+    /**
+     * Sets the score and teams for one alliance of a row
+     * @param row the row returned by add()
+     * @param blue true for the blue alliance, false for red
+     * @param score the alliance score, -1 if unplayed
+     * @param teamKeys TBA team keys, eg frc254, may be null
+     */
+    public void setAlliance(int row, boolean blue, long score, String[] teamKeys) {
+        if(blue) blueScores[row] = (int) score;
+        else redScores[row] = (int) score;
+        if(teamKeys == null) return;
+        int base = row * WIDTH + (blue ? 3 : 0);
+        for(int i = 0; i < teamKeys.length && i < 3; i++) teams[base + i] = teamNumber(teamKeys[i]);
+    }
+
+    /**
+     * Shrinks the backing arrays to exactly size() rows
+     */
+    public void trim() {
+        if(size == keys.length) return;
+        resize(size);
+    }
+
+    private void grow() {
+        resize(keys.length + (keys.length >> 1) + 1);
+    }
+
+    private void resize(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        events = Arrays.copyOf(events, capacity);
+        compLevels = Arrays.copyOf(compLevels, capacity);
+        setNumbers = Arrays.copyOf(setNumbers, capacity);
+        matchNumbers = Arrays.copyOf(matchNumbers, capacity);
+        times = Arrays.copyOf(times, capacity);
+        actualTimes = Arrays.copyOf(actualTimes, capacity);
+        redScores = Arrays.copyOf(redScores, capacity);
+        blueScores = Arrays.copyOf(blueScores, capacity);
+        teams = Arrays.copyOf(teams, capacity * WIDTH);
+    }
+
+    private int eventIndex(String eventKey) {
+        if(eventIndex == null) {
+            eventIndex = new HashMap<>();
+            for(int i = 0; i < eventKeyCount; i++) eventIndex.put(eventKeys[i], i);
+        }
+        Integer index = eventIndex.get(eventKey);
+        if(index != null) return index;
+        if(eventKeyCount == eventKeys.length) eventKeys = Arrays.copyOf(eventKeys, eventKeyCount * 2);
+        eventKeys[eventKeyCount] = eventKey;
+        eventIndex.put(eventKey, eventKeyCount);
+        return eventKeyCount++;
+    }
+
+    /*
+     * Scans
+     */
+
+    /**
+     * @param team the team's frc number
+     * @return the number of rows the team appears in
+     */
+    public int countMatches(int team) {
+        int count = 0;
+        for(int i = 0, n = size * WIDTH; i < n; i++) if(teams[i] == team) count++;
+        return count;
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the indices of every row the team appears in, in table order
+     */
+    public int[] rowsWith(int team) {
+        int[] rows = new int[8];
+        int count = 0;
+        for(int row = 0; row < size; row++) {
+            if(slotOf(row, team) == -1) continue;
+            if(count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * @param row the row
+     * @param team the team's frc number
+     * @return the slot (0-5) the team occupies in the row, or -1 if the team didn't play in it
+     */
+    public int slotOf(int row, int team) {
+        int base = row * WIDTH;
+        for(int i = 0; i < WIDTH; i++) if(teams[base + i] == team) return i;
+        return -1;
+    }
+
+    /**
+     * @param team the team's frc number
+     * @return the average score of the alliances the team played on, counting played matches only
+     */
+    public double averageScore(int team) {
+        long total = 0;
+        int count = 0;
+        for(int row = 0; row < size; row++) {
+            int slot = slotOf(row, team);
+            if(slot == -1) continue;
+            int score = slot < 3 ? redScores[row] : blueScores[row];
+            if(score < 0) continue;
+            total += score;
+            count++;
+        }
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @param row the row
+     * @return true if both alliances have a score posted
+     */
+    public boolean isPlayed(int row) {
+        return redScores[row] >= 0 && blueScores[row] >= 0;
+    }
+
+    /*
+     * Helpers
+     */
+
+    public static byte compLevelCode(String compLevel) {
+        if(compLevel == null) return UNKNOWN;
+        switch(compLevel) {
+            case "qm": return QM;
+            case "ef": return EF;
+            case "qf": return QF;
+            case "sf": return SF;
+            case "f": return F;
+            default: return UNKNOWN;
+        }
+    }
+
+    public static String compLevelName(byte code) {
+        switch(code) {
+            case QM: return "qm";
+            case EF: return "ef";
+            case QF: return "qf";
+            case SF: return "sf";
+            case F: return "f";
+            default: return null;
+        }
+    }
+
+    /**
+     * @param teamKey TBA team key, eg frc254 or frc1678B
+     * @return the team number, or 0 if the key doesn't contain one
+     */
+    public static int teamNumber(String teamKey) {
+        if(teamKey == null) return 0;
+        int number = 0;
+        for(int i = 0; i < teamKey.length(); i++) {
+            char c = teamKey.charAt(i);
+            if(c >= '0' && c <= '9') number = number * 10 + (c - '0');
+            else if(number != 0) break;
+        }
+        return number;
+    }
+
+    /*
+     * Getters
+     */
+
+    public int size() {
+        return size;
+    }
+
+    public String getKey(int row) {
+        return keys[row];
+    }
+
+    public String getEventKey(int row) {
+        return eventKeys[events[row]];
+    }
+
+    public byte getCompLevel(int row) {
+        return compLevels[row];
+    }
+
+    public int getSetNumber(int row) {
+        return setNumbers[row];
+    }
+
+    public int getMatchNumber(int row) {
+        return matchNumbers[row];
+    }
+
+    public long getTime(int row) {
+        return times[row];
+    }
+
+    public long getActualTime(int row) {
+        return actualTimes[row];
+    }
+
+    public int getRedScore(int row) {
+        return redScores[row];
+    }
+
+    public int getBlueScore(int row) {
+        return blueScores[row];
+    }
+
+    /**
+     * @param row the row
+     * @param slot 0-2 for red, 3-5 for blue
+     * @return the team number, or 0 if the slot is empty
+     */
+    public int getTeam(int row, int slot) {
+        return teams[row * WIDTH + slot];
+    }
+
+    /*
+     * Raw column access, for tight loops
+     */
+
+    public String[] getEventKeys() {
+        return Arrays.copyOf(eventKeys, eventKeyCount);
+    }
+
+    public int[] getEvents() {
+        return events;
+    }
+
+    public byte[] getCompLevels() {
+        return compLevels;
+    }
+
+    public int[] getSetNumbers() {
+        return setNumbers;
+    }
+
+    public int[] getMatchNumbers() {
+        return matchNumbers;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+
+    public long[] getActualTimes() {
+        return actualTimes;
+    }
+
+    public int[] getRedScores() {
+        return redScores;
+    }
+
+    public int[] getBlueScores() {
+        return blueScores;
+    }
+
+    public int[] getTeams() {
+        return teams;
+    }
+}
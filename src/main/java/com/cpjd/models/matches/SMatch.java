@@ -4,7 +4,6 @@ import com.cpjd.sorting.Sortable;
 import com.cpjd.sorting.SortingType;
 
 import java.io.Serializable;
-import java.util.HashMap;
 
 /**
  * @since 1.0.0
@@ -68,18 +67,11 @@ public class SMatch extends Sortable<SMatch> implements Serializable {
              * -Semis
              * -Finals
              */
-            String comp1 = compLevel;
-            String comp2 = t2.getCompLevel();
-
-            HashMap<String, Integer> map = new HashMap<>();
-            map.put("qm", 1);
-            map.put("ef", 2);
-            map.put("qf", 3);
-            map.put("sf", 4);
-            map.put("f", 5);
-
-            if(comp1.equals(comp2)) return Long.compare(matchNumber, t2.getMatchNumber());
-            else return Integer.compare(map.get(comp1), map.get(comp2));
+            int comp1 = MatchTable.compLevelCode(compLevel);
+            int comp2 = MatchTable.compLevelCode(t2.getCompLevel());
+
+            if(comp1 == comp2) return Long.compare(matchNumber, t2.getMatchNumber());
+            else return Integer.compare(comp1, comp2);
         } else if(type == SortingType.DATE) {
             return Long.compare(time, t2.getTime());
         }
@@ -87,6 +79,22 @@ public class SMatch extends Sortable<SMatch> implements Serializable {
         throw new RuntimeException("Unsupported sorting type for match model.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        // times are unix seconds, which fit in an unsigned int until 2106, other times are left to sort()
+        if(type == SortingType.DATE) return time >= 0 && time <= 0xFFFFFFFFL;
+        return type == SortingType.DEFAULT || type == SortingType.NUMBER;
+    }
+
+    /**
+     * Comp level in the top byte and match number below it, or for SortingType.DATE the scheduled time shifted into the int range
+     */
+    @Override
+    public int sortKey(SortingType type) {
+        if(type == SortingType.DATE) return (int) (time + Integer.MIN_VALUE);
+        return MatchTable.compLevelCode(compLevel) << 24 | (int) matchNumber;
+    }
+
     public String getKey() {
         return key;
     }
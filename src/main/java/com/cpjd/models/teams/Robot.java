@@ -32,6 +32,16 @@ public class Robot extends Sortable<Robot> implements Serializable {
         throw new RuntimeException("Unsupported sort type for model robot.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.DATE;
+    }
+
+    @Override
+    public int sortKey(SortingType type) {
+        return (int) year;
+    }
+
     public long getYear() {
         return year;
     }
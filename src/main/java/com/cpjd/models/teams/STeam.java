@@ -50,6 +50,16 @@ public class STeam extends Sortable<STeam> implements Serializable {
         throw new RuntimeException("Unsupported sort type for team model.");
     }
 
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.NUMBER;
+    }
+
+    @Override
+    public int sortKey(SortingType type) {
+        return (int) teamNumber;
+    }
+
     public String getKey() {
         return key;
     }
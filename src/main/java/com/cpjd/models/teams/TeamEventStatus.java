@@ -0,0 +1,297 @@
+package com.cpjd.models.teams;
+
+import com.cpjd.models.events.EventRanking;
+import com.cpjd.sorting.Sortable;
+import com.cpjd.sorting.SortingType;
+
+import java.io.Serializable;
+
+/**
+ * A team's status at an event: its qualification ranking, its playoff alliance and how far that alliance has gotten.
+ * Sections the team hasn't reached yet are left at their defaults (null / 0), eg the alliance fields before alliance selection.
+ *
+ * @since 1.0.1
+ */
+public class TeamEventStatus extends Sortable<TeamEventStatus> implements Serializable {
+    /**
+     * The team's key, eg frc254
+     */
+    private String teamKey;
+
+    /*
+     * Qualifications
+     */
+    /**
+     * Number of teams ranked at the event
+     */
+    private long qualNumTeams;
+    /**
+     * The team's ranking, null if the event has no rankings yet
+     */
+    private EventRanking qualRanking;
+    /**
+     * Names of the ranking's sort orders, in the order of EventRanking.getSortOrders()
+     */
+    private String[] sortOrderNames;
+    private String qualStatus;
+
+    /*
+     * Alliance
+     */
+    private String allianceName;
+    /**
+     * Number of the alliance, 0 if the team isn't on one
+     */
+    private long allianceNumber;
+    /**
+     * The team's pick on the alliance, 0 for the captain, -1 for a backup
+     */
+    private long alliancePick;
+    private String allianceBackupIn;
+    private String allianceBackupOut;
+
+    /*
+     * Playoffs
+     */
+    /**
+     * The playoff level the alliance is in or was eliminated in, eg sf
+     */
+    private String playoffLevel;
+    /**
+     * won, eliminated or playing
+     */
+    private String playoffStatus;
+    private double playoffAverage;
+    private long playoffRecordWins, playoffRecordLosses, playoffRecordTies;
+    private long currentLevelRecordWins, currentLevelRecordLosses, currentLevelRecordTies;
+
+    /*
+     * Summaries, as displayed on the website (may contain HTML)
+     */
+    private String allianceStatusString;
+    private String playoffStatusString;
+    private String overallStatusString;
+
+    private String nextMatchKey;
+    private String lastMatchKey;
+
+    @Override
+    public int sort(SortingType type, boolean ascending, TeamEventStatus t2) {
+        if(type == SortingType.DEFAULT || type == SortingType.RANK) {
+            return Long.compare(getRank(), t2.getRank());
+        } else if(type == SortingType.TEAM) {
+            return teamKey.compareTo(t2.getTeamKey());
+        }
+
+        throw new RuntimeException("Unsupported sort type for model TeamEventStatus.");
+    }
+
+    @Override
+    public boolean hasSortKey(SortingType type) {
+        return type == SortingType.DEFAULT || type == SortingType.RANK;
+    }
+
+    @Override
+    public int sortKey(SortingType type) {
+        return (int) getRank();
+    }
+
+    /**
+     * @return the team's qualification rank, or 0 if it isn't ranked
+     */
+    public long getRank() {
+        return qualRanking == null ? 0 : qualRanking.getRank();
+    }
+
+    public String getTeamKey() {
+        return teamKey;
+    }
+
+    public void setTeamKey(String teamKey) {
+        this.teamKey = teamKey;
+    }
+
+    public long getQualNumTeams() {
+        return qualNumTeams;
+    }
+
+    public void setQualNumTeams(long qualNumTeams) {
+        this.qualNumTeams = qualNumTeams;
+    }
+
+    public EventRanking getQualRanking() {
+        return qualRanking;
+    }
+
+    public void setQualRanking(EventRanking qualRanking) {
+        this.qualRanking = qualRanking;
+    }
+
+    public String[] getSortOrderNames() {
+        return sortOrderNames;
+    }
+
+    public void setSortOrderNames(String[] sortOrderNames) {
+        this.sortOrderNames = sortOrderNames;
+    }
+
+    public String getQualStatus() {
+        return qualStatus;
+    }
+
+    public void setQualStatus(String qualStatus) {
+        this.qualStatus = qualStatus;
+    }
+
+    public String getAllianceName() {
+        return allianceName;
+    }
+
+    public void setAllianceName(String allianceName) {
+        this.allianceName = allianceName;
+    }
+
+    public long getAllianceNumber() {
+        return allianceNumber;
+    }
+
+    public void setAllianceNumber(long allianceNumber) {
+        this.allianceNumber = allianceNumber;
+    }
+
+    public long getAlliancePick() {
+        return alliancePick;
+    }
+
+    public void setAlliancePick(long alliancePick) {
+        this.alliancePick = alliancePick;
+    }
+
+    public String getAllianceBackupIn() {
+        return allianceBackupIn;
+    }
+
+    public void setAllianceBackupIn(String allianceBackupIn) {
+        this.allianceBackupIn = allianceBackupIn;
+    }
+
+    public String getAllianceBackupOut() {
+        return allianceBackupOut;
+    }
+
+    public void setAllianceBackupOut(String allianceBackupOut) {
+        this.allianceBackupOut = allianceBackupOut;
+    }
+
+    public String getPlayoffLevel() {
+        return playoffLevel;
+    }
+
+    public void setPlayoffLevel(String playoffLevel) {
+        this.playoffLevel = playoffLevel;
+    }
+
+    public String getPlayoffStatus() {
+        return playoffStatus;
+    }
+
+    public void setPlayoffStatus(String playoffStatus) {
+        this.playoffStatus = playoffStatus;
+    }
+
+    public double getPlayoffAverage() {
+        return playoffAverage;
+    }
+
+    public void setPlayoffAverage(double playoffAverage) {
+        this.playoffAverage = playoffAverage;
+    }
+
+    public long getPlayoffRecordWins() {
+        return playoffRecordWins;
+    }
+
+    public void setPlayoffRecordWins(long playoffRecordWins) {
+        this.playoffRecordWins = playoffRecordWins;
+    }
+
+    public long getPlayoffRecordLosses() {
+        return playoffRecordLosses;
+    }
+
+    public void setPlayoffRecordLosses(long playoffRecordLosses) {
+        this.playoffRecordLosses = playoffRecordLosses;
+    }
+
+    public long getPlayoffRecordTies() {
+        return playoffRecordTies;
+    }
+
+    public void setPlayoffRecordTies(long playoffRecordTies) {
+        this.playoffRecordTies = playoffRecordTies;
+    }
+
+    public long getCurrentLevelRecordWins() {
+        return currentLevelRecordWins;
+    }
+
+    public void setCurrentLevelRecordWins(long currentLevelRecordWins) {
+        this.currentLevelRecordWins = currentLevelRecordWins;
+    }
+
+    public long getCurrentLevelRecordLosses() {
+        return currentLevelRecordLosses;
+    }
+
+    public void setCurrentLevelRecordLosses(long currentLevelRecordLosses) {
+        this.currentLevelRecordLosses = currentLevelRecordLosses;
+    }
+
+    public long getCurrentLevelRecordTies() {
+        return currentLevelRecordTies;
+    }
+
+    public void setCurrentLevelRecordTies(long currentLevelRecordTies) {
+        this.currentLevelRecordTies = currentLevelRecordTies;
+    }
+
+    public String getAllianceStatusString() {
+        return allianceStatusString;
+    }
+
+    public void setAllianceStatusString(String allianceStatusString) {
+        this.allianceStatusString = allianceStatusString;
+    }
+
+    public String getPlayoffStatusString() {
+        return playoffStatusString;
+    }
+
+    public void setPlayoffStatusString(String playoffStatusString) {
+        this.playoffStatusString = playoffStatusString;
+    }
+
+    public String getOverallStatusString() {
+        return overallStatusString;
+    }
+
+    public void setOverallStatusString(String overallStatusString) {
+        this.overallStatusString = overallStatusString;
+    }
+
+    public String getNextMatchKey() {
+        return nextMatchKey;
+    }
+
+    public void setNextMatchKey(String nextMatchKey) {
+        this.nextMatchKey = nextMatchKey;
+    }
+
+    public String getLastMatchKey() {
+        return lastMatchKey;
+    }
+
+    public void setLastMatchKey(String lastMatchKey) {
+        this.lastMatchKey = lastMatchKey;
+    }
+}
@@ -0,0 +1,119 @@
+package com.cpjd.models.teams;
+
+import com.cpjd.models.matches.MatchTable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The statuses of every team at an event, indexed by team number. Built by EventRequest.getEventTeamStatuses() from one
+ * /event/{event_key}/teams/statuses request.
+ *
+ * Team numbers are kept sorted in an int[] next to their statuses, so get(number) is a binary search and iterating with
+ * getNumber(i) / getStatus(i) goes in team number order. Teams that are registered but have no status yet have a null status.
+ *
+ * @since 1.0.1
+ */
+public class TeamEventStatuses implements Serializable {
+
+    private final String eventKey;
+    private int[] numbers;
+    private TeamEventStatus[] statuses;
+    private int size;
+
+    /**
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param capacity the expected number of teams
+     */
+    public TeamEventStatuses(String eventKey, int capacity) {
+        this.eventKey = eventKey;
+        numbers = new int[Math.max(capacity, 8)];
+        statuses = new TeamEventStatus[numbers.length];
+    }
+
+    public TeamEventStatuses(String eventKey) {
+        this(eventKey, 64);
+    }
+
+    /**
+     * Adds or replaces the status of a team
+     * @param teamKey the team's key, eg frc254
+     * @param status the team's status, may be null
+     */
+    public void put(String teamKey, TeamEventStatus status) {
+        int number = MatchTable.teamNumber(teamKey);
+        if(number <= 0) return;
+        int i = Arrays.binarySearch(numbers, 0, size, number);
+        if(i >= 0) {
+            statuses[i] = status;
+            return;
+        }
+        i = -i - 1;
+        if(size == numbers.length) {
+            numbers = Arrays.copyOf(numbers, size * 2);
+            statuses = Arrays.copyOf(statuses, size * 2);
+        }
+        System.arraycopy(numbers, i, numbers, i + 1, size - i);
+        System.arraycopy(statuses, i, statuses, i + 1, size - i);
+        numbers[i] = number;
+        statuses[i] = status;
+        size++;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param number the team's frc number
+     * @return true if the team is at the event
+     */
+    public boolean contains(int number) {
+        return Arrays.binarySearch(numbers, 0, size, number) >= 0;
+    }
+
+    /**
+     * @param number the team's frc number
+     * @return the team's status, or null if the team isn't at the event or has no status yet
+     */
+    public TeamEventStatus get(int number) {
+        int i = Arrays.binarySearch(numbers, 0, size, number);
+        return i < 0 ? null : statuses[i];
+    }
+
+    /**
+     * @param i index, in team number order
+     */
+    public int getNumber(int i) {
+        return numbers[i];
+    }
+
+    /**
+     * @param i index, in team number order
+     */
+    public TeamEventStatus getStatus(int i) {
+        return statuses[i];
+    }
+
+    /**
+     * @return the team numbers, sorted
+     */
+    public int[] getNumbers() {
+        return Arrays.copyOf(numbers, size);
+    }
+
+    /**
+     * @return the statuses that aren't null, in team number order
+     */
+    public TeamEventStatus[] getStatuses() {
+        int count = 0;
+        for(int i = 0; i < size; i++) if(statuses[i] != null) count++;
+        TeamEventStatus[] toReturn = new TeamEventStatus[count];
+        for(int i = 0, j = 0; i < size; i++) if(statuses[i] != null) toReturn[j++] = statuses[i];
+        return toReturn;
+    }
+}
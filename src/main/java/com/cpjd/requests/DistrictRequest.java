@@ -1,6 +1,5 @@
 package com.cpjd.requests;
 
-import com.cpjd.main.TBA;
 import com.cpjd.models.districts.District;
 import com.cpjd.models.events.SEvent;
 import com.cpjd.models.teams.STeam;
@@ -35,7 +34,7 @@ public class DistrictRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any teams in district with key: "+districtKey);
         Team[] toGet = new Team[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -50,7 +49,7 @@ public class DistrictRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any simple teams in district with key: "+districtKey);
         STeam[] toGet = new STeam[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseSTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -78,7 +77,7 @@ public class DistrictRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any events in district with key: "+districtKey);
         Event[] toGet = new Event[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseEvent(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -93,7 +92,7 @@ public class DistrictRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any simple events in district with key: "+districtKey);
         SEvent[] toGet = new SEvent[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseSEvent(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -122,7 +121,7 @@ public class DistrictRequest extends Parser {
         if(districts == null) throw new DataNotFoundException("Couldn't find any districts in year: "+year);
         District[] toReturn = new District[districts.size()];
         for(int i = 0; i < districts.size(); i++) toReturn[i] = parseDistrict(districts.get(i));
-        TBA.sort(toReturn);
+        sort(toReturn);
         return toReturn;
     }
 
@@ -1,19 +1,26 @@
 package com.cpjd.requests;
 
-import com.cpjd.main.TBA;
+import com.cpjd.analytics.OPRCalculator;
 import com.cpjd.models.events.*;
 import com.cpjd.models.matches.SMatch;
 import com.cpjd.models.teams.STeam;
 import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchTable;
 import com.cpjd.models.teams.Team;
+import com.cpjd.models.teams.TeamEventStatuses;
 import org.json.simple.JSONArray;
+import com.cpjd.utils.ArrayStreamHandler;
+import com.cpjd.utils.Flow;
 import com.cpjd.utils.IO;
+import com.cpjd.utils.ModelPublisher;
+import com.cpjd.utils.ObjectStreamHandler;
 import com.cpjd.utils.Parser;
 import com.cpjd.utils.Utils;
 import com.cpjd.utils.exceptions.DataNotFoundException;
 import org.json.simple.JSONObject;
 
 import java.util.HashMap;
+import java.util.function.Consumer;
 
 /**
  * In an attempt to keep this API organized, if you look at the blue alliance v3 documentation, all calls that start with /events/ or /event/
@@ -42,7 +49,8 @@ public class EventRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any teams in event with key: "+eventKey);
         Team[] toGet = new Team[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseTeam(teams.get(i));
-        TBA.sort(toGet);
+        notifyEventTeams(eventKey, teamKeys(toGet));
+        sort(toGet);
         return toGet;
     }
 
@@ -58,7 +66,8 @@ public class EventRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("Couldn't find any simple teams in event with key: "+eventKey);
         STeam[] toGet = new STeam[teams.size()];
         for(int i = 0; i < teams.size(); i++) toGet[i] = parseSTeam(teams.get(i));
-        TBA.sort(toGet);
+        notifyEventTeams(eventKey, teamKeys(toGet));
+        sort(toGet);
         return toGet;
     }
 
@@ -72,7 +81,34 @@ public class EventRequest extends Parser {
     public String[] getTeamKeys(String eventKey) {
         JSONArray keys = (JSONArray) IO.doRequest("event/"+eventKey+"/teams/keys");
         if(keys == null) throw new DataNotFoundException("Couldn't find any team keys in event with key: "+eventKey);
-        return Utils.jsonArrayToStringArray(keys);
+        String[] toReturn = Utils.jsonArrayToStringArray(keys);
+        notifyEventTeams(eventKey, toReturn);
+        return toReturn;
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/teams/statuses
+     *
+     * Gets the status of every team at the given event in one request. The response is parsed as it streams in, one team
+     * at a time, straight into a TeamEventStatuses indexed by team number.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return the statuses of the teams at the event, teams without a status yet have a null status
+     */
+    public TeamEventStatuses getEventTeamStatuses(String eventKey) {
+        TeamEventStatuses statuses = new TeamEventStatuses(eventKey);
+        ObjectStreamHandler handler = new ObjectStreamHandler((teamKey, status) -> statuses.put(teamKey, parseTeamEventStatus(status, teamKey)));
+        // a null body fails the request, and anything but an object has no entries
+        if(!IO.doRequest("event/"+eventKey+"/teams/statuses", handler) || handler.getCount() == 0) throw new DataNotFoundException("Couldn't find any team statuses in event with key: "+eventKey);
+        String[] teamKeys = new String[statuses.size()];
+        for(int i = 0; i < teamKeys.length; i++) teamKeys[i] = "frc"+statuses.getNumber(i);
+        notifyEventTeams(eventKey, teamKeys);
+        return statuses;
+    }
+
+    private static String[] teamKeys(STeam[] teams) {
+        String[] keys = new String[teams.length];
+        for(int i = 0; i < teams.length; i++) keys[i] = teams[i].getKey();
+        return keys;
     }
 
     /**
@@ -87,10 +123,21 @@ public class EventRequest extends Parser {
         if(events == null) throw new DataNotFoundException("Couldn't find any events in year: "+year);
         Event[] toGet = new Event[events.size()];
         for(int i = 0; i < events.size(); i++) toGet[i] = parseEvent(events.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
+    /**
+     * Mirror of: /events/{year}
+     *
+     * Publishes the events in the given year as they're parsed from the response, see ModelPublisher.
+     * @param year Competition Year (or Season). Must be 4 digits.
+     * @return a Publisher of the events, in the order returned by the server
+     */
+    public Flow.Publisher<Event> publishEvents(int year) {
+        return new ModelPublisher<>(new String[] {"events/"+year}, null, this::parseEvent);
+    }
+
     /**
      * Mirror of: /events/{year}/simple
      *
@@ -103,7 +150,7 @@ public class EventRequest extends Parser {
         if(events == null) throw new DataNotFoundException("Couldn't find any simple events in year: "+year);
         SEvent[] toGet = new SEvent[events.size()];
         for(int i = 0; i < events.size(); i++) toGet[i] = parseSEvent(events.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -157,7 +204,7 @@ public class EventRequest extends Parser {
         if(alliances == null) throw new DataNotFoundException("No alliances found for event with key: "+eventKey);
         Alliance[] toGet = new Alliance[alliances.size()];
         for(int i = 0; i < alliances.size(); i++) toGet[i] = parseEventAlliance(alliances.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -184,10 +231,21 @@ public class EventRequest extends Parser {
     public EventOPR[] getOprs(String eventKey) {
         EventOPR[] oprs = parseOPRs(IO.doRequest("event/"+eventKey+"/oprs"));
         if(oprs == null) throw new DataNotFoundException("No oprs found for event with key: "+eventKey);
-        TBA.sort(oprs);
+        sort(oprs);
         return oprs;
     }
 
+    /**
+     * Calculates OPR, DPR and CCWM locally from /event/{event_key}/matches/simple instead of using the server's /oprs,
+     * which can lag behind the real results during an event.
+     *
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return EventOPR[] containing an EventOPR for each team that played a qualification match
+     */
+    public EventOPR[] calculateOprs(String eventKey) {
+        return new OPRCalculator().calculate(getMatchTable(eventKey));
+    }
+
     /**
      * Mirror of: /event/{event_key}/predictions
      *
@@ -215,7 +273,7 @@ public class EventRequest extends Parser {
         if(matches == null) throw new DataNotFoundException("No matches found for event with key: "+eventKey);
         Match[] toGet = new Match[matches.size()];
         for(int i = 0; i < matches.size(); i++) toGet[i] = parseMatch(matches.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -231,10 +289,23 @@ public class EventRequest extends Parser {
         if(matches == null) throw new DataNotFoundException("No simple matches found for event with key: "+eventKey);
         SMatch[] toGet = new SMatch[matches.size()];
         for(int i = 0; i < matches.size(); i++) toGet[i] = parseSMatch(matches.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Gets the matches for the given event as a columnar MatchTable instead of a Match[]. Rows are in the order returned by the server.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @return MatchTable containing a row for each match in the specified event
+     */
+    public MatchTable getMatchTable(String eventKey) {
+        MatchTable table = parseMatchTable(IO.doRequest("event/"+eventKey+"/matches/simple"));
+        if(table == null) throw new DataNotFoundException("No match table found for event with key: "+eventKey);
+        return table;
+    }
+
     /**
      * Mirror of: /event/{event_key}/matches/keys
      *
@@ -275,8 +346,53 @@ public class EventRequest extends Parser {
         JSONArray rankings = (JSONArray) ranking.get("rankings");
         EventRanking[] toGet = new EventRanking[rankings.size()];
         for(int i = 0; i < rankings.size(); i++) toGet[i] = parseEventRanking(rankings.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
+    /**
+     * Mirror of: /event/{event_key}/matches
+     *
+     * Streams the matches of the given event to the consumer as they're parsed from the response, so only one Match is in memory at a time.
+     * Matches arrive in the order returned by the server.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each Match
+     * @return the number of matches streamed
+     */
+    public int streamMatches(String eventKey, Consumer<? super Match> consumer) {
+        ArrayStreamHandler handler = new ArrayStreamHandler(o -> consumer.accept(parseMatch(o)));
+        if(!IO.doRequest("event/"+eventKey+"/matches", handler)) throw new DataNotFoundException("No matches found for event with key: "+eventKey);
+        return handler.getCount();
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/matches/simple
+     *
+     * Streams the simple matches of the given event to the consumer as they're parsed from the response.
+     * Matches arrive in the order returned by the server.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each SMatch
+     * @return the number of matches streamed
+     */
+    public int streamSMatches(String eventKey, Consumer<? super SMatch> consumer) {
+        ArrayStreamHandler handler = new ArrayStreamHandler(o -> consumer.accept(parseSMatch(o)));
+        if(!IO.doRequest("event/"+eventKey+"/matches/simple", handler)) throw new DataNotFoundException("No simple matches found for event with key: "+eventKey);
+        return handler.getCount();
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/rankings
+     *
+     * Streams the rankings of the given event to the consumer as they're parsed from the response.
+     * Rankings arrive in the order returned by the server.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param consumer receives each EventRanking
+     * @return the number of rankings streamed
+     */
+    public int streamEventRankings(String eventKey, Consumer<? super EventRanking> consumer) {
+        ArrayStreamHandler handler = new ArrayStreamHandler("rankings", o -> consumer.accept(parseEventRanking(o)));
+        if(!IO.doRequest("event/"+eventKey+"/rankings", handler)) throw new DataNotFoundException("No rankings found for event with key: "+eventKey);
+        return handler.getCount();
+    }
+
 }
@@ -0,0 +1,323 @@
+package com.cpjd.requests;
+
+import com.cpjd.models.events.SEvent;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.STeam;
+import com.cpjd.sorting.Sortable;
+import com.cpjd.utils.IO;
+import com.cpjd.utils.Parser;
+import com.cpjd.utils.exceptions.DataNotFoundException;
+import org.json.simple.JSONArray;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the cheapest variant of an endpoint for the fields the caller needs. Most list endpoints come in three projections,
+ * /keys, /simple and full, and the full models are several times larger than the simple ones (a full Match carries its score
+ * breakdowns and videos, a full Event its address, webcasts and division keys). Pass the TBA field names you'll read, eg
+ *
+ * SMatch[] matches = planner.getMatches("2017nytr", "key", "alliances", "actual_time");
+ *
+ * and the planner requests /matches/simple, since every field is in the simple model. Fields it doesn't know, or no fields at all,
+ * plan the full model. A nested field plans like its top level field ("alliances.red.score" like "alliances"). The returned
+ * array is typed as the simple model; with the FULL projection its elements are the full models (Match, Team, Event),
+ * and with KEYS they only have their key (and team number) set and are in the order returned by the server.
+ *
+ * Every call parses new models, so callers can modify them. The planner keeps no results of its own: with a ResponseCache
+ * installed (IO.setCache()), a poorer request after a richer one is derived from the cached response without going to the network,
+ * eg after getMatches(key) for full matches, getMatches(key, "key") gets its keys from the cached full matches. Derived keys are
+ * in the order the server returned the richer models.
+ *
+ * Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class FetchPlanner extends Parser {
+
+    /**
+     * The variants of an endpoint, from cheapest to richest
+     */
+    public enum Projection {
+        KEYS, SIMPLE, FULL
+    }
+
+    /**
+     * The kinds of models with keys / simple / full endpoints, and the fields of their simple models
+     */
+    public enum Kind {
+        TEAM("key", "team_number", "nickname", "name", "city", "state_prov", "country"),
+        EVENT("key", "name", "event_code", "event_type", "district", "city", "state_prov", "country", "start_date", "end_date", "year"),
+        MATCH("key", "comp_level", "set_number", "match_number", "alliances", "winning_alliance", "event_key", "time", "predicted_time", "actual_time");
+
+        private final HashSet<String> simpleFields;
+
+        Kind(String... simpleFields) {
+            this.simpleFields = new HashSet<>(Arrays.asList(simpleFields));
+        }
+
+        /**
+         * @param field a top level TBA field name, eg team_number
+         * @return true if the simple model has the field
+         */
+        public boolean isSimpleField(String field) {
+            return simpleFields.contains(field);
+        }
+
+        /**
+         * @param fields TBA field names, eg team_number
+         * @return the cheapest projection that has every field
+         */
+        public Projection plan(String... fields) {
+            if(fields == null || fields.length == 0) return Projection.FULL;
+            Projection projection = Projection.KEYS;
+            for(String field : fields) {
+                int dot = field.indexOf('.');
+                String top = dot == -1 ? field : field.substring(0, dot);
+                if(top.equals("key") || this == TEAM && top.equals("team_number")) continue;
+                if(!simpleFields.contains(top)) return Projection.FULL;
+                projection = Projection.SIMPLE;
+            }
+            return projection;
+        }
+    }
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong[] requestsByProjection = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+
+    /*
+     * Teams
+     */
+
+    /**
+     * Mirror of: /teams/{page_num}, /simple and /keys
+     * @param pageNum the page number, eg: 0 for the first 500, 1 for the second 500, etc.
+     * @param fields the TBA team fields that will be read
+     */
+    public STeam[] getTeams(int pageNum, String... fields) {
+        return teams("teams/"+pageNum, Kind.TEAM.plan(fields));
+    }
+
+    /**
+     * Mirror of: /teams/{year}/{page_num}, /simple and /keys
+     * @param year the year to get teams from
+     * @param pageNum the page number, eg: 0 for the first 500, 1 for the second 500, etc.
+     * @param fields the TBA team fields that will be read
+     */
+    public STeam[] getTeams(int year, int pageNum, String... fields) {
+        return teams("teams/"+year+"/"+pageNum, Kind.TEAM.plan(fields));
+    }
+
+    /**
+     * Mirror of: /event/{event_key}/teams, /simple and /keys
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param fields the TBA team fields that will be read
+     */
+    public STeam[] getEventTeams(String eventKey, String... fields) {
+        return teams("event/"+eventKey+"/teams", Kind.TEAM.plan(fields));
+    }
+
+    /**
+     * Mirror of: /district/{district_key}/teams, /simple and /keys
+     * @param districtKey TBA District Key, eg 2016fim
+     * @param fields the TBA team fields that will be read
+     */
+    public STeam[] getDistrictTeams(String districtKey, String... fields) {
+        return teams("district/"+districtKey+"/teams", Kind.TEAM.plan(fields));
+    }
+
+    /**
+     * Mirror of: /team/{team_key} and /simple. There's no keys variant, a KEYS plan requests the simple team.
+     * @param number the team's frc number
+     * @param fields the TBA team fields that will be read
+     */
+    public STeam getTeam(int number, String... fields) {
+        return (STeam) single("team/frc"+number, Kind.TEAM, Kind.TEAM.plan(fields));
+    }
+
+    /*
+     * Events
+     */
+
+    /**
+     * Mirror of: /events/{year}, /simple and /keys
+     * @param year Competition Year (or Season). Must be 4 digits.
+     * @param fields the TBA event fields that will be read
+     */
+    public SEvent[] getEvents(int year, String... fields) {
+        return events("events/"+year, Kind.EVENT.plan(fields));
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/events/{year}, /simple and /keys
+     * @param number the team's frc number
+     * @param year the year
+     * @param fields the TBA event fields that will be read
+     */
+    public SEvent[] getTeamEvents(int number, int year, String... fields) {
+        return events("team/frc"+number+"/events/"+year, Kind.EVENT.plan(fields));
+    }
+
+    /**
+     * Mirror of: /district/{district_key}/events, /simple and /keys
+     * @param districtKey TBA District Key, eg 2016fim
+     * @param fields the TBA event fields that will be read
+     */
+    public SEvent[] getDistrictEvents(String districtKey, String... fields) {
+        return events("district/"+districtKey+"/events", Kind.EVENT.plan(fields));
+    }
+
+    /**
+     * Mirror of: /event/{event_key} and /simple. There's no keys variant, a KEYS plan requests the simple event.
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param fields the TBA event fields that will be read
+     */
+    public SEvent getEvent(String eventKey, String... fields) {
+        return (SEvent) single("event/"+eventKey, Kind.EVENT, Kind.EVENT.plan(fields));
+    }
+
+    /*
+     * Matches
+     */
+
+    /**
+     * Mirror of: /event/{event_key}/matches, /simple and /keys
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param fields the TBA match fields that will be read
+     */
+    public SMatch[] getMatches(String eventKey, String... fields) {
+        return matches("event/"+eventKey+"/matches", Kind.MATCH.plan(fields));
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}, /simple and /keys
+     * @param number the team's frc number
+     * @param year the year
+     * @param fields the TBA match fields that will be read
+     */
+    public SMatch[] getTeamMatches(int number, int year, String... fields) {
+        return matches("team/frc"+number+"/matches/"+year, Kind.MATCH.plan(fields));
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/event/{event_key}/matches, /simple and /keys
+     * @param number the team's frc number
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param fields the TBA match fields that will be read
+     */
+    public SMatch[] getTeamEventMatches(int number, String eventKey, String... fields) {
+        return matches("team/frc"+number+"/event/"+eventKey+"/matches", Kind.MATCH.plan(fields));
+    }
+
+    /**
+     * Mirror of: /match/{match_key} and /simple. There's no keys variant, a KEYS plan requests the simple match.
+     * @param matchKey TBA Match Key, eg 2016nytr_qm1
+     * @param fields the TBA match fields that will be read
+     */
+    public SMatch getMatch(String matchKey, String... fields) {
+        return (SMatch) single("match/"+matchKey, Kind.MATCH, Kind.MATCH.plan(fields));
+    }
+
+    /*
+     * Statistics
+     */
+
+    /**
+     * @return the number of requests made, including ones answered by IO's cache
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of requests made for the projection
+     */
+    public long getRequests(Projection projection) {
+        return requestsByProjection[projection.ordinal()].get();
+    }
+
+    /*
+     * Fetching
+     */
+
+    private STeam[] teams(String url, Projection projection) {
+        Object[] models = list(url, Kind.TEAM, projection);
+        return Arrays.copyOf(models, models.length, STeam[].class);
+    }
+
+    private SEvent[] events(String url, Projection projection) {
+        Object[] models = list(url, Kind.EVENT, projection);
+        return Arrays.copyOf(models, models.length, SEvent[].class);
+    }
+
+    private SMatch[] matches(String url, Projection projection) {
+        Object[] models = list(url, Kind.MATCH, projection);
+        return Arrays.copyOf(models, models.length, SMatch[].class);
+    }
+
+    /**
+     * @param url the full variant of the endpoint, /simple or /keys is appended for the others
+     */
+    private Object[] list(String url, Kind kind, Projection projection) {
+        JSONArray array = (JSONArray) request(url, projection);
+        if(array == null) throw new DataNotFoundException("No data found for request: "+url+suffix(projection));
+        Object[] models = new Object[array.size()];
+        for(int i = 0; i < models.length; i++) models[i] = parse(kind, projection, array.get(i));
+        // key lists aren't sorted, like the getXKeys() methods
+        if(projection != Projection.KEYS) sortModels(models);
+        return models;
+    }
+
+    private Object single(String url, Kind kind, Projection projection) {
+        if(projection == Projection.KEYS) projection = Projection.SIMPLE;
+        Object model = parse(kind, projection, request(url, projection));
+        if(model == null) throw new DataNotFoundException("No data found for request: "+url+suffix(projection));
+        return model;
+    }
+
+    private Object request(String url, Projection projection) {
+        requests.incrementAndGet();
+        requestsByProjection[projection.ordinal()].incrementAndGet();
+        return IO.doRequest(url+suffix(projection));
+    }
+
+    private static String suffix(Projection projection) {
+        return projection == Projection.KEYS ? "/keys" : projection == Projection.SIMPLE ? "/simple" : "";
+    }
+
+    private Object parse(Kind kind, Projection projection, Object object) {
+        if(object == null) return null;
+        if(projection == Projection.KEYS) return keyOnly(kind, (String) object);
+        switch(kind) {
+            case TEAM: return projection == Projection.FULL ? parseTeam(object) : parseSTeam(object);
+            case EVENT: return projection == Projection.FULL ? parseEvent(object) : parseSEvent(object);
+            default: return projection == Projection.FULL ? parseMatch(object) : parseSMatch(object);
+        }
+    }
+
+    private static Object keyOnly(Kind kind, String key) {
+        switch(kind) {
+            case TEAM:
+                STeam team = new STeam();
+                team.setKey(key);
+                if(key.startsWith("frc")) team.setTeamNumber(Long.parseLong(key.substring(3)));
+                return team;
+            case EVENT:
+                SEvent event = new SEvent();
+                event.setKey(key);
+                return event;
+            default:
+                SMatch match = new SMatch();
+                match.setKey(key);
+                return match;
+        }
+    }
+
+    private void sortModels(Object[] models) {
+        if(models.length == 0) return;
+        Sortable<?>[] sortable = Arrays.copyOf(models, models.length, Sortable[].class);
+        sort(sortable);
+        System.arraycopy(sortable, 0, models, 0, models.length);
+    }
+}
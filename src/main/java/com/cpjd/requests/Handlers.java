@@ -0,0 +1,66 @@
+package com.cpjd.requests;
+
+import com.cpjd.utils.Parser;
+
+/**
+ * The request handlers used by TBA and CTBA. The handlers hold no per-call state, so one sorting and one non-sorting instance
+ * of each is shared by every facade, which makes creating a TBA or CTBA free.
+ *
+ * Each kind of handler is created the first time it's used (the holder classes below are only initialized on first access),
+ * so an app that only makes event requests never loads the other request classes. Thread safe.
+ *
+ * @since 1.0.1
+ */
+public final class Handlers {
+
+    private Handlers() {}
+
+    private static class Districts {
+        static final DistrictRequest SORTED = Parser.share(new DistrictRequest(), true);
+        static final DistrictRequest UNSORTED = Parser.share(new DistrictRequest(), false);
+    }
+
+    private static class Events {
+        static final EventRequest SORTED = Parser.share(new EventRequest(), true);
+        static final EventRequest UNSORTED = Parser.share(new EventRequest(), false);
+    }
+
+    private static class Matches {
+        static final MatchRequest SORTED = Parser.share(new MatchRequest(), true);
+        static final MatchRequest UNSORTED = Parser.share(new MatchRequest(), false);
+    }
+
+    private static class Others {
+        static final OtherRequest SORTED = Parser.share(new OtherRequest(), true);
+        static final OtherRequest UNSORTED = Parser.share(new OtherRequest(), false);
+    }
+
+    private static class Teams {
+        static final TeamRequest SORTED = Parser.share(new TeamRequest(), true);
+        static final TeamRequest UNSORTED = Parser.share(new TeamRequest(), false);
+    }
+
+    /**
+     * @param sortResults whether list results should be sorted
+     * @return the shared handler
+     */
+    public static DistrictRequest districts(boolean sortResults) {
+        return sortResults ? Districts.SORTED : Districts.UNSORTED;
+    }
+
+    public static EventRequest events(boolean sortResults) {
+        return sortResults ? Events.SORTED : Events.UNSORTED;
+    }
+
+    public static MatchRequest matches(boolean sortResults) {
+        return sortResults ? Matches.SORTED : Matches.UNSORTED;
+    }
+
+    public static OtherRequest others(boolean sortResults) {
+        return sortResults ? Others.SORTED : Others.UNSORTED;
+    }
+
+    public static TeamRequest teams(boolean sortResults) {
+        return sortResults ? Teams.SORTED : Teams.UNSORTED;
+    }
+}
@@ -1,6 +1,5 @@
 package com.cpjd.requests;
 
-import com.cpjd.main.TBA;
 import com.cpjd.models.events.Award;
 import com.cpjd.models.events.Media;
 import com.cpjd.models.teams.Robot;
@@ -9,9 +8,13 @@ import com.cpjd.models.matches.SMatch;
 import com.cpjd.models.teams.STeam;
 import com.cpjd.models.events.Event;
 import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchTable;
 import com.cpjd.models.teams.Team;
+import com.cpjd.models.teams.TeamEventStatus;
 import org.json.simple.JSONArray;
+import com.cpjd.utils.Flow;
 import com.cpjd.utils.IO;
+import com.cpjd.utils.ModelPublisher;
 import com.cpjd.utils.Parser;
 import com.cpjd.utils.Utils;
 import com.cpjd.utils.exceptions.DataNotFoundException;
@@ -20,9 +23,6 @@ import com.cpjd.utils.exceptions.DataNotFoundException;
  * In an attempt to keep this API organized, if you look at the blue alliance v3 documentation, all calls that start with /teams/ or /team/
  * will be accessed from this class.
  *
- * API calls not implemented yet:
- * /team/{team_key}/event/{event_key}/status
- *
  * @since 1.0.0
  * @author Will Davies
  */
@@ -40,7 +40,7 @@ public class TeamRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("No teams were found with pageNum: "+pageNum);
         Team[] toGet = new Team[teams.size()];
         for(int i = 0; i < toGet.length; i++) toGet[i] = parseTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -56,7 +56,7 @@ public class TeamRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("No simple teams were found with pageNum: "+pageNum);
         STeam[] toGet = new STeam[teams.size()];
         for(int i = 0; i < toGet.length; i++) toGet[i] = parseSTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -86,7 +86,7 @@ public class TeamRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("No teams were found with pageNum: "+pageNum+", year: "+year);
         Team[] toGet = new Team[teams.size()];
         for(int i = 0; i < toGet.length; i++) toGet[i] = parseTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -103,7 +103,7 @@ public class TeamRequest extends Parser {
         if(teams == null) throw new DataNotFoundException("No simple teams were found with pageNum: "+pageNum+", year: "+year);
         STeam[] toGet = new STeam[teams.size()];
         for(int i = 0; i < toGet.length; i++) toGet[i] = parseSTeam(teams.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -141,7 +141,7 @@ public class TeamRequest extends Parser {
      * @return STeam object (simple model)
      */
     public STeam getSTeam(int number) {
-        STeam team = parseSTeam(IO.doRequest("team/frc"+number));
+        STeam team = parseSTeam(IO.doRequest("team/frc"+number+"/simple"));
         if(team == null) throw new DataNotFoundException("No simple team found with number: "+number);
         return team;
     }
@@ -156,10 +156,10 @@ public class TeamRequest extends Parser {
     public long[] getYearsParticipated(int number) {
         JSONArray keys = (JSONArray) IO.doRequest("team/frc"+number+"/years_participated");
         if(keys == null) throw new DataNotFoundException("Couldn't find years participated for team with number: "+number);
-        String[] data = Utils.jsonArrayToStringArray(keys);
-        long[] years = new long[data.length];
+        // the years are numbers, not strings
+        long[] years = new long[keys.size()];
         for(int i = 0; i < years.length; i++) {
-            years[i] = Long.parseLong(data[i]);
+            years[i] = Long.parseLong(String.valueOf(keys.get(i)));
         }
         return years;
     }
@@ -187,7 +187,7 @@ public class TeamRequest extends Parser {
     public Robot[] getRobots(int number) {
         Robot[] robots = parseRobots(IO.doRequest("team/frc"+number+"/robots"));
         if(robots == null) throw new DataNotFoundException("Couldn't robots for team with number: "+number);
-        TBA.sort(robots);
+        sort(robots);
         return robots;
     }
 
@@ -205,7 +205,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < events.size(); i++) {
             toGet[i] = parseEvent(events.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -223,7 +223,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < events.size(); i++) {
             toGet[i] = parseSEvent(events.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -255,7 +255,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < events.size(); i++) {
             toGet[i] = parseEvent(events.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -274,7 +274,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < events.size(); i++) {
             toGet[i] = parseSEvent(events.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -307,7 +307,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < matches.size(); i++) {
             toGet[i] = parseMatch(matches.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -326,7 +326,7 @@ public class TeamRequest extends Parser {
         for(int i = 0; i < matches.size(); i++) {
             toGet[i] = parseSMatch(matches.get(i));
         }
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
@@ -344,6 +344,21 @@ public class TeamRequest extends Parser {
         return Utils.jsonArrayToStringArray(keys);
     }
 
+    /**
+     * Mirror of: /team/{team_key}/event/{event_key}/status
+     *
+     * Gets the given team's status at the given event: its ranking, alliance and playoff progress. To get the status of every team
+     * at an event, EventRequest.getEventTeamStatuses() does it in one request.
+     * @param number the team's frc number
+     * @param eventKey the event's key code (example: '2016nytr')
+     * @return TeamEventStatus of the team at the event
+     */
+    public TeamEventStatus getTeamEventStatus(int number, String eventKey) {
+        TeamEventStatus status = parseTeamEventStatus(IO.doRequest("team/frc"+number+"/event/"+eventKey+"/status"), "frc"+number);
+        if(status == null) throw new DataNotFoundException("Couldn't find a status for team with number: "+number+", event key: "+eventKey);
+        return status;
+    }
+
     /**
      * Mirror of: /team/{team_key}/event/{event_key}/awards
      *
@@ -404,10 +419,37 @@ public class TeamRequest extends Parser {
         if(matches == null)  throw new DataNotFoundException("Couldn't find any matches for team with number: "+number+", year: "+year);
         Match[] toGet = new Match[matches.size()];
         for(int i = 0; i < matches.size(); i++) toGet[i] = parseMatch(matches.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}
+     *
+     * Publishes the matches for the given team and year as they're parsed from the response, see ModelPublisher.
+     * @param number the team's frc number
+     * @param year the year
+     * @return a Publisher of the matches, in the order returned by the server
+     */
+    public Flow.Publisher<Match> publishTeamMatches(int number, int year) {
+        return publishTeamMatches(new int[] {number}, year);
+    }
+
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}
+     *
+     * Publishes the matches of several teams in the given year, one team after another, as they're parsed from the responses.
+     * A match shows up once for every one of the teams that played in it.
+     * @param numbers the teams' frc numbers
+     * @param year the year
+     * @return a Publisher of the matches, in the order returned by the server
+     */
+    public Flow.Publisher<Match> publishTeamMatches(int[] numbers, int year) {
+        String[] urls = new String[numbers.length];
+        for(int i = 0; i < numbers.length; i++) urls[i] = "team/frc"+numbers[i]+"/matches/"+year;
+        return new ModelPublisher<>(urls, null, this::parseMatch);
+    }
+
     /**
      * Mirror of: /team/{team_key}/matches/{year}/simple
      *
@@ -421,10 +463,24 @@ public class TeamRequest extends Parser {
         if(matches == null) throw new DataNotFoundException("Couldn't find any simple matches for team with number: "+number+", year: "+year);
         SMatch[] toGet = new SMatch[matches.size()];
         for(int i = 0; i < matches.size(); i++) toGet[i] = parseSMatch(matches.get(i));
-        TBA.sort(toGet);
+        sort(toGet);
         return toGet;
     }
 
+    /**
+     * Mirror of: /team/{team_key}/matches/{year}/simple
+     *
+     * Gets the matches for the given team and year as a columnar MatchTable instead of a Match[]. Rows are in the order returned by the server.
+     * @param number the team's frc number
+     * @param year the year
+     * @return MatchTable containing a row for each match the specified team was in for the specified year
+     */
+    public MatchTable getTeamMatchTable(int number, int year) {
+        MatchTable table = parseMatchTable(IO.doRequest("team/frc"+number+"/matches/"+year+"/simple"));
+        if(table == null) throw new DataNotFoundException("Couldn't find a match table for team with number: "+number+", year: "+year);
+        return table;
+    }
+
     /**
      * Mirror of: /team/{team_key}/matches/{year}/keys
      *
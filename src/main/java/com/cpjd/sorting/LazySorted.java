@@ -0,0 +1,96 @@
+package com.cpjd.sorting;
+
+import com.cpjd.main.TBA;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A view of an unsorted result (see TBA.setSortResults(false)) that only sorts when it's first read in sorted order.
+ * getUnsorted() and size() never sort, get() and iterator() sort a copy once and reuse it. Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class LazySorted<T extends Sortable<?>> implements Iterable<T> {
+
+    private final T[] unsorted;
+    private final SortingType type;
+    private final boolean ascending;
+    private volatile T[] sorted;
+
+    public LazySorted(T[] unsorted) {
+        this(unsorted, SortingType.DEFAULT, true);
+    }
+
+    public LazySorted(T[] unsorted, SortingType type, boolean ascending) {
+        this.unsorted = unsorted;
+        this.type = type;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @param i the index in sorted order
+     * @return the element at the index, sorting first if needed
+     */
+    public T get(int i) {
+        return sorted()[i];
+    }
+
+    /**
+     * @param k the number of elements
+     * @return the first k elements in sorted order. Uses TBA.top() unless the view is already sorted.
+     */
+    public T[] top(int k) {
+        T[] s = sorted;
+        if(s != null) return Arrays.copyOf(s, Math.min(k, s.length));
+        return TBA.top(unsorted, k, type, ascending);
+    }
+
+    public int size() {
+        return unsorted.length;
+    }
+
+    /**
+     * @return the elements in the order the server sent them
+     */
+    public T[] getUnsorted() {
+        return unsorted;
+    }
+
+    public boolean isSorted() {
+        return sorted != null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        T[] s = sorted();
+        return new Iterator<T>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < s.length;
+            }
+
+            @Override
+            public T next() {
+                if(i >= s.length) throw new NoSuchElementException();
+                return s[i++];
+            }
+        };
+    }
+
+    private T[] sorted() {
+        T[] s = sorted;
+        if(s != null) return s;
+        synchronized(this) {
+            if(sorted == null) {
+                s = unsorted.clone();
+                TBA.sort(s, type, ascending);
+                sorted = s;
+            }
+            return sorted;
+        }
+    }
+}
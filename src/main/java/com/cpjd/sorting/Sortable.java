@@ -4,4 +4,22 @@ public abstract class Sortable<T> {
 
     public abstract int sort(SortingType type, boolean ascending, T t2);
 
+    /**
+     * Models that can be ordered by a single int for a sorting type override this (and sortKey()), so TBA.sort() can
+     * extract the key once per element and sort primitives instead of calling sort() for every comparison.
+     * @param type the sorting type
+     * @return true if sortKey(type) orders elements the same way sort(type, ...) does
+     */
+    public boolean hasSortKey(SortingType type) {
+        return false;
+    }
+
+    /**
+     * @param type the sorting type, only called if hasSortKey(type) is true
+     * @return a key that orders this element for the sorting type, ascending
+     */
+    public int sortKey(SortingType type) {
+        throw new UnsupportedOperationException("No sort key for "+type);
+    }
+
 }
@@ -0,0 +1,373 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.events.EventOPR;
+import com.cpjd.models.events.EventRanking;
+import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.SMatch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes matches, rankings or OPRs as CSV or TSV rows, one row per call, so exports take constant memory no matter how much
+ * data goes through. Pairs with the stream methods of EventRequest:
+ *
+ * try(CSVExporter csv = new CSVExporter(new FileOutputStream("2017.csv"), CSVExporter.CSV)) {
+ *     for(String key : tba.getEventKeys(2017)) tba.streamMatches(key, csv::writeMatch);
+ * }
+ *
+ * The header is written with the first row, and an exporter only takes one kind of row. Match rows of full Match models get a
+ * red.* and blue.* column per score breakdown field (nested fields joined with '.', array elements by index). The columns come
+ * from the first match written that has a score breakdown; breakdown fields are fixed per season, fields missing from later matches
+ * are left empty and fields that weren't in that match are skipped. Full matches written before it (eg unplayed matches) are held
+ * back until it arrives, up to 4096 of them, then the columns are fixed without breakdowns. flush() and close() write them out.
+ *
+ * Fields are quoted when they contain the delimiter, a quote or a line break. Write methods throw UncheckedIOException so they
+ * can be used as a Consumer. Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class CSVExporter implements Closeable, Flushable {
+
+    public static final char CSV = ',';
+    public static final char TSV = '\t';
+
+    private static final String[] MATCH_COLUMNS = {"key", "event_key", "comp_level", "set_number", "match_number", "time", "actual_time",
+            "winning_alliance", "red1", "red2", "red3", "red_score", "blue1", "blue2", "blue3", "blue_score"};
+    private static final String[] RANKING_COLUMNS = {"event_key", "rank", "team_key", "wins", "losses", "ties", "dq", "matches_played", "qual_average"};
+    private static final int MAX_PENDING = 4096;
+    private static final String[] OPR_COLUMNS = {"event_key", "team_key", "opr", "dpr", "ccwm"};
+
+    private final Writer out;
+    private final char delimiter;
+    private String kind;
+    private long rows;
+
+    /**
+     * Score breakdown columns as paths into the breakdown map, null for simple matches
+     */
+    private String[][] breakdown;
+    /**
+     * Full matches without a score breakdown written before the header, null once the header is written
+     */
+    private List<SMatch> pending;
+    private int sortOrders;
+
+    /**
+     * @param out the writer to write to, buffered here
+     * @param delimiter CSV or TSV
+     */
+    public CSVExporter(Writer out, char delimiter) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @param out the stream to write UTF-8 text to
+     * @param delimiter CSV or TSV
+     */
+    public CSVExporter(OutputStream out, char delimiter) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8), delimiter);
+    }
+
+    /**
+     * @return the number of rows written, not counting the header
+     */
+    public long getRows() {
+        return rows + (pending == null ? 0 : pending.size());
+    }
+
+    /*
+     * Rows
+     */
+
+    /**
+     * Writes a match row, with score breakdown columns if full Match models are written
+     * @param m the match
+     */
+    public void writeMatch(SMatch m) {
+        try {
+            if(kind == null) {
+                kind = "matches";
+                if(m instanceof Match) pending = new ArrayList<>();
+                else matchHeader();
+            } else check("matches");
+
+            if(pending != null) {
+                String[][] columns = m instanceof Match ? breakdownColumns((Match) m) : null;
+                if(columns == null && pending.size() < MAX_PENDING) {
+                    pending.add(m);
+                    return;
+                }
+                breakdown = columns;
+                writePending();
+            }
+            matchRow(m);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeMatches(SMatch[] matches) {
+        for(SMatch m : matches) writeMatch(m);
+    }
+
+    /**
+     * Writes a ranking row, with a sort_order column for each sort order of the first ranking written
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param r the ranking
+     */
+    public void writeRanking(String eventKey, EventRanking r) {
+        try {
+            if(kind == null) {
+                kind = "rankings";
+                sortOrders = r.getSortOrders() == null ? 0 : r.getSortOrders().length;
+                header(RANKING_COLUMNS);
+                for(int i = 1; i <= sortOrders; i++) {
+                    out.write(delimiter);
+                    out.write("sort_order_");
+                    out.write(Integer.toString(i));
+                }
+                out.write('\n');
+            } else check("rankings");
+
+            field(eventKey);
+            next(); number(r.getRank());
+            next(); field(r.getTeamKey());
+            next(); number(r.getWins());
+            next(); number(r.getLosses());
+            next(); number(r.getTies());
+            next(); number(r.getDq());
+            next(); number(r.getMatchesPlayed());
+            next(); number(r.getQualAverage());
+            double[] orders = r.getSortOrders();
+            for(int i = 0; i < sortOrders; i++) {
+                next();
+                if(orders != null && i < orders.length) out.write(Double.toString(orders[i]));
+            }
+            end();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeRankings(String eventKey, EventRanking[] rankings) {
+        for(EventRanking r : rankings) writeRanking(eventKey, r);
+    }
+
+    /**
+     * Writes an OPR row
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param o the team's OPR, DPR and CCWM
+     */
+    public void writeOpr(String eventKey, EventOPR o) {
+        try {
+            if(kind == null) {
+                kind = "oprs";
+                header(OPR_COLUMNS);
+                out.write('\n');
+            } else check("oprs");
+
+            field(eventKey);
+            next(); field(o.getTeamKey());
+            next(); out.write(Double.toString(o.getOpr()));
+            next(); out.write(Double.toString(o.getDpr()));
+            next(); out.write(Double.toString(o.getCcwm()));
+            end();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeOprs(String eventKey, EventOPR[] oprs) {
+        for(EventOPR o : oprs) writeOpr(eventKey, o);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if(pending != null) writePending();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(pending != null) writePending();
+        out.close();
+    }
+
+    /*
+     * Formatting
+     */
+
+    /**
+     * Writes the match header with the breakdown columns found so far, then the rows held back
+     */
+    private void writePending() throws IOException {
+        List<SMatch> matches = pending;
+        pending = null;
+        matchHeader();
+        for(SMatch m : matches) matchRow(m);
+    }
+
+    private void matchHeader() throws IOException {
+        header(MATCH_COLUMNS);
+        if(breakdown != null) {
+            for(String[] path : breakdown) {
+                out.write(delimiter);
+                field(String.join(".", (CharSequence[]) path));
+            }
+        }
+        out.write('\n');
+    }
+
+    private void matchRow(SMatch m) throws IOException {
+        field(m.getKey());
+        next(); field(m.getEventKey());
+        next(); field(m.getCompLevel());
+        next(); number(m.getSetNumber());
+        next(); number(m.getMatchNumber());
+        next(); number(m.getTime());
+        next(); number(m.getActualTime());
+        next(); field(m.getWinningAlliance());
+        alliance(m.getRed());
+        alliance(m.getBlue());
+        if(breakdown != null) {
+            Map<String, Object> red = m instanceof Match ? ((Match) m).getRedScoreBreakdown() : null;
+            Map<String, Object> blue = m instanceof Match ? ((Match) m).getBlueScoreBreakdown() : null;
+            for(String[] path : breakdown) {
+                next();
+                value(resolve(path[0].equals("red") ? red : blue, path));
+            }
+        }
+        end();
+    }
+
+    private void check(String kind) {
+        if(!this.kind.equals(kind)) throw new IllegalStateException("This exporter is writing "+this.kind+", use another one for "+kind);
+    }
+
+    private void header(String[] columns) throws IOException {
+        for(int i = 0; i < columns.length; i++) {
+            if(i > 0) out.write(delimiter);
+            out.write(columns[i]);
+        }
+    }
+
+    private void next() throws IOException {
+        out.write(delimiter);
+    }
+
+    private void end() throws IOException {
+        out.write('\n');
+        rows++;
+    }
+
+    private void alliance(MatchAlliance a) throws IOException {
+        String[] keys = a == null ? null : a.getTeamKeys();
+        for(int i = 0; i < 3; i++) {
+            next();
+            if(keys != null && i < keys.length) field(keys[i]);
+        }
+        next();
+        if(a != null) number(a.getScore());
+    }
+
+    private void number(long value) throws IOException {
+        out.write(Long.toString(value));
+    }
+
+    private void value(Object value) throws IOException {
+        if(value == null) return;
+        if(value instanceof String) field((String) value);
+        else out.write(value.toString());
+    }
+
+    private void field(String value) throws IOException {
+        if(value == null) return;
+        boolean quote = false;
+        for(int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /*
+     * Score breakdowns
+     */
+
+    private static String[][] breakdownColumns(Match m) {
+        List<String[]> columns = new ArrayList<>();
+        flatten(m.getRedScoreBreakdown(), new ArrayList<>(), "red", columns);
+        flatten(m.getBlueScoreBreakdown(), new ArrayList<>(), "blue", columns);
+        return columns.isEmpty() ? null : columns.toArray(new String[0][]);
+    }
+
+    /**
+     * Adds a column for every leaf of the value, sorted by key so the column order is stable
+     */
+    private static void flatten(Object value, List<String> path, String alliance, List<String[]> columns) {
+        if(value instanceof Map) {
+            for(Map.Entry<?, ?> e : new TreeMap<>((Map<?, ?>) value).entrySet()) {
+                path.add(String.valueOf(e.getKey()));
+                flatten(e.getValue(), path, alliance, columns);
+                path.remove(path.size() - 1);
+            }
+        } else if(value instanceof List) {
+            List<?> list = (List<?>) value;
+            for(int i = 0; i < list.size(); i++) {
+                path.add(Integer.toString(i));
+                flatten(list.get(i), path, alliance, columns);
+                path.remove(path.size() - 1);
+            }
+        } else if(value != null || !path.isEmpty()) {
+            String[] column = new String[path.size() + 1];
+            column[0] = alliance;
+            for(int i = 0; i < path.size(); i++) column[i + 1] = path.get(i);
+            columns.add(column);
+        }
+    }
+
+    /**
+     * @param path the alliance followed by the keys
+     * @return the leaf at the path, or null if it's missing
+     */
+    private static Object resolve(Object value, String[] path) {
+        for(int i = 1; i < path.length && value != null; i++) {
+            if(value instanceof Map) value = ((Map<?, ?>) value).get(path[i]);
+            else if(value instanceof List) {
+                List<?> list = (List<?>) value;
+                int index;
+                try {
+                    index = Integer.parseInt(path[i]);
+                } catch(NumberFormatException e) {
+                    return null;
+                }
+                value = index < list.size() ? list.get(index) : null;
+            } else return null;
+        }
+        return value instanceof Map || value instanceof List ? null : value;
+    }
+}
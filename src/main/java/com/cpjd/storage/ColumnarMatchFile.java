@@ -0,0 +1,334 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.matches.MatchTable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact columnar file of the columns of a MatchTable, for loading matches into offline analytics without any JSON.
+ * Write one from EventRequest.getMatchTable() / TeamRequest.getTeamMatchTable() (joined with MatchTable.addAll()), or from
+ * a season snapshot with SeasonSnapshot.getMatches().toTable().
+ *
+ * Every column is stored separately, so a scan only touches the pages of the columns it reads:
+ * - event keys are dictionary encoded, the column holds indices into the event dictionary
+ * - every integer column is split into blocks of 128 rows, each stored as a base (the block's smallest value) and the bit-packed
+ * differences from it, using as few bits as the block needs. Timestamps within a block are close together, so they take ~10-20 bits
+ * instead of 64, comp levels take 3 bits and a block of unplayed scores takes none.
+ *
+ * Match keys aren't stored, getKey() rebuilds them from the event key, comp level, set and match number like MatchStore does.
+ *
+ * open() maps the file read-only and reads straight out of the mapping, nothing is decoded up front. Thread safe.
+ *
+ * Layout (little endian):
+ * 0  "TBAT"
+ * 4  int version
+ * 8  int rows
+ * 12 int column count
+ * 16 int offset per column, then the offset of the event dictionary (int count, then int length + UTF-8 per key)
+ * Column: per block a 16 byte header (long base, int bits, int data offset from the column start), then the packed longs of every block
+ *
+ * @since 1.0.1
+ */
+public class ColumnarMatchFile {
+
+    private static final byte[] MAGIC = {'T', 'B', 'A', 'T'};
+    private static final int VERSION = 1;
+    private static final int BLOCK_ROWS = 128;
+
+    /*
+     * Columns
+     */
+    private static final int EVENT = 0;
+    private static final int COMP_LEVEL = 1;
+    private static final int SET_NUMBER = 2;
+    private static final int MATCH_NUMBER = 3;
+    private static final int TIME = 4;
+    private static final int ACTUAL_TIME = 5;
+    private static final int RED_SCORE = 6;
+    private static final int BLUE_SCORE = 7;
+    private static final int TEAM = 8;
+    private static final int COLUMNS = TEAM + MatchTable.WIDTH;
+
+    private final ByteBuffer b;
+    private final int rows;
+    private final int[] columns = new int[COLUMNS];
+    private final String[] eventKeys;
+
+    private ColumnarMatchFile(ByteBuffer b) throws IOException {
+        this.b = b;
+        for(int i = 0; i < MAGIC.length; i++) if(b.limit() < 16 || b.get(i) != MAGIC[i]) throw new IOException("Not a columnar match file");
+        int version = b.getInt(4);
+        if(version > VERSION) throw new IOException("Columnar match file has version "+version+", this version of the library only reads up to "+VERSION);
+        rows = b.getInt(8);
+        if(b.getInt(12) != COLUMNS) throw new IOException("Columnar match file has "+b.getInt(12)+" columns, expected "+COLUMNS);
+        for(int i = 0; i < COLUMNS; i++) columns[i] = b.getInt(16 + i * 4);
+
+        // the dictionary is tiny (one key per event) and every event lookup needs it, so it's the only thing read eagerly
+        int o = b.getInt(16 + COLUMNS * 4);
+        eventKeys = new String[b.getInt(o)];
+        o += 4;
+        for(int i = 0; i < eventKeys.length; i++) {
+            byte[] bytes = new byte[b.getInt(o)];
+            for(int k = 0; k < bytes.length; k++) bytes[k] = b.get(o + 4 + k);
+            eventKeys[i] = new String(bytes, StandardCharsets.UTF_8);
+            o += 4 + bytes.length;
+        }
+    }
+
+    /**
+     * Maps a columnar match file. The file is closed right away, the mapping stays valid until this object is garbage collected.
+     * @param file a file written by write()
+     * @return the reader
+     * @throws IOException if the file can't be read or isn't a columnar match file
+     */
+    public static ColumnarMatchFile open(File file) throws IOException {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if(channel.size() > Integer.MAX_VALUE) throw new IOException("Columnar match file is larger than 2GB");
+            return new ColumnarMatchFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /*
+     * Writing
+     */
+
+    /**
+     * Writes the table, replacing the file if it exists
+     * @param table the matches
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public static void write(MatchTable table, File file) throws IOException {
+        int rows = table.size();
+        ByteBuffer[] blocks = new ByteBuffer[COLUMNS + 1];
+        long[] values = new long[rows];
+
+        int[] events = table.getEvents();
+        for(int i = 0; i < rows; i++) values[i] = events[i];
+        blocks[EVENT] = pack(values, rows);
+        byte[] compLevels = table.getCompLevels();
+        for(int i = 0; i < rows; i++) values[i] = compLevels[i];
+        blocks[COMP_LEVEL] = pack(values, rows);
+        blocks[SET_NUMBER] = pack(table.getSetNumbers(), values, rows);
+        blocks[MATCH_NUMBER] = pack(table.getMatchNumbers(), values, rows);
+        blocks[TIME] = pack(table.getTimes(), rows);
+        blocks[ACTUAL_TIME] = pack(table.getActualTimes(), rows);
+        blocks[RED_SCORE] = pack(table.getRedScores(), values, rows);
+        blocks[BLUE_SCORE] = pack(table.getBlueScores(), values, rows);
+        int[] teams = table.getTeams();
+        for(int slot = 0; slot < MatchTable.WIDTH; slot++) {
+            for(int i = 0; i < rows; i++) values[i] = teams[i * MatchTable.WIDTH + slot];
+            blocks[TEAM + slot] = pack(values, rows);
+        }
+
+        String[] keys = table.getEventKeys();
+        byte[][] encoded = new byte[keys.length][];
+        int dictionaryBytes = 4;
+        for(int i = 0; i < keys.length; i++) {
+            encoded[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += 4 + encoded[i].length;
+        }
+        ByteBuffer dictionary = ByteBuffer.allocate(dictionaryBytes).order(ByteOrder.LITTLE_ENDIAN);
+        dictionary.putInt(keys.length);
+        for(byte[] key : encoded) dictionary.putInt(key.length).put(key);
+        blocks[COLUMNS] = dictionary;
+
+        ByteBuffer header = ByteBuffer.allocate(16 + (COLUMNS + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(rows).putInt(COLUMNS);
+        long offset = header.capacity();
+        for(ByteBuffer block : blocks) {
+            header.putInt((int) offset);
+            offset += block.capacity();
+        }
+        if(offset > Integer.MAX_VALUE) throw new IOException("Columnar match file would be larger than 2GB");
+        header.flip();
+
+        try(FileOutputStream out = new FileOutputStream(file)) {
+            FileChannel channel = out.getChannel();
+            while(header.hasRemaining()) channel.write(header);
+            for(ByteBuffer block : blocks) {
+                block.rewind();
+                while(block.hasRemaining()) channel.write(block);
+            }
+        }
+    }
+
+    private static ByteBuffer pack(int[] column, long[] values, int rows) {
+        for(int i = 0; i < rows; i++) values[i] = column[i];
+        return pack(values, rows);
+    }
+
+    /**
+     * Packs a column into blocks of BLOCK_ROWS values, each stored as its smallest value and the bit-packed differences from it
+     */
+    private static ByteBuffer pack(long[] values, int rows) {
+        int blockCount = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        long[] bases = new long[blockCount];
+        int[] bits = new int[blockCount];
+        int words = 0;
+        for(int block = 0; block < blockCount; block++) {
+            int from = block * BLOCK_ROWS, to = Math.min(rows, from + BLOCK_ROWS);
+            long min = values[from], max = values[from];
+            for(int i = from + 1; i < to; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            bases[block] = min;
+            bits[block] = 64 - Long.numberOfLeadingZeros(max - min);
+            words += ((to - from) * bits[block] + 63) / 64;
+        }
+
+        ByteBuffer b = ByteBuffer.allocate(blockCount * 16 + words * 8).order(ByteOrder.LITTLE_ENDIAN);
+        int data = blockCount * 16;
+        for(int block = 0; block < blockCount; block++) {
+            int from = block * BLOCK_ROWS, to = Math.min(rows, from + BLOCK_ROWS);
+            b.putLong(block * 16, bases[block]).putInt(block * 16 + 8, bits[block]).putInt(block * 16 + 12, data);
+            int width = bits[block];
+            if(width == 0) continue;
+            long word = 0;
+            int used = 0;
+            for(int i = from; i < to; i++) {
+                long v = values[i] - bases[block];
+                word |= v << used;
+                used += width;
+                if(used >= 64) {
+                    b.putLong(data, word);
+                    data += 8;
+                    used -= 64;
+                    word = used == 0 ? 0 : v >>> (width - used);
+                }
+            }
+            if(used > 0) {
+                b.putLong(data, word);
+                data += 8;
+            }
+        }
+        return b;
+    }
+
+    /*
+     * Reading
+     */
+
+    /**
+     * @return the row's value of the column, read straight from the mapping
+     */
+    private long get(int column, int row) {
+        if(row < 0 || row >= rows) throw new IndexOutOfBoundsException("Row "+row+" of "+rows);
+        int c = columns[column];
+        int header = c + (row / BLOCK_ROWS) * 16;
+        long base = b.getLong(header);
+        int bits = b.getInt(header + 8);
+        if(bits == 0) return base;
+        int data = c + b.getInt(header + 12);
+        long bit = (long) (row % BLOCK_ROWS) * bits;
+        int word = (int) (bit >>> 6), shift = (int) (bit & 63);
+        long v = b.getLong(data + word * 8) >>> shift;
+        if(shift + bits > 64) v |= b.getLong(data + word * 8 + 8) << (64 - shift);
+        if(bits < 64) v &= (1L << bits) - 1;
+        return base + v;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public int getEventIndex(int row) {
+        return (int) get(EVENT, row);
+    }
+
+    public String getEventKey(int row) {
+        return eventKeys[getEventIndex(row)];
+    }
+
+    /**
+     * @return the event dictionary, indexed by getEventIndex()
+     */
+    public String[] getEventKeys() {
+        return eventKeys.clone();
+    }
+
+    /**
+     * @return the comp level code, see MatchTable
+     */
+    public byte getCompLevel(int row) {
+        return (byte) get(COMP_LEVEL, row);
+    }
+
+    public int getSetNumber(int row) {
+        return (int) get(SET_NUMBER, row);
+    }
+
+    public int getMatchNumber(int row) {
+        return (int) get(MATCH_NUMBER, row);
+    }
+
+    public long getTime(int row) {
+        return get(TIME, row);
+    }
+
+    public long getActualTime(int row) {
+        return get(ACTUAL_TIME, row);
+    }
+
+    /**
+     * @return red's score, -1 if unplayed
+     */
+    public int getRedScore(int row) {
+        return (int) get(RED_SCORE, row);
+    }
+
+    /**
+     * @return blue's score, -1 if unplayed
+     */
+    public int getBlueScore(int row) {
+        return (int) get(BLUE_SCORE, row);
+    }
+
+    /**
+     * @param slot 0-2 for red, 3-5 for blue
+     * @return the team number, or 0 if the slot is empty
+     */
+    public int getTeam(int row, int slot) {
+        return (int) get(TEAM + slot, row);
+    }
+
+    /**
+     * Rebuilds the TBA match key, eg 2016nytr_qm1. This allocates, so avoid it in hot loops.
+     * @return the match key
+     */
+    public String getKey(int row) {
+        byte level = getCompLevel(row);
+        String prefix = getEventKey(row)+"_"+MatchTable.compLevelName(level);
+        if(level == MatchTable.QM) return prefix+getMatchNumber(row);
+        return prefix+getSetNumber(row)+"m"+getMatchNumber(row);
+    }
+
+    /**
+     * Copies every row back into a MatchTable for the com.cpjd.analytics classes
+     * @return the table
+     */
+    public MatchTable toTable() {
+        MatchTable table = new MatchTable(rows);
+        String[] red = new String[3], blue = new String[3];
+        for(int row = 0; row < rows; row++) {
+            int i = table.add(getKey(row), getEventKey(row), MatchTable.compLevelName(getCompLevel(row)), getSetNumber(row), getMatchNumber(row),
+                    getTime(row), getActualTime(row));
+            for(int k = 0; k < 3; k++) {
+                red[k] = "frc"+getTeam(row, k);
+                blue[k] = "frc"+getTeam(row, k + 3);
+            }
+            table.setAlliance(i, false, getRedScore(row), red);
+            table.setAlliance(i, true, getBlueScore(row), blue);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,314 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An append-only, off-heap store of fixed-width match records. Meant for keeping many seasons of matches in memory
+ * without the heap (and GC) cost of one SMatch/Match object graph per match.
+ *
+ * Records live in direct ByteBuffer segments, or in segments of a memory-mapped file if the store was created with mapped().
+ * The only per-match data kept on the heap is the event key dictionary, which is shared by every match of an event.
+ *
+ * Record layout (64 bytes, little endian):
+ * 0  short year
+ * 2  byte  comp level (see MatchTable codes)
+ * 3  byte  unused
+ * 4  short set number
+ * 6  short match number
+ * 8  int   event index
+ * 12 short red score
+ * 14 short blue score
+ * 16 long  scheduled time
+ * 24 long  actual time
+ * 32 int[6] team numbers, red 0-2, blue 3-5
+ * 56 8 bytes unused
+ *
+ * Appending is not thread safe, reading from separate cursors while nothing is appended is.
+ *
+ * @since 1.0.1
+ */
+public class MatchStore {
+
+    public static final int RECORD_BYTES = 64;
+    private static final int SEGMENT_RECORDS = 1 << 14;
+    private static final int SEGMENT_BYTES = SEGMENT_RECORDS * RECORD_BYTES;
+
+    private final ArrayList<ByteBuffer> segments = new ArrayList<>();
+    private final FileChannel channel;
+    private int size;
+
+    private String[] eventKeys = new String[64];
+    private int eventKeyCount;
+    private final HashMap<String, Integer> eventIndex = new HashMap<>();
+
+    private MatchStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return a store backed by direct (off-heap) memory
+     */
+    public static MatchStore direct() {
+        return new MatchStore(null);
+    }
+
+    /**
+     * Creates a store backed by a memory-mapped file, so the OS decides what stays resident. Any existing content of the file is discarded.
+     * @param file the backing file
+     * @return a store backed by the file
+     * @throws IOException if the file can't be opened
+     */
+    public static MatchStore mapped(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        return new MatchStore(raf.getChannel());
+    }
+
+    /*
+     * Ingestion
+     */
+
+    public void append(SMatch m) {
+        int red0 = 0, red1 = 0, red2 = 0, blue0 = 0, blue1 = 0, blue2 = 0;
+        long redScore = -1, blueScore = -1;
+        if(m.getRed() != null) {
+            String[] keys = m.getRed().getTeamKeys();
+            redScore = m.getRed().getScore();
+            if(keys != null) {
+                if(keys.length > 0) red0 = MatchTable.teamNumber(keys[0]);
+                if(keys.length > 1) red1 = MatchTable.teamNumber(keys[1]);
+                if(keys.length > 2) red2 = MatchTable.teamNumber(keys[2]);
+            }
+        }
+        if(m.getBlue() != null) {
+            String[] keys = m.getBlue().getTeamKeys();
+            blueScore = m.getBlue().getScore();
+            if(keys != null) {
+                if(keys.length > 0) blue0 = MatchTable.teamNumber(keys[0]);
+                if(keys.length > 1) blue1 = MatchTable.teamNumber(keys[1]);
+                if(keys.length > 2) blue2 = MatchTable.teamNumber(keys[2]);
+            }
+        }
+        ByteBuffer b = slot();
+        int o = b.position();
+        write(b, o, m.getEventKey(), MatchTable.compLevelCode(m.getCompLevel()), m.getSetNumber(), m.getMatchNumber(),
+                redScore, blueScore, m.getTime(), m.getActualTime());
+        b.putInt(o + 32, red0).putInt(o + 36, red1).putInt(o + 40, red2);
+        b.putInt(o + 44, blue0).putInt(o + 48, blue1).putInt(o + 52, blue2);
+        size++;
+    }
+
+    public void append(SMatch[] matches) {
+        for(SMatch m : matches) append(m);
+    }
+
+    public void append(MatchTable table) {
+        int[] teams = table.getTeams();
+        for(int row = 0; row < table.size(); row++) {
+            ByteBuffer b = slot();
+            int o = b.position();
+            write(b, o, table.getEventKey(row), table.getCompLevel(row), table.getSetNumber(row), table.getMatchNumber(row),
+                    table.getRedScore(row), table.getBlueScore(row), table.getTime(row), table.getActualTime(row));
+            for(int i = 0; i < MatchTable.WIDTH; i++) b.putInt(o + 32 + i * 4, teams[row * MatchTable.WIDTH + i]);
+            size++;
+        }
+    }
+
+    private void write(ByteBuffer b, int o, String eventKey, byte compLevel, long setNumber, long matchNumber, long redScore, long blueScore, long time, long actualTime) {
+        b.putShort(o, (short) year(eventKey));
+        b.put(o + 2, compLevel);
+        b.putShort(o + 4, (short) setNumber);
+        b.putShort(o + 6, (short) matchNumber);
+        b.putInt(o + 8, eventIndex(eventKey));
+        b.putShort(o + 12, (short) redScore);
+        b.putShort(o + 14, (short) blueScore);
+        b.putLong(o + 16, time);
+        b.putLong(o + 24, actualTime);
+    }
+
+    /**
+     * @return the segment the next record goes in, positioned at the record's offset
+     */
+    private ByteBuffer slot() {
+        int segment = size / SEGMENT_RECORDS;
+        if(segment == segments.size()) segments.add(allocate(segment));
+        ByteBuffer b = segments.get(segment);
+        b.position((size % SEGMENT_RECORDS) * RECORD_BYTES);
+        return b;
+    }
+
+    private ByteBuffer allocate(int segment) {
+        if(channel == null) return ByteBuffer.allocateDirect(SEGMENT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_BYTES, SEGMENT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        } catch(IOException e) {
+            throw new IllegalStateException("Unable to map match store segment "+segment, e);
+        }
+    }
+
+    private int eventIndex(String eventKey) {
+        Integer index = eventIndex.get(eventKey);
+        if(index != null) return index;
+        if(eventKeyCount == eventKeys.length) eventKeys = Arrays.copyOf(eventKeys, eventKeyCount * 2);
+        eventKeys[eventKeyCount] = eventKey;
+        eventIndex.put(eventKey, eventKeyCount);
+        return eventKeyCount++;
+    }
+
+    private static int year(String eventKey) {
+        if(eventKey == null || eventKey.length() < 4) return 0;
+        int year = 0;
+        for(int i = 0; i < 4; i++) {
+            char c = eventKey.charAt(i);
+            if(c < '0' || c > '9') return 0;
+            year = year * 10 + (c - '0');
+        }
+        return year;
+    }
+
+    /*
+     * Reading
+     */
+
+    /**
+     * @return a new cursor positioned before the first record
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of off-heap bytes reserved by this store
+     */
+    public long byteSize() {
+        return (long) segments.size() * SEGMENT_BYTES;
+    }
+
+    public String getEventKey(int eventIndex) {
+        return eventKeys[eventIndex];
+    }
+
+    public int getEventCount() {
+        return eventKeyCount;
+    }
+
+    /**
+     * Closes the backing file of a mapped store. The store must not be used afterwards.
+     * @throws IOException if the file can't be closed
+     */
+    public void close() throws IOException {
+        segments.clear();
+        if(channel != null) channel.close();
+    }
+
+    /**
+     * A flyweight view over one record at a time, so scanning the store allocates nothing per record:
+     *
+     * MatchStore.Cursor c = store.cursor();
+     * while(c.next()) total += c.getRedScore();
+     */
+    public class Cursor {
+        private int index = -1;
+        private ByteBuffer b;
+        private int o;
+
+        /**
+         * Moves to the next record
+         * @return false if there are no more records
+         */
+        public boolean next() {
+            if(index + 1 >= size) return false;
+            seek(index + 1);
+            return true;
+        }
+
+        /**
+         * Moves to a specific record
+         * @param index the record index, 0 to size() - 1
+         */
+        public void seek(int index) {
+            if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Record "+index+" of "+size);
+            this.index = index;
+            b = segments.get(index / SEGMENT_RECORDS);
+            o = (index % SEGMENT_RECORDS) * RECORD_BYTES;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getYear() {
+            return b.getShort(o);
+        }
+
+        public byte getCompLevel() {
+            return b.get(o + 2);
+        }
+
+        public int getSetNumber() {
+            return b.getShort(o + 4);
+        }
+
+        public int getMatchNumber() {
+            return b.getShort(o + 6);
+        }
+
+        public int getEventIndex() {
+            return b.getInt(o + 8);
+        }
+
+        public String getEventKey() {
+            return eventKeys[getEventIndex()];
+        }
+
+        public int getRedScore() {
+            return b.getShort(o + 12);
+        }
+
+        public int getBlueScore() {
+            return b.getShort(o + 14);
+        }
+
+        public long getTime() {
+            return b.getLong(o + 16);
+        }
+
+        public long getActualTime() {
+            return b.getLong(o + 24);
+        }
+
+        /**
+         * @param slot 0-2 for red, 3-5 for blue
+         * @return the team number, or 0 if the slot is empty
+         */
+        public int getTeam(int slot) {
+            return b.getInt(o + 32 + slot * 4);
+        }
+
+        /**
+         * Rebuilds the TBA match key, eg 2016nytr_qm1. This allocates, so avoid it in hot loops.
+         * @return the match key
+         */
+        public String getKey() {
+            byte level = getCompLevel();
+            String prefix = getEventKey()+"_"+MatchTable.compLevelName(level);
+            if(level == MatchTable.QM) return prefix+getMatchNumber();
+            return prefix+getSetNumber()+"m"+getMatchNumber();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.APIStatus;
+import com.cpjd.models.districts.District;
+import com.cpjd.models.events.*;
+import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.Robot;
+import com.cpjd.models.teams.STeam;
+import com.cpjd.models.teams.Team;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compact binary format for every model, much smaller and faster than Java serialization.
+ *
+ * A stream starts with the bytes "TBAM" and the schema version as a varint, followed by any number of values. Each value is a
+ * one byte tag and then the value's data:
+ * - integers are zigzag varints (1 byte for values between -64 and 63)
+ * - doubles are 8 bytes, little endian
+ * - strings go through a per-stream string table: varint 0 for null, 1 followed by the varint UTF-8 length and the bytes
+ * for a string that hasn't been written yet, or 2 + its index in the table for one that has
+ * - models are their fields in a fixed order, with nested models, arrays and maps (score breakdowns, insights) written as tagged values
+ * - arrays hold the tag of their component type, so a Team[] is read back as a Team[]
+ *
+ * The field order is tied to VERSION. Any change to it must bump VERSION, and ModelDecoder keeps reading older versions.
+ * Streams from a newer version are rejected rather than misread.
+ *
+ * @since 1.0.1
+ */
+public class ModelCodec {
+
+    /**
+     * The current schema version, written in the header of every stream
+     */
+    public static final int VERSION = 1;
+
+    static final byte[] MAGIC = {'T', 'B', 'A', 'M'};
+
+    /*
+     * Tags
+     */
+    static final int NULL = 0;
+    static final int TEAM = 1;
+    static final int STEAM = 2;
+    static final int EVENT = 3;
+    static final int SEVENT = 4;
+    static final int MATCH = 5;
+    static final int SMATCH = 6;
+    static final int MATCH_ALLIANCE = 7;
+    static final int MEDIA = 8;
+    static final int AWARD = 9;
+    static final int AWARD_RECIPIENT = 10;
+    static final int EVENT_OPR = 11;
+    static final int EVENT_RANKING = 12;
+    static final int ALLIANCE = 13;
+    static final int INSIGHT = 14;
+    static final int DISTRICT = 15;
+    static final int ROBOT = 16;
+    static final int WEBCAST = 17;
+    static final int API_STATUS = 18;
+    static final int ARRAY = 32;
+    static final int MAP = 33;
+    static final int LIST = 34;
+    static final int LONG = 35;
+    static final int DOUBLE = 36;
+    static final int TRUE = 37;
+    static final int FALSE = 38;
+    static final int STRING = 39;
+
+    /**
+     * Array component types, indexed by tag. Object[] uses NULL.
+     */
+    private static final Class<?>[] TYPES = new Class<?>[STRING + 1];
+
+    static {
+        TYPES[NULL] = Object.class;
+        TYPES[TEAM] = Team.class;
+        TYPES[STEAM] = STeam.class;
+        TYPES[EVENT] = Event.class;
+        TYPES[SEVENT] = SEvent.class;
+        TYPES[MATCH] = Match.class;
+        TYPES[SMATCH] = SMatch.class;
+        TYPES[MATCH_ALLIANCE] = MatchAlliance.class;
+        TYPES[MEDIA] = Media.class;
+        TYPES[AWARD] = Award.class;
+        TYPES[AWARD_RECIPIENT] = AwardRecipient.class;
+        TYPES[EVENT_OPR] = EventOPR.class;
+        TYPES[EVENT_RANKING] = EventRanking.class;
+        TYPES[ALLIANCE] = Alliance.class;
+        TYPES[INSIGHT] = Insight.class;
+        TYPES[DISTRICT] = District.class;
+        TYPES[ROBOT] = Robot.class;
+        TYPES[WEBCAST] = Webcast.class;
+        TYPES[API_STATUS] = APIStatus.class;
+        TYPES[STRING] = String.class;
+    }
+
+    static int tagOf(Class<?> type) {
+        for(int i = 0; i < TYPES.length; i++) if(TYPES[i] == type) return i;
+        return NULL;
+    }
+
+    static Class<?> typeOf(int tag) {
+        if(tag < 0 || tag >= TYPES.length || TYPES[tag] == null) throw new IllegalStateException("Unknown array type "+tag+" in ModelCodec stream");
+        return TYPES[tag];
+    }
+
+    /**
+     * Encodes a single value
+     * @param value any model, model array, or String, Long, Double, Boolean, Map or List of them (eg a whole season keyed by event)
+     * @return the encoded bytes
+     */
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            encode(value, out);
+        } catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a single value to a stream, the stream is flushed but not closed
+     * @param value any value supported by encode(Object)
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public static void encode(Object value, OutputStream out) throws IOException {
+        ModelEncoder encoder = new ModelEncoder(out);
+        encoder.write(value);
+        encoder.flush();
+    }
+
+    /**
+     * Decodes a value written with encode()
+     * @param data the encoded bytes
+     * @return the value, models and arrays come back with their original types
+     */
+    public static Object decode(byte[] data) {
+        try {
+            return decode(new ByteArrayInputStream(data));
+        } catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decodes a value written with encode(Object, OutputStream)
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException if the stream fails, or isn't a ModelCodec stream
+     */
+    public static Object decode(InputStream in) throws IOException {
+        return new ModelDecoder(in).read();
+    }
+}
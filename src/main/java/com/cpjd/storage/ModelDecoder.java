@@ -0,0 +1,454 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.APIStatus;
+import com.cpjd.models.districts.District;
+import com.cpjd.models.events.*;
+import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.Robot;
+import com.cpjd.models.teams.STeam;
+import com.cpjd.models.teams.Team;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reads values written by ModelEncoder, see ModelCodec for the format.
+ *
+ * Maps come back as JSONObjects and lists as JSONArrays, the same types Parser produces for score breakdowns.
+ * The decoder reads ahead in blocks, so don't read from the underlying stream directly once it's been handed over. Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class ModelDecoder implements Closeable {
+
+    private final InputStream in;
+    private final byte[] buf = new byte[8192];
+    private int pos, limit;
+    private String[] strings = new String[256];
+    private int stringCount;
+    /**
+     * The schema version of the stream, for reading older field layouts
+     */
+    private final int version;
+
+    public ModelDecoder(InputStream in) throws IOException {
+        this.in = in;
+        for(byte b : ModelCodec.MAGIC) {
+            if(readByte() != b) throw new IOException("Not a ModelCodec stream");
+        }
+        version = (int) readVarLong();
+        if(version > ModelCodec.VERSION) {
+            throw new IOException("ModelCodec stream has schema version "+version+", this version of the library only reads up to "+ModelCodec.VERSION);
+        }
+    }
+
+    /**
+     * @return the next value of the stream
+     * @throws EOFException if there are no more values
+     * @throws IOException if the stream fails or is corrupt
+     */
+    public Object read() throws IOException {
+        return readValue();
+    }
+
+    /**
+     * @return the schema version the stream was written with
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /*
+     * Values
+     */
+
+    @SuppressWarnings("unchecked")
+    private Object readValue() throws IOException {
+        int tag = readByte();
+        switch(tag) {
+            case ModelCodec.NULL: return null;
+            case ModelCodec.TEAM: return readTeam(new Team());
+            case ModelCodec.STEAM: return readSTeam(new STeam());
+            case ModelCodec.EVENT: return readEvent(new Event());
+            case ModelCodec.SEVENT: return readSEvent(new SEvent());
+            case ModelCodec.MATCH: return readMatch(new Match());
+            case ModelCodec.SMATCH: return readSMatch(new SMatch());
+            case ModelCodec.MATCH_ALLIANCE: return readMatchAlliance();
+            case ModelCodec.MEDIA: return readMedia();
+            case ModelCodec.AWARD: return readAward();
+            case ModelCodec.AWARD_RECIPIENT: return readAwardRecipient();
+            case ModelCodec.EVENT_OPR: return readEventOPR();
+            case ModelCodec.EVENT_RANKING: return readEventRanking();
+            case ModelCodec.ALLIANCE: return readAlliance();
+            case ModelCodec.INSIGHT: return readInsight();
+            case ModelCodec.DISTRICT: return readDistrict();
+            case ModelCodec.ROBOT: return readRobot();
+            case ModelCodec.WEBCAST: return readWebcast();
+            case ModelCodec.API_STATUS: return readStatus();
+            case ModelCodec.STRING: return readString();
+            case ModelCodec.LONG: return readLong();
+            case ModelCodec.DOUBLE: return readDouble();
+            case ModelCodec.TRUE: return Boolean.TRUE;
+            case ModelCodec.FALSE: return Boolean.FALSE;
+            case ModelCodec.MAP: return readMap();
+            case ModelCodec.LIST: {
+                int size = readLength();
+                JSONArray list = new JSONArray();
+                for(int i = 0; i < size; i++) list.add(readValue());
+                return list;
+            }
+            case ModelCodec.ARRAY: {
+                Class<?> type = ModelCodec.typeOf(readLength());
+                int length = readLength();
+                Object[] array = (Object[]) Array.newInstance(type, length);
+                for(int i = 0; i < length; i++) array[i] = readValue();
+                return array;
+            }
+            default: throw new IOException("Unknown tag "+tag+" in ModelCodec stream");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readTyped() throws IOException {
+        return (T) readValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashMap<String, Object> readMap() throws IOException {
+        int size = readLength() - 1;
+        if(size == -1) return null;
+        JSONObject map = new JSONObject();
+        for(int i = 0; i < size; i++) {
+            String key = readString();
+            map.put(key, readValue());
+        }
+        return map;
+    }
+
+    /*
+     * Models, see ModelEncoder for the field order
+     */
+
+    private STeam readSTeam(STeam t) throws IOException {
+        t.setKey(readString());
+        t.setTeamNumber(readLong());
+        t.setNickname(readString());
+        t.setName(readString());
+        t.setCity(readString());
+        t.setStateProv(readString());
+        t.setCountry(readString());
+        return t;
+    }
+
+    private Team readTeam(Team t) throws IOException {
+        readSTeam(t);
+        t.setAddress(readString());
+        t.setPostalCode(readString());
+        t.setGMAPSPlaceID(readString());
+        t.setGMAPURL(readString());
+        t.setLatitude(readDouble());
+        t.setLongitude(readDouble());
+        t.setLocationName(readString());
+        t.setWebsite(readString());
+        t.setRookieYear(readLong());
+        t.setMotto(readString());
+        return t;
+    }
+
+    private SEvent readSEvent(SEvent e) throws IOException {
+        e.setKey(readString());
+        e.setName(readString());
+        e.setEventCode(readString());
+        e.setEventType(readLong());
+        e.setDistrict(readTyped());
+        e.setStateProv(readString());
+        e.setCountry(readString());
+        e.setStartDate(readString());
+        e.setEndDate(readString());
+        e.setYear(readLong());
+        return e;
+    }
+
+    private Event readEvent(Event e) throws IOException {
+        readSEvent(e);
+        e.setShortName(readString());
+        e.setEventTypeString(readString());
+        e.setWebsite(readString());
+        e.setFirstEventID(readString());
+        e.setParentEventkey(readString());
+        e.setPlayoffType(readLong());
+        e.setPlayoffTypeString(readString());
+        e.setDivisonKeys(readStrings());
+        e.setCity(readString());
+        e.setAddress(readString());
+        e.setPostalCode(readString());
+        e.setGMAPSPlaceID(readString());
+        e.setGMAPSURL(readString());
+        e.setLatitude(readDouble());
+        e.setLongitude(readDouble());
+        e.setLocationName(readString());
+        e.setWeek(readLong());
+        e.setTimezone(readString());
+        e.setWebcasts(readTyped());
+        return e;
+    }
+
+    private SMatch readSMatch(SMatch m) throws IOException {
+        m.setKey(readString());
+        m.setCompLevel(readString());
+        m.setSetNumber(readLong());
+        m.setMatchNumber(readLong());
+        m.setBlue(readTyped());
+        m.setRed(readTyped());
+        m.setWinningAlliance(readString());
+        m.setEventKey(readString());
+        m.setTime(readLong());
+        m.setPredictedTime(readLong());
+        m.setActualTime(readLong());
+        return m;
+    }
+
+    private Match readMatch(Match m) throws IOException {
+        readSMatch(m);
+        m.setPostResultTime(readLong());
+        m.setRedScoreBreakdown(readMap());
+        m.setBlueScoreBreakdown(readMap());
+        m.setVideos(readTyped());
+        return m;
+    }
+
+    private MatchAlliance readMatchAlliance() throws IOException {
+        MatchAlliance a = new MatchAlliance();
+        a.setScore(readLong());
+        a.setTeamKeys(readStrings());
+        a.setSurrogateTeamKeys(readStrings());
+        return a;
+    }
+
+    private Media readMedia() throws IOException {
+        Media m = new Media();
+        m.setKey(readString());
+        m.setType(readString());
+        m.setForeignKey(readString());
+        m.setDetails(readString());
+        m.setPreferred(readByte() != 0);
+        return m;
+    }
+
+    private Award readAward() throws IOException {
+        Award a = new Award();
+        a.setName(readString());
+        a.setAwardType(readLong());
+        a.setEventKey(readString());
+        a.setRecipients(readTyped());
+        a.setYear(readLong());
+        return a;
+    }
+
+    private AwardRecipient readAwardRecipient() throws IOException {
+        AwardRecipient r = new AwardRecipient();
+        r.setTeamKey(readString());
+        r.setAwardee(readString());
+        return r;
+    }
+
+    private EventOPR readEventOPR() throws IOException {
+        EventOPR o = new EventOPR();
+        o.setTeamKey(readString());
+        o.setOpr(readDouble());
+        o.setDpr(readDouble());
+        o.setCcwm(readDouble());
+        return o;
+    }
+
+    private EventRanking readEventRanking() throws IOException {
+        EventRanking r = new EventRanking();
+        r.setTeamKey(readString());
+        r.setDq(readLong());
+        r.setExtraStats(readLongs());
+        r.setQualAverage(readLong());
+        r.setMatchesPlayed(readLong());
+        r.setSortOrders(readDoubles());
+        r.setWins(readLong());
+        r.setTies(readLong());
+        r.setLosses(readLong());
+        r.setRank(readLong());
+        return r;
+    }
+
+    private Alliance readAlliance() throws IOException {
+        Alliance a = new Alliance();
+        a.setName(readString());
+        a.setBackupOut(readString());
+        a.setBackupIn(readString());
+        a.setDeclines(readStrings());
+        a.setPicks(readStrings());
+        a.setStatus(readString());
+        a.setCurrentLevelRecord_Losses(readLong());
+        a.setCurrentLevelRecord_Wins(readLong());
+        a.setCurrentLevelRecord_Ties(readLong());
+        a.setLevel(readString());
+        a.setPlayoffAverage(readDouble());
+        a.setRecordLosses(readLong());
+        a.setRecordWins(readLong());
+        a.setRecordTies(readLong());
+        return a;
+    }
+
+    private Insight readInsight() throws IOException {
+        Insight i = new Insight();
+        i.setQual(readMap());
+        i.setPlayoff(readMap());
+        return i;
+    }
+
+    private District readDistrict() throws IOException {
+        District d = new District();
+        d.setAbbreviation(readString());
+        d.setDisplayName(readString());
+        d.setKey(readString());
+        d.setYear(readLong());
+        return d;
+    }
+
+    private Robot readRobot() throws IOException {
+        Robot r = new Robot();
+        r.setYear(readLong());
+        r.setRobotName(readString());
+        r.setKey(readString());
+        r.setTeamKey(readString());
+        return r;
+    }
+
+    private Webcast readWebcast() throws IOException {
+        Webcast w = new Webcast();
+        w.setType(readString());
+        w.setChannel(readString());
+        w.setFile(readString());
+        return w;
+    }
+
+    private APIStatus readStatus() throws IOException {
+        APIStatus s = new APIStatus();
+        s.setCurrentSeason(readLong());
+        s.setMaxSeason(readLong());
+        s.setDatafeedDown(readByte() != 0);
+        s.setDownEvents(readStrings());
+        s.setIosMinAppVersion(readLong());
+        s.setIosLatestAppVersion(readLong());
+        s.setAndroidMinAppVersion(readLong());
+        s.setAndroidLatestAppVersion(readLong());
+        return s;
+    }
+
+    /*
+     * Primitives
+     */
+
+    private boolean fill(int bytes) throws IOException {
+        if(limit - pos >= bytes) return true;
+        System.arraycopy(buf, pos, buf, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while(limit < bytes) {
+            int read = in.read(buf, limit, buf.length - limit);
+            if(read == -1) return false;
+            limit += read;
+        }
+        return true;
+    }
+
+    private int readByte() throws IOException {
+        if(pos == limit && !fill(1)) throw new EOFException();
+        return buf[pos++] & 0xff;
+    }
+
+    private long readVarLong() throws IOException {
+        long v = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint in ModelCodec stream");
+    }
+
+    private int readLength() throws IOException {
+        long v = readVarLong();
+        if(v < 0 || v > Integer.MAX_VALUE) throw new IOException("Bad length "+v+" in ModelCodec stream");
+        return (int) v;
+    }
+
+    private long readLong() throws IOException {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private double readDouble() throws IOException {
+        long bits = 0;
+        for(int i = 0; i < 8; i++) bits |= (long) readByte() << (i * 8);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private String readString() throws IOException {
+        int ref = readLength();
+        if(ref == 0) return null;
+        if(ref > 1) {
+            if(ref - 2 >= stringCount) throw new IOException("Bad string reference "+ref+" in ModelCodec stream");
+            return strings[ref - 2];
+        }
+        int length = readLength();
+        String s;
+        if(length <= buf.length) {
+            if(!fill(length)) throw new EOFException();
+            s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+        } else {
+            byte[] bytes = new byte[length];
+            for(int i = 0; i < length; i++) bytes[i] = (byte) readByte();
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if(stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+        strings[stringCount++] = s;
+        return s;
+    }
+
+    private String[] readStrings() throws IOException {
+        int length = readLength() - 1;
+        if(length == -1) return null;
+        String[] array = new String[length];
+        for(int i = 0; i < length; i++) array[i] = readString();
+        return array;
+    }
+
+    private long[] readLongs() throws IOException {
+        int length = readLength() - 1;
+        if(length == -1) return null;
+        long[] array = new long[length];
+        for(int i = 0; i < length; i++) array[i] = readLong();
+        return array;
+    }
+
+    private double[] readDoubles() throws IOException {
+        int length = readLength() - 1;
+        if(length == -1) return null;
+        double[] array = new double[length];
+        for(int i = 0; i < length; i++) array[i] = readDouble();
+        return array;
+    }
+}
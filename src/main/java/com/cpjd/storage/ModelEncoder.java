@@ -0,0 +1,401 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.APIStatus;
+import com.cpjd.models.districts.District;
+import com.cpjd.models.events.*;
+import com.cpjd.models.matches.Match;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.Robot;
+import com.cpjd.models.teams.STeam;
+import com.cpjd.models.teams.Team;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes models in the compact binary format read by ModelDecoder, see ModelCodec for the format.
+ *
+ * Several values can be written one after another, they share one string table, so keys that repeat across values
+ * (team keys, event keys, score breakdown fields) are only written once per stream. Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class ModelEncoder implements Closeable {
+
+    private final OutputStream out;
+    private byte[] buf = new byte[8192];
+    private int pos;
+    private final HashMap<String, Integer> strings = new HashMap<>();
+
+    public ModelEncoder(OutputStream out) throws IOException {
+        this.out = out;
+        for(byte b : ModelCodec.MAGIC) buf[pos++] = b;
+        writeVarLong(ModelCodec.VERSION);
+    }
+
+    /**
+     * Writes any model, model array, String, Long, Double, Boolean, Map&lt;String, ?&gt; or List of these
+     * @param value the value to write, may be null
+     * @throws IOException if the underlying stream fails
+     */
+    public void write(Object value) throws IOException {
+        writeValue(value);
+        if(pos > buf.length / 2) flush();
+    }
+
+    public void flush() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    /*
+     * Values
+     */
+
+    private void writeValue(Object value) throws IOException {
+        if(value == null) tag(ModelCodec.NULL);
+        // subclasses before their parents
+        else if(value instanceof Team) { tag(ModelCodec.TEAM); writeTeam((Team) value); }
+        else if(value instanceof STeam) { tag(ModelCodec.STEAM); writeSTeam((STeam) value); }
+        else if(value instanceof Event) { tag(ModelCodec.EVENT); writeEvent((Event) value); }
+        else if(value instanceof SEvent) { tag(ModelCodec.SEVENT); writeSEvent((SEvent) value); }
+        else if(value instanceof Match) { tag(ModelCodec.MATCH); writeMatch((Match) value); }
+        else if(value instanceof SMatch) { tag(ModelCodec.SMATCH); writeSMatch((SMatch) value); }
+        else if(value instanceof MatchAlliance) { tag(ModelCodec.MATCH_ALLIANCE); writeMatchAlliance((MatchAlliance) value); }
+        else if(value instanceof Media) { tag(ModelCodec.MEDIA); writeMedia((Media) value); }
+        else if(value instanceof Award) { tag(ModelCodec.AWARD); writeAward((Award) value); }
+        else if(value instanceof AwardRecipient) { tag(ModelCodec.AWARD_RECIPIENT); writeAwardRecipient((AwardRecipient) value); }
+        else if(value instanceof EventOPR) { tag(ModelCodec.EVENT_OPR); writeEventOPR((EventOPR) value); }
+        else if(value instanceof EventRanking) { tag(ModelCodec.EVENT_RANKING); writeEventRanking((EventRanking) value); }
+        else if(value instanceof Alliance) { tag(ModelCodec.ALLIANCE); writeAlliance((Alliance) value); }
+        else if(value instanceof Insight) { tag(ModelCodec.INSIGHT); writeInsight((Insight) value); }
+        else if(value instanceof District) { tag(ModelCodec.DISTRICT); writeDistrict((District) value); }
+        else if(value instanceof Robot) { tag(ModelCodec.ROBOT); writeRobot((Robot) value); }
+        else if(value instanceof Webcast) { tag(ModelCodec.WEBCAST); writeWebcast((Webcast) value); }
+        else if(value instanceof APIStatus) { tag(ModelCodec.API_STATUS); writeStatus((APIStatus) value); }
+        else if(value instanceof String) { tag(ModelCodec.STRING); writeString((String) value); }
+        else if(value instanceof Double || value instanceof Float) { tag(ModelCodec.DOUBLE); writeDouble(((Number) value).doubleValue()); }
+        else if(value instanceof Number) { tag(ModelCodec.LONG); writeLong(((Number) value).longValue()); }
+        else if(value instanceof Boolean) tag((Boolean) value ? ModelCodec.TRUE : ModelCodec.FALSE);
+        else if(value instanceof Map) { tag(ModelCodec.MAP); writeMap((Map<?, ?>) value); }
+        else if(value instanceof List) {
+            tag(ModelCodec.LIST);
+            List<?> list = (List<?>) value;
+            writeVarLong(list.size());
+            for(Object o : list) writeValue(o);
+        } else if(value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            tag(ModelCodec.ARRAY);
+            writeVarLong(ModelCodec.tagOf(array.getClass().getComponentType()));
+            writeVarLong(array.length);
+            for(Object o : array) writeValue(o);
+        } else throw new IllegalArgumentException("Unsupported type for ModelEncoder: "+value.getClass().getName());
+    }
+
+    private void writeMap(Map<?, ?> map) throws IOException {
+        if(map == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(map.size() + 1);
+        for(Map.Entry<?, ?> e : map.entrySet()) {
+            writeString((String) e.getKey());
+            writeValue(e.getValue());
+        }
+    }
+
+    /*
+     * Models, fields in the order of ModelCodec.VERSION
+     */
+
+    private void writeSTeam(STeam t) throws IOException {
+        writeString(t.getKey());
+        writeLong(t.getTeamNumber());
+        writeString(t.getNickname());
+        writeString(t.getName());
+        writeString(t.getCity());
+        writeString(t.getStateProv());
+        writeString(t.getCountry());
+    }
+
+    private void writeTeam(Team t) throws IOException {
+        writeSTeam(t);
+        writeString(t.getAddress());
+        writeString(t.getPostalCode());
+        writeString(t.getGMAPSPlaceID());
+        writeString(t.getGMAPURL());
+        writeDouble(t.getLatitude());
+        writeDouble(t.getLongitude());
+        writeString(t.getLocationName());
+        writeString(t.getWebsite());
+        writeLong(t.getRookieYear());
+        writeString(t.getMotto());
+    }
+
+    private void writeSEvent(SEvent e) throws IOException {
+        writeString(e.getKey());
+        writeString(e.getName());
+        writeString(e.getEventCode());
+        writeLong(e.getEventType());
+        writeValue(e.getDistrict());
+        writeString(e.getStateProv());
+        writeString(e.getCountry());
+        writeString(e.getStartDate());
+        writeString(e.getEndDate());
+        writeLong(e.getYear());
+    }
+
+    private void writeEvent(Event e) throws IOException {
+        writeSEvent(e);
+        writeString(e.getShortName());
+        writeString(e.getEventTypeString());
+        writeString(e.getWebsite());
+        writeString(e.getFirstEventID());
+        writeString(e.getParentEventkey());
+        writeLong(e.getPlayoffType());
+        writeString(e.getPlayoffTypeString());
+        writeStrings(e.getDivisonKeys());
+        writeString(e.getCity());
+        writeString(e.getAddress());
+        writeString(e.getPostalCode());
+        writeString(e.getGMAPSPlaceID());
+        writeString(e.getGMAPSURL());
+        writeDouble(e.getLatitude());
+        writeDouble(e.getLongitude());
+        writeString(e.getLocationName());
+        writeLong(e.getWeek());
+        writeString(e.getTimezone());
+        writeValue(e.getWebcasts());
+    }
+
+    private void writeSMatch(SMatch m) throws IOException {
+        writeString(m.getKey());
+        writeString(m.getCompLevel());
+        writeLong(m.getSetNumber());
+        writeLong(m.getMatchNumber());
+        writeValue(m.getBlue());
+        writeValue(m.getRed());
+        writeString(m.getWinningAlliance());
+        writeString(m.getEventKey());
+        writeLong(m.getTime());
+        writeLong(m.getPredictedTime());
+        writeLong(m.getActualTime());
+    }
+
+    private void writeMatch(Match m) throws IOException {
+        writeSMatch(m);
+        writeLong(m.getPostResultTime());
+        writeMap(m.getRedScoreBreakdown());
+        writeMap(m.getBlueScoreBreakdown());
+        writeValue(m.getVideos());
+    }
+
+    private void writeMatchAlliance(MatchAlliance a) throws IOException {
+        writeLong(a.getScore());
+        writeStrings(a.getTeamKeys());
+        writeStrings(a.getSurrogateTeamKeys());
+    }
+
+    private void writeMedia(Media m) throws IOException {
+        writeString(m.getKey());
+        writeString(m.getType());
+        writeString(m.getForeignKey());
+        writeString(m.getDetails());
+        writeBoolean(m.isPreferred());
+    }
+
+    private void writeAward(Award a) throws IOException {
+        writeString(a.getName());
+        writeLong(a.getAwardType());
+        writeString(a.getEventKey());
+        writeValue(a.getRecipients());
+        writeLong(a.getYear());
+    }
+
+    private void writeAwardRecipient(AwardRecipient r) throws IOException {
+        writeString(r.getTeamKey());
+        writeString(r.getAwardee());
+    }
+
+    private void writeEventOPR(EventOPR o) throws IOException {
+        writeString(o.getTeamKey());
+        writeDouble(o.getOpr());
+        writeDouble(o.getDpr());
+        writeDouble(o.getCcwm());
+    }
+
+    private void writeEventRanking(EventRanking r) throws IOException {
+        writeString(r.getTeamKey());
+        writeLong(r.getDq());
+        writeLongs(r.getExtraStats());
+        writeLong(r.getQualAverage());
+        writeLong(r.getMatchesPlayed());
+        writeDoubles(r.getSortOrders());
+        writeLong(r.getWins());
+        writeLong(r.getTies());
+        writeLong(r.getLosses());
+        writeLong(r.getRank());
+    }
+
+    private void writeAlliance(Alliance a) throws IOException {
+        writeString(a.getName());
+        writeString(a.getBackupOut());
+        writeString(a.getBackupIn());
+        writeStrings(a.getDeclines());
+        writeStrings(a.getPicks());
+        writeString(a.getStatus());
+        writeLong(a.getCurrentLevelRecord_Losses());
+        writeLong(a.getCurrentLevelRecord_Wins());
+        writeLong(a.getCurrentLevelRecord_Ties());
+        writeString(a.getLevel());
+        writeDouble(a.getPlayoffAverage());
+        writeLong(a.getRecordLosses());
+        writeLong(a.getRecordWins());
+        writeLong(a.getRecordTies());
+    }
+
+    private void writeInsight(Insight i) throws IOException {
+        writeMap(i.getQual());
+        writeMap(i.getPlayoff());
+    }
+
+    private void writeDistrict(District d) throws IOException {
+        writeString(d.getAbbreviation());
+        writeString(d.getDisplayName());
+        writeString(d.getKey());
+        writeLong(d.getYear());
+    }
+
+    private void writeRobot(Robot r) throws IOException {
+        writeLong(r.getYear());
+        writeString(r.getRobotName());
+        writeString(r.getKey());
+        writeString(r.getTeamKey());
+    }
+
+    private void writeWebcast(Webcast w) throws IOException {
+        writeString(w.getType());
+        writeString(w.getChannel());
+        writeString(w.getFile());
+    }
+
+    private void writeStatus(APIStatus s) throws IOException {
+        writeLong(s.getCurrentSeason());
+        writeLong(s.getMaxSeason());
+        writeBoolean(s.isDatafeedDown());
+        writeStrings(s.getDownEvents());
+        writeLong(s.getIosMinAppVersion());
+        writeLong(s.getIosLatestAppVersion());
+        writeLong(s.getAndroidMinAppVersion());
+        writeLong(s.getAndroidLatestAppVersion());
+    }
+
+    /*
+     * Primitives
+     */
+
+    private void ensure(int bytes) throws IOException {
+        if(pos + bytes <= buf.length) return;
+        if(bytes > buf.length / 2) {
+            byte[] bigger = new byte[Math.max(buf.length * 2, pos + bytes)];
+            System.arraycopy(buf, 0, bigger, 0, pos);
+            buf = bigger;
+        } else {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void tag(int tag) throws IOException {
+        ensure(1);
+        buf[pos++] = (byte) tag;
+    }
+
+    private void writeVarLong(long v) throws IOException {
+        ensure(10);
+        while((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    /**
+     * Zigzag encoded, so small negative numbers (eg -1 scores) stay small
+     */
+    private void writeLong(long v) throws IOException {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    private void writeDouble(double v) throws IOException {
+        ensure(8);
+        long bits = Double.doubleToRawLongBits(v);
+        for(int i = 0; i < 8; i++) buf[pos++] = (byte) (bits >>> (i * 8));
+    }
+
+    private void writeBoolean(boolean v) throws IOException {
+        tag(v ? 1 : 0);
+    }
+
+    /**
+     * 0 for null, 1 followed by the string for a new string, or 2 + the string table index of a string seen before
+     */
+    private void writeString(String s) throws IOException {
+        if(s == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer index = strings.get(s);
+        if(index != null) {
+            writeVarLong(index + 2);
+            return;
+        }
+        strings.put(s, strings.size());
+        writeVarLong(1);
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void writeStrings(String[] array) throws IOException {
+        if(array == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(array.length + 1);
+        for(String s : array) writeString(s);
+    }
+
+    private void writeLongs(long[] array) throws IOException {
+        if(array == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(array.length + 1);
+        for(long v : array) writeLong(v);
+    }
+
+    private void writeDoubles(double[] array) throws IOException {
+        if(array == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(array.length + 1);
+        for(double v : array) writeDouble(v);
+    }
+}
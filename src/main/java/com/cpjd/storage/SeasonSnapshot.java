@@ -0,0 +1,584 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.districts.District;
+import com.cpjd.models.events.Award;
+import com.cpjd.models.events.AwardRecipient;
+import com.cpjd.models.events.EventRanking;
+import com.cpjd.models.events.SEvent;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.STeam;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only, memory-mapped snapshot of a whole season's events, teams, matches, rankings and awards, written by SeasonSnapshotWriter.
+ *
+ * Opening a snapshot maps the file and reads its 64 byte header, nothing else. Every accessor reads its field straight out of
+ * the mapping when it's called, so a season opens in constant time and several processes reading the same snapshot share the
+ * OS page cache instead of each holding their own copy. get(i) builds the simple model of a record for code that wants one.
+ *
+ * File layout (little endian): a header, then one block of fixed width records per section, then a heap holding strings
+ * (int length + UTF-8), sort order arrays (int count + doubles) and award recipients (int count + team key, awardee string offsets).
+ * Records reference the heap by offset, -1 for null.
+ *
+ * Header:
+ * 0  "TBAS"
+ * 4  int version
+ * 8  int year
+ * 16 int offset, int count per section (events, teams, matches, rankings, awards)
+ * 56 int heap offset, int heap length
+ *
+ * Event (40 bytes, sorted by key): key, name, event code, district key, state/prov, country, start date, end date, int event type, int week (-1 unknown)
+ * Team (32 bytes, sorted by number): key, nickname, name, city, state/prov, country, int team number, int rookie year (0 unknown)
+ * Match (64 bytes, sorted by event, comp level, set, match): 0 event key, 4 key, 8 byte comp level (see MatchTable),
+ * 9 byte winner (0 none, 1 red, 2 blue), 10 short set, 12 int match, 16 long time, 24 long actual time, 32 int red score,
+ * 36 int blue score, 40 int[3] red teams, 52 int[3] blue teams
+ * Ranking (40 bytes, sorted by event, rank): event key, team key, rank, wins, losses, ties, dq, matches played, qual average, sort orders
+ * Award (20 bytes, sorted by event, award type): event key, name, int award type, int year, recipients
+ *
+ * Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class SeasonSnapshot {
+
+    static final byte[] MAGIC = {'T', 'B', 'A', 'S'};
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    static final int EVENT_BYTES = 40;
+    static final int TEAM_BYTES = 32;
+    static final int MATCH_BYTES = 64;
+    static final int RANKING_BYTES = 40;
+    static final int AWARD_BYTES = 20;
+
+    private final ByteBuffer b;
+    private final int year;
+    private final int heap;
+
+    private final Events events;
+    private final Teams teams;
+    private final Matches matches;
+    private final Rankings rankings;
+    private final Awards awards;
+
+    private SeasonSnapshot(ByteBuffer b) throws IOException {
+        this.b = b;
+        if(b.limit() < HEADER_BYTES) throw new IOException("Not a season snapshot");
+        for(int i = 0; i < MAGIC.length; i++) if(b.get(i) != MAGIC[i]) throw new IOException("Not a season snapshot");
+        int version = b.getInt(4);
+        if(version > VERSION) throw new IOException("Season snapshot has version "+version+", this version of the library only reads up to "+VERSION);
+        year = b.getInt(8);
+        heap = b.getInt(56);
+        events = new Events(b.getInt(16), b.getInt(20));
+        teams = new Teams(b.getInt(24), b.getInt(28));
+        matches = new Matches(b.getInt(32), b.getInt(36));
+        rankings = new Rankings(b.getInt(40), b.getInt(44));
+        awards = new Awards(b.getInt(48), b.getInt(52));
+    }
+
+    /**
+     * Maps a snapshot file. The file is closed right away, the mapping stays valid until the snapshot is garbage collected.
+     * @param file a file written by SeasonSnapshotWriter
+     * @return the snapshot
+     * @throws IOException if the file can't be read or isn't a snapshot
+     */
+    public static SeasonSnapshot open(File file) throws IOException {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if(channel.size() > Integer.MAX_VALUE) throw new IOException("Season snapshot is larger than 2GB");
+            return new SeasonSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public Teams getTeams() {
+        return teams;
+    }
+
+    public Matches getMatches() {
+        return matches;
+    }
+
+    public Rankings getRankings() {
+        return rankings;
+    }
+
+    public Awards getAwards() {
+        return awards;
+    }
+
+    /*
+     * Heap
+     */
+
+    private String string(int record, int field) {
+        return string(b.getInt(record + field));
+    }
+
+    private String string(int ref) {
+        if(ref == -1) return null;
+        int o = heap + ref;
+        byte[] bytes = new byte[b.getInt(o)];
+        for(int i = 0; i < bytes.length; i++) bytes[i] = b.get(o + 4 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares a string field to a key without decoding it, keys are the ASCII TBA keys so byte order is string order
+     */
+    private int compare(int record, int field, String key) {
+        int ref = b.getInt(record + field);
+        if(ref == -1) return key == null ? 0 : -1;
+        if(key == null) return 1;
+        int o = heap + ref;
+        int length = b.getInt(o);
+        int n = Math.min(length, key.length());
+        for(int i = 0; i < n; i++) {
+            int diff = (b.get(o + 4 + i) & 0xff) - key.charAt(i);
+            if(diff != 0) return diff;
+        }
+        return length - key.length();
+    }
+
+    /**
+     * Base of the sections, records are sorted by the string field at offset 0 except for teams
+     */
+    private abstract class Section {
+        final int offset, count, width;
+
+        Section(int offset, int count, int width) {
+            this.offset = offset;
+            this.count = count;
+            this.width = width;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        int record(int i) {
+            if(i < 0 || i >= count) throw new IndexOutOfBoundsException("Record "+i+" of "+count);
+            return offset + i * width;
+        }
+
+        /**
+         * @return the first record whose string at offset 0 is not less than (or if upper, greater than) key
+         */
+        int bound(String key, boolean upper) {
+            int lo = 0, hi = count;
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compare(offset + mid * width, 0, key);
+                if(c < 0 || (upper && c == 0)) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Sections sorted by event key
+     */
+    private abstract class EventSection extends Section {
+        EventSection(int offset, int count, int width) {
+            super(offset, count, width);
+        }
+
+        /**
+         * @param eventKey TBA Event Key, eg 2016nytr
+         * @return {first, end} records of the event, empty if there are none
+         */
+        public int[] range(String eventKey) {
+            return new int[] {bound(eventKey, false), bound(eventKey, true)};
+        }
+    }
+
+    public class Events extends Section {
+        Events(int offset, int count) {
+            super(offset, count, EVENT_BYTES);
+        }
+
+        /**
+         * @param key TBA Event Key, eg 2016nytr
+         * @return the event's record, or -1 if it isn't in the snapshot
+         */
+        public int find(String key) {
+            int i = bound(key, false);
+            return i < count && compare(record(i), 0, key) == 0 ? i : -1;
+        }
+
+        public String getKey(int i) {
+            return string(record(i), 0);
+        }
+
+        public String getName(int i) {
+            return string(record(i), 4);
+        }
+
+        public String getEventCode(int i) {
+            return string(record(i), 8);
+        }
+
+        public String getDistrictKey(int i) {
+            return string(record(i), 12);
+        }
+
+        public String getStateProv(int i) {
+            return string(record(i), 16);
+        }
+
+        public String getCountry(int i) {
+            return string(record(i), 20);
+        }
+
+        public String getStartDate(int i) {
+            return string(record(i), 24);
+        }
+
+        public String getEndDate(int i) {
+            return string(record(i), 28);
+        }
+
+        public int getEventType(int i) {
+            return b.getInt(record(i) + 32);
+        }
+
+        /**
+         * @return the competition week, -1 if the snapshot was written from simple models
+         */
+        public int getWeek(int i) {
+            return b.getInt(record(i) + 36);
+        }
+
+        public SEvent get(int i) {
+            SEvent e = new SEvent();
+            e.setKey(getKey(i));
+            e.setName(getName(i));
+            e.setEventCode(getEventCode(i));
+            String district = getDistrictKey(i);
+            if(district != null) {
+                District d = new District();
+                d.setKey(district);
+                d.setYear(year);
+                e.setDistrict(d);
+            }
+            e.setStateProv(getStateProv(i));
+            e.setCountry(getCountry(i));
+            e.setStartDate(getStartDate(i));
+            e.setEndDate(getEndDate(i));
+            e.setEventType(getEventType(i));
+            e.setYear(year);
+            return e;
+        }
+    }
+
+    public class Teams extends Section {
+        Teams(int offset, int count) {
+            super(offset, count, TEAM_BYTES);
+        }
+
+        /**
+         * @param number the team's frc number
+         * @return the team's record, or -1 if it isn't in the snapshot
+         */
+        public int find(int number) {
+            int lo = 0, hi = count - 1;
+            while(lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int n = getTeamNumber(mid);
+                if(n < number) lo = mid + 1;
+                else if(n > number) hi = mid - 1;
+                else return mid;
+            }
+            return -1;
+        }
+
+        public String getKey(int i) {
+            return string(record(i), 0);
+        }
+
+        public String getNickname(int i) {
+            return string(record(i), 4);
+        }
+
+        public String getName(int i) {
+            return string(record(i), 8);
+        }
+
+        public String getCity(int i) {
+            return string(record(i), 12);
+        }
+
+        public String getStateProv(int i) {
+            return string(record(i), 16);
+        }
+
+        public String getCountry(int i) {
+            return string(record(i), 20);
+        }
+
+        public int getTeamNumber(int i) {
+            return b.getInt(record(i) + 24);
+        }
+
+        /**
+         * @return the rookie year, 0 if the snapshot was written from simple models
+         */
+        public int getRookieYear(int i) {
+            return b.getInt(record(i) + 28);
+        }
+
+        public STeam get(int i) {
+            STeam t = new STeam();
+            t.setKey(getKey(i));
+            t.setNickname(getNickname(i));
+            t.setName(getName(i));
+            t.setCity(getCity(i));
+            t.setStateProv(getStateProv(i));
+            t.setCountry(getCountry(i));
+            t.setTeamNumber(getTeamNumber(i));
+            return t;
+        }
+    }
+
+    public class Matches extends EventSection {
+        Matches(int offset, int count) {
+            super(offset, count, MATCH_BYTES);
+        }
+
+        public String getEventKey(int i) {
+            return string(record(i), 0);
+        }
+
+        public String getKey(int i) {
+            return string(record(i), 4);
+        }
+
+        /**
+         * @return the comp level code, see MatchTable
+         */
+        public byte getCompLevel(int i) {
+            return b.get(record(i) + 8);
+        }
+
+        /**
+         * @return "red", "blue" or "" for a tie or unplayed match
+         */
+        public String getWinningAlliance(int i) {
+            byte winner = b.get(record(i) + 9);
+            return winner == 1 ? "red" : winner == 2 ? "blue" : "";
+        }
+
+        public int getSetNumber(int i) {
+            return b.getShort(record(i) + 10);
+        }
+
+        public int getMatchNumber(int i) {
+            return b.getInt(record(i) + 12);
+        }
+
+        public long getTime(int i) {
+            return b.getLong(record(i) + 16);
+        }
+
+        public long getActualTime(int i) {
+            return b.getLong(record(i) + 24);
+        }
+
+        /**
+         * @return red's score, -1 if unplayed
+         */
+        public int getRedScore(int i) {
+            return b.getInt(record(i) + 32);
+        }
+
+        /**
+         * @return blue's score, -1 if unplayed
+         */
+        public int getBlueScore(int i) {
+            return b.getInt(record(i) + 36);
+        }
+
+        /**
+         * @param slot 0-2 for red, 3-5 for blue
+         * @return the team number, or 0 if the slot is empty
+         */
+        public int getTeam(int i, int slot) {
+            return b.getInt(record(i) + 40 + slot * 4);
+        }
+
+        public SMatch get(int i) {
+            SMatch m = new SMatch();
+            m.setKey(getKey(i));
+            m.setEventKey(getEventKey(i));
+            m.setCompLevel(MatchTable.compLevelName(getCompLevel(i)));
+            m.setSetNumber(getSetNumber(i));
+            m.setMatchNumber(getMatchNumber(i));
+            m.setTime(getTime(i));
+            m.setActualTime(getActualTime(i));
+            m.setWinningAlliance(getWinningAlliance(i));
+            m.setRed(alliance(i, getRedScore(i), 0));
+            m.setBlue(alliance(i, getBlueScore(i), 3));
+            return m;
+        }
+
+        private MatchAlliance alliance(int i, int score, int slot) {
+            MatchAlliance a = new MatchAlliance();
+            a.setScore(score);
+            int size = 0;
+            while(size < 3 && getTeam(i, slot + size) > 0) size++;
+            String[] keys = new String[size];
+            for(int k = 0; k < size; k++) keys[k] = "frc"+getTeam(i, slot + k);
+            a.setTeamKeys(keys);
+            return a;
+        }
+
+        /**
+         * Copies matches into a MatchTable for the com.cpjd.analytics classes
+         * @param from the first record
+         * @param to the end record, exclusive
+         * @return the table
+         */
+        public MatchTable toTable(int from, int to) {
+            MatchTable table = new MatchTable(to - from);
+            String[] red = new String[3], blue = new String[3];
+            for(int i = from; i < to; i++) {
+                int row = table.add(getKey(i), getEventKey(i), MatchTable.compLevelName(getCompLevel(i)), getSetNumber(i), getMatchNumber(i),
+                        getTime(i), getActualTime(i));
+                for(int k = 0; k < 3; k++) {
+                    red[k] = "frc"+getTeam(i, k);
+                    blue[k] = "frc"+getTeam(i, k + 3);
+                }
+                table.setAlliance(row, false, getRedScore(i), red);
+                table.setAlliance(row, true, getBlueScore(i), blue);
+            }
+            return table;
+        }
+    }
+
+    public class Rankings extends EventSection {
+        Rankings(int offset, int count) {
+            super(offset, count, RANKING_BYTES);
+        }
+
+        public String getEventKey(int i) {
+            return string(record(i), 0);
+        }
+
+        public String getTeamKey(int i) {
+            return string(record(i), 4);
+        }
+
+        public int getRank(int i) {
+            return b.getInt(record(i) + 8);
+        }
+
+        public int getWins(int i) {
+            return b.getInt(record(i) + 12);
+        }
+
+        public int getLosses(int i) {
+            return b.getInt(record(i) + 16);
+        }
+
+        public int getTies(int i) {
+            return b.getInt(record(i) + 20);
+        }
+
+        public int getDq(int i) {
+            return b.getInt(record(i) + 24);
+        }
+
+        public int getMatchesPlayed(int i) {
+            return b.getInt(record(i) + 28);
+        }
+
+        public int getQualAverage(int i) {
+            return b.getInt(record(i) + 32);
+        }
+
+        public double[] getSortOrders(int i) {
+            int ref = b.getInt(record(i) + 36);
+            if(ref == -1) return null;
+            int o = heap + ref;
+            double[] values = new double[b.getInt(o)];
+            for(int k = 0; k < values.length; k++) values[k] = b.getDouble(o + 4 + k * 8);
+            return values;
+        }
+
+        public EventRanking get(int i) {
+            EventRanking r = new EventRanking();
+            r.setTeamKey(getTeamKey(i));
+            r.setRank(getRank(i));
+            r.setWins(getWins(i));
+            r.setLosses(getLosses(i));
+            r.setTies(getTies(i));
+            r.setDq(getDq(i));
+            r.setMatchesPlayed(getMatchesPlayed(i));
+            r.setQualAverage(getQualAverage(i));
+            r.setSortOrders(getSortOrders(i));
+            return r;
+        }
+    }
+
+    public class Awards extends EventSection {
+        Awards(int offset, int count) {
+            super(offset, count, AWARD_BYTES);
+        }
+
+        public String getEventKey(int i) {
+            return string(record(i), 0);
+        }
+
+        public String getName(int i) {
+            return string(record(i), 4);
+        }
+
+        public int getAwardType(int i) {
+            return b.getInt(record(i) + 8);
+        }
+
+        public int getYear(int i) {
+            return b.getInt(record(i) + 12);
+        }
+
+        public AwardRecipient[] getRecipients(int i) {
+            int ref = b.getInt(record(i) + 16);
+            if(ref == -1) return null;
+            int o = heap + ref;
+            AwardRecipient[] recipients = new AwardRecipient[b.getInt(o)];
+            for(int k = 0; k < recipients.length; k++) {
+                recipients[k] = new AwardRecipient();
+                recipients[k].setTeamKey(string(b.getInt(o + 4 + k * 8)));
+                recipients[k].setAwardee(string(b.getInt(o + 8 + k * 8)));
+            }
+            return recipients;
+        }
+
+        public Award get(int i) {
+            Award a = new Award();
+            a.setEventKey(getEventKey(i));
+            a.setName(getName(i));
+            a.setAwardType(getAwardType(i));
+            a.setYear(getYear(i));
+            a.setRecipients(getRecipients(i));
+            return a;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.cpjd.storage;
+
+import com.cpjd.models.events.Award;
+import com.cpjd.models.events.AwardRecipient;
+import com.cpjd.models.events.Event;
+import com.cpjd.models.events.EventRanking;
+import com.cpjd.models.events.SEvent;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+import com.cpjd.models.teams.STeam;
+import com.cpjd.models.teams.Team;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Builds a SeasonSnapshot file out of the models returned by the com.cpjd.requests classes, eg:
+ *
+ * SeasonSnapshotWriter w = new SeasonSnapshotWriter(2017);
+ * w.addEvents(tba.getEvents(2017));
+ * for(String key : tba.getEventKeys(2017)) {
+ *     w.addMatches(tba.getMatches(key));
+ *     w.addRankings(key, tba.getEventRankings(key));
+ *     w.addAwards(tba.getEventAwards(key));
+ * }
+ * w.write(new File("2017.snapshot"));
+ *
+ * Models are only referenced until write(), which sorts them into the order SeasonSnapshot searches in. Not thread safe.
+ *
+ * @since 1.0.1
+ */
+public class SeasonSnapshotWriter {
+
+    private final int year;
+    private final ArrayList<SEvent> events = new ArrayList<>();
+    private final ArrayList<STeam> teams = new ArrayList<>();
+    private final ArrayList<SMatch> matches = new ArrayList<>();
+    private final ArrayList<Object[]> rankings = new ArrayList<>();
+    private final ArrayList<Award> awards = new ArrayList<>();
+
+    private ByteBuffer heap;
+    private HashMap<String, Integer> strings;
+
+    /**
+     * @param year the season the snapshot holds
+     */
+    public SeasonSnapshotWriter(int year) {
+        this.year = year;
+    }
+
+    public void addEvents(SEvent[] events) {
+        for(SEvent e : events) this.events.add(e);
+    }
+
+    public void addTeams(STeam[] teams) {
+        for(STeam t : teams) this.teams.add(t);
+    }
+
+    public void addMatches(SMatch[] matches) {
+        for(SMatch m : matches) this.matches.add(m);
+    }
+
+    /**
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param rankings the event's rankings
+     */
+    public void addRankings(String eventKey, EventRanking[] rankings) {
+        for(EventRanking r : rankings) this.rankings.add(new Object[] {eventKey, r});
+    }
+
+    public void addAwards(Award[] awards) {
+        for(Award a : awards) this.awards.add(a);
+    }
+
+    /**
+     * Writes the snapshot, replacing the file if it exists
+     * @param file the snapshot file
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file) throws IOException {
+        heap = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        strings = new HashMap<>();
+
+        events.sort(Comparator.comparing(SEvent::getKey, SeasonSnapshotWriter::compare));
+        teams.sort(Comparator.comparingLong(STeam::getTeamNumber));
+        matches.sort(Comparator.comparing(SMatch::getEventKey, SeasonSnapshotWriter::compare)
+                .thenComparingInt(m -> MatchTable.compLevelCode(m.getCompLevel()))
+                .thenComparingLong(SMatch::getSetNumber)
+                .thenComparingLong(SMatch::getMatchNumber));
+        rankings.sort(Comparator.comparing((Object[] r) -> (String) r[0], SeasonSnapshotWriter::compare)
+                .thenComparingLong(r -> ((EventRanking) r[1]).getRank()));
+        awards.sort(Comparator.comparing(Award::getEventKey, SeasonSnapshotWriter::compare).thenComparingLong(Award::getAwardType));
+
+        ByteBuffer[] sections = {writeEvents(), writeTeams(), writeMatches(), writeRankings(), writeAwards()};
+
+        ByteBuffer header = ByteBuffer.allocate(SeasonSnapshot.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(SeasonSnapshot.MAGIC).putInt(SeasonSnapshot.VERSION).putInt(year).putInt(0);
+        int offset = SeasonSnapshot.HEADER_BYTES;
+        int[] counts = {events.size(), teams.size(), matches.size(), rankings.size(), awards.size()};
+        for(int i = 0; i < sections.length; i++) {
+            header.putInt(offset).putInt(counts[i]);
+            offset += sections[i].limit();
+        }
+        heap.flip();
+        if((long) offset + heap.limit() > Integer.MAX_VALUE) throw new IOException("Season snapshot would be larger than 2GB");
+        header.putInt(offset).putInt(heap.limit());
+        header.flip();
+
+        try(FileOutputStream out = new FileOutputStream(file)) {
+            FileChannel channel = out.getChannel();
+            channel.write(header);
+            for(ByteBuffer b : sections) {
+                b.flip();
+                while(b.hasRemaining()) channel.write(b);
+            }
+            while(heap.hasRemaining()) channel.write(heap);
+        } finally {
+            heap = null;
+            strings = null;
+        }
+    }
+
+    /**
+     * Null safe string order, nulls first
+     */
+    static int compare(String a, String b) {
+        if(a == null) return b == null ? 0 : -1;
+        if(b == null) return 1;
+        return a.compareTo(b);
+    }
+
+    /*
+     * Sections, see SeasonSnapshot for the record layouts
+     */
+
+    private ByteBuffer writeEvents() {
+        ByteBuffer b = section(events.size(), SeasonSnapshot.EVENT_BYTES);
+        for(SEvent e : events) {
+            b.putInt(string(e.getKey())).putInt(string(e.getName())).putInt(string(e.getEventCode()))
+                    .putInt(string(e.getDistrict() == null ? null : e.getDistrict().getKey()))
+                    .putInt(string(e.getStateProv())).putInt(string(e.getCountry()))
+                    .putInt(string(e.getStartDate())).putInt(string(e.getEndDate()))
+                    .putInt((int) e.getEventType()).putInt(e instanceof Event ? (int) ((Event) e).getWeek() : -1);
+        }
+        return b;
+    }
+
+    private ByteBuffer writeTeams() {
+        ByteBuffer b = section(teams.size(), SeasonSnapshot.TEAM_BYTES);
+        for(STeam t : teams) {
+            b.putInt(string(t.getKey())).putInt(string(t.getNickname())).putInt(string(t.getName()))
+                    .putInt(string(t.getCity())).putInt(string(t.getStateProv())).putInt(string(t.getCountry()))
+                    .putInt((int) t.getTeamNumber()).putInt(t instanceof Team ? (int) ((Team) t).getRookieYear() : 0);
+        }
+        return b;
+    }
+
+    private ByteBuffer writeMatches() {
+        ByteBuffer b = section(matches.size(), SeasonSnapshot.MATCH_BYTES);
+        for(SMatch m : matches) {
+            int o = b.position();
+            b.putInt(o, string(m.getEventKey()));
+            b.putInt(o + 4, string(m.getKey()));
+            b.put(o + 8, MatchTable.compLevelCode(m.getCompLevel()));
+            String winner = m.getWinningAlliance();
+            b.put(o + 9, (byte) ("red".equals(winner) ? 1 : "blue".equals(winner) ? 2 : 0));
+            b.putShort(o + 10, (short) m.getSetNumber());
+            b.putInt(o + 12, (int) m.getMatchNumber());
+            b.putLong(o + 16, m.getTime());
+            b.putLong(o + 24, m.getActualTime());
+            b.putInt(o + 32, m.getRed() == null ? -1 : (int) m.getRed().getScore());
+            b.putInt(o + 36, m.getBlue() == null ? -1 : (int) m.getBlue().getScore());
+            putTeams(b, o + 40, m.getRed() == null ? null : m.getRed().getTeamKeys());
+            putTeams(b, o + 52, m.getBlue() == null ? null : m.getBlue().getTeamKeys());
+            b.position(o + SeasonSnapshot.MATCH_BYTES);
+        }
+        return b;
+    }
+
+    private static void putTeams(ByteBuffer b, int o, String[] teamKeys) {
+        for(int i = 0; i < 3; i++) {
+            b.putInt(o + i * 4, teamKeys != null && i < teamKeys.length ? MatchTable.teamNumber(teamKeys[i]) : 0);
+        }
+    }
+
+    private ByteBuffer writeRankings() {
+        ByteBuffer b = section(rankings.size(), SeasonSnapshot.RANKING_BYTES);
+        for(Object[] entry : rankings) {
+            EventRanking r = (EventRanking) entry[1];
+            b.putInt(string((String) entry[0])).putInt(string(r.getTeamKey())).putInt((int) r.getRank())
+                    .putInt((int) r.getWins()).putInt((int) r.getLosses()).putInt((int) r.getTies())
+                    .putInt((int) r.getDq()).putInt((int) r.getMatchesPlayed()).putInt((int) r.getQualAverage())
+                    .putInt(doubles(r.getSortOrders()));
+        }
+        return b;
+    }
+
+    private ByteBuffer writeAwards() {
+        ByteBuffer b = section(awards.size(), SeasonSnapshot.AWARD_BYTES);
+        for(Award a : awards) {
+            b.putInt(string(a.getEventKey())).putInt(string(a.getName())).putInt((int) a.getAwardType())
+                    .putInt((int) a.getYear()).putInt(recipients(a.getRecipients()));
+        }
+        return b;
+    }
+
+    private static ByteBuffer section(int count, int recordBytes) {
+        return ByteBuffer.allocate(count * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /*
+     * Heap
+     */
+
+    /**
+     * @return the heap offset of the string, written once per distinct string, or -1 for null
+     */
+    private int string(String s) {
+        if(s == null) return -1;
+        Integer offset = strings.get(s);
+        if(offset != null) return offset;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int o = reserve(4 + bytes.length);
+        heap.putInt(bytes.length).put(bytes);
+        strings.put(s, o);
+        return o;
+    }
+
+    private int doubles(double[] values) {
+        if(values == null) return -1;
+        int o = reserve(4 + values.length * 8);
+        heap.putInt(values.length);
+        for(double v : values) heap.putDouble(v);
+        return o;
+    }
+
+    private int recipients(AwardRecipient[] recipients) {
+        if(recipients == null) return -1;
+        int[] refs = new int[recipients.length * 2];
+        for(int i = 0; i < recipients.length; i++) {
+            refs[i * 2] = string(recipients[i].getTeamKey());
+            refs[i * 2 + 1] = string(recipients[i].getAwardee());
+        }
+        int o = reserve(4 + refs.length * 4);
+        heap.putInt(recipients.length);
+        for(int ref : refs) heap.putInt(ref);
+        return o;
+    }
+
+    /**
+     * Grows the heap to fit the bytes
+     * @return the offset the bytes go at
+     */
+    private int reserve(int bytes) {
+        if(heap.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(heap.capacity() * 2, heap.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+            heap.flip();
+            bigger.put(heap);
+            heap = bigger;
+        }
+        return heap.position();
+    }
+}
@@ -0,0 +1,140 @@
+package com.cpjd.utils;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Streams the elements of a JSON array out of a response while it's being parsed, so only one element is in memory at a time.
+ * Each element is built into the same JSONObject / JSONArray / primitive the tree parser would produce and handed to the consumer.
+ *
+ * Streams either the top level array (eg /event/{event_key}/matches), or the array under a key of the top level object
+ * (eg "rankings" of /event/{event_key}/rankings). Use with IO.doRequest(String, ContentHandler).
+ *
+ * @since 1.0.1
+ */
+public class ArrayStreamHandler implements ContentHandler {
+
+    private final String key;
+    private final Consumer<Object> consumer;
+
+    /**
+     * Number of containers currently open
+     */
+    private int depth;
+    private boolean inArray;
+    private int arrayDepth;
+    private String entry;
+    private int count;
+    private volatile boolean stopped;
+
+    private final ArrayDeque<Object> containers = new ArrayDeque<>();
+    private final ArrayDeque<String> keys = new ArrayDeque<>();
+
+    /**
+     * Streams the top level array
+     * @param consumer receives each element
+     */
+    public ArrayStreamHandler(Consumer<Object> consumer) {
+        this(null, consumer);
+    }
+
+    /**
+     * @param key the key of the array in the top level object, or null for the top level array
+     * @param consumer receives each element
+     */
+    public ArrayStreamHandler(String key, Consumer<Object> consumer) {
+        this.key = key;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Stops parsing at the next token, the rest of the response is skipped
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the number of elements handed to the consumer
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void startJSON() {}
+
+    @Override
+    public void endJSON() {}
+
+    @Override
+    public boolean startObject() {
+        depth++;
+        if(inArray) containers.push(new JSONObject());
+        return !stopped;
+    }
+
+    @Override
+    public boolean endObject() {
+        if(inArray) value(containers.pop());
+        depth--;
+        return !stopped;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+        if(inArray) keys.push(key);
+        else if(depth == 1) entry = key;
+        return !stopped;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        if(inArray) keys.pop();
+        else if(depth == 1) entry = null;
+        return !stopped;
+    }
+
+    @Override
+    public boolean startArray() {
+        depth++;
+        if(inArray) containers.push(new JSONArray());
+        else if(key == null ? depth == 1 : depth == 2 && key.equals(entry)) {
+            inArray = true;
+            arrayDepth = depth;
+        }
+        return !stopped;
+    }
+
+    @Override
+    public boolean endArray() {
+        if(inArray) {
+            if(depth == arrayDepth) inArray = false;
+            else value(containers.pop());
+        }
+        depth--;
+        return !stopped;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+        if(inArray) value(value);
+        return !stopped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void value(Object value) {
+        if(containers.isEmpty()) {
+            count++;
+            consumer.accept(value);
+            return;
+        }
+        Object parent = containers.peek();
+        if(parent instanceof JSONArray) ((JSONArray) parent).add(value);
+        else ((JSONObject) parent).put(keys.peek(), value);
+    }
+}
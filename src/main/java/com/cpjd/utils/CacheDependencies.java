@@ -0,0 +1,138 @@
+package com.cpjd.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A graph of which endpoints are derived from which, so when a response changes the cache can invalidate exactly the responses
+ * that depend on it, see ResponseCache.setDependencies(). Edges go between URL templates, eg
+ *
+ * event/{event_key}/matches -> event/{event_key}/rankings
+ * event/{event_key}/matches -> team/{team_key}/event/{event_key}/matches
+ *
+ * Variables bound by the changed URL carry over to its dependents. {event_key} and {year} are also bound from a {match_key}
+ * (2016nytr_qm1) or {event_key} (2016nytr). A {team_key} the changed URL doesn't bind expands to every team key found in the
+ * old or new response, so a changed match list reaches the per-team endpoints of exactly the teams that played in it.
+ * Dependents are followed transitively, and the /simple and /keys variants of every dependent go with it.
+ *
+ * defaults() covers the match, ranking, alliance and award endpoints. Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class CacheDependencies {
+
+    private static class Edge {
+        final UrlTemplate source;
+        final UrlTemplate dependent;
+
+        Edge(String source, String dependent) {
+            this.source = new UrlTemplate(source);
+            this.dependent = new UrlTemplate(dependent);
+        }
+    }
+
+    private final CopyOnWriteArrayList<Edge> edges = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the dependencies between the endpoints of the TBA API
+     */
+    public static CacheDependencies defaults() {
+        CacheDependencies d = new CacheDependencies();
+        d.add("event/{event_key}/matches",
+                "event/{event_key}/rankings",
+                "event/{event_key}/oprs",
+                "event/{event_key}/insights",
+                "event/{event_key}/predictions",
+                "event/{event_key}/district_points",
+                "event/{event_key}/teams/statuses",
+                "team/{team_key}/event/{event_key}/matches",
+                "team/{team_key}/matches/{year}");
+        d.add("match/{match_key}", "event/{event_key}/matches");
+        d.add("event/{event_key}/rankings",
+                "event/{event_key}/teams/statuses",
+                "team/{team_key}/event/{event_key}/status");
+        d.add("event/{event_key}/alliances",
+                "event/{event_key}/teams/statuses",
+                "team/{team_key}/event/{event_key}/status");
+        d.add("event/{event_key}/awards",
+                "team/{team_key}/event/{event_key}/awards",
+                "team/{team_key}/awards/{year}",
+                "team/{team_key}/awards");
+        return d;
+    }
+
+    /**
+     * @param source a URL template, eg event/{event_key}/matches
+     * @param dependents URL templates of responses that go stale when the source changes
+     */
+    public void add(String source, String... dependents) {
+        for(String dependent : dependents) edges.add(new Edge(source, dependent));
+    }
+
+    /**
+     * @param url the request that changed, relative to Constants.URL
+     * @param responses the old and new responses, searched for team keys, may be null
+     * @return every request that depends on it, directly or not, not including the url itself
+     */
+    public Set<String> dependents(String url, Object... responses) {
+        List<String> teamKeys = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        if(responses != null) {
+            LinkedHashSet<String> keys = new LinkedHashSet<>();
+            for(Object response : responses) collectTeamKeys(response, keys);
+            teamKeys.addAll(keys);
+        }
+
+        ArrayList<String> queue = new ArrayList<>();
+        queue.add(url);
+        seen.add(url);
+        for(int q = 0; q < queue.size(); q++) {
+            String next = queue.get(q);
+            for(Edge edge : edges) {
+                Map<String, String> bindings = edge.source.match(next);
+                if(bindings == null) continue;
+                for(String dependent : expand(edge.dependent, bindings, teamKeys)) {
+                    if(seen.add(dependent)) queue.add(dependent);
+                    seen.add(dependent+"/simple");
+                    seen.add(dependent+"/keys");
+                }
+            }
+        }
+        seen.remove(url);
+        return seen;
+    }
+
+    private static List<String> expand(UrlTemplate template, Map<String, String> bindings, List<String> teamKeys) {
+        List<String> urls = new ArrayList<>();
+        if(!template.canFill(bindings, true)) return urls;
+        if(!template.needsTeam(bindings)) {
+            urls.add(template.fill(bindings, null));
+            return urls;
+        }
+        for(String team : teamKeys) urls.add(template.fill(bindings, team));
+        return urls;
+    }
+
+    /**
+     * Adds every string that looks like a team key, eg frc254
+     */
+    private static void collectTeamKeys(Object value, Set<String> keys) {
+        if(value instanceof String) {
+            String s = (String) value;
+            if(s.length() > 3 && s.startsWith("frc") && isNumber(s, 3)) keys.add(s);
+        } else if(value instanceof Map) {
+            for(Object o : ((Map<?, ?>) value).values()) collectTeamKeys(o, keys);
+        } else if(value instanceof Iterable) {
+            for(Object o : (Iterable<?>) value) collectTeamKeys(o, keys);
+        }
+    }
+
+    private static boolean isNumber(String s, int from) {
+        for(int i = from; i < s.length(); i++) if(!Character.isDigit(s.charAt(i))) return false;
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cpjd.utils;
+
+/**
+ * Decides how long a ResponseCache keeps each response fresh, see ResponseCache.setPolicy().
+ *
+ * @since 1.0.1
+ */
+public interface CachePolicy {
+
+    /**
+     * Returned by ttl() for responses that never change
+     */
+    long FOREVER = Long.MAX_VALUE;
+
+    /**
+     * Called for every response stored in the cache, including background refreshes
+     * @param url the request, relative to Constants.URL
+     * @param response the parsed response
+     * @return how long the response stays fresh in milliseconds, FOREVER, or 0 to not cache it
+     */
+    long ttl(String url, Object response);
+}
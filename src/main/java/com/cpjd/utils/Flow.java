@@ -0,0 +1,45 @@
+package com.cpjd.utils;
+
+/**
+ * The reactive streams interfaces, with the same names and methods as java.util.concurrent.Flow (Java 9+), so publishers
+ * from this library can be adapted to Flow, Reactive Streams or RxJava with a one line wrapper.
+ *
+ * A Subscriber receives onSubscribe() first, then at most as many onNext() calls as it has request()ed, then onComplete() or onError().
+ *
+ * @since 1.0.1
+ */
+public final class Flow {
+
+    private Flow() {}
+
+    public interface Publisher<T> {
+        /**
+         * Starts a new stream of items for the subscriber
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+        /**
+         * Adds n items to the demand
+         * @param n a positive number of items, Long.MAX_VALUE for unbounded
+         */
+        void request(long n);
+
+        /**
+         * Stops the stream, the subscriber may still receive items that were already on their way
+         */
+        void cancel();
+    }
+}
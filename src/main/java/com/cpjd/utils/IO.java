@@ -1,14 +1,19 @@
 package com.cpjd.utils;
 
 import com.cpjd.main.Constants;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 import com.cpjd.utils.exceptions.AuthTokenNotFoundException;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Pulls raw data from the server.
@@ -17,22 +22,59 @@ import java.net.URL;
  *
  */
 public class IO {
-    private static final JSONParser parser = new JSONParser();
+    /**
+     * Answers doRequest(String) when set, see ResponseCache
+     */
+    private static volatile ResponseCache cache;
+
+    public static ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @param cache the cache for doRequest(String), or null to always request
+     */
+    public static void setCache(ResponseCache cache) {
+        IO.cache = cache;
+    }
+
+    /**
+     * Returned by request() when the server has no data: a 404, or a null response
+     */
+    private static final Object NOT_FOUND = new Object();
 
     public static Object doRequest(String targetURL) {
-        if(Constants.AUTH_TOKEN == null || Constants.AUTH_TOKEN.equals("")) throw new AuthTokenNotFoundException("You have not set an auth token for TBA-API-V3. Please set it with TBA.setAuthToken(String token).");
+        ResponseCache cache = IO.cache;
+        if(cache != null) {
+            if(cache.isMissing(targetURL)) return null;
+            Object cached = cache.get(targetURL);
+            if(cached != null) return cached;
+        }
+        Object response = request(targetURL);
+        if(response == NOT_FOUND) {
+            if(cache != null) cache.putMissing(targetURL);
+            return null;
+        }
+        if(cache != null) cache.put(targetURL, response);
+        return response;
+    }
 
+    /**
+     * Requests and parses, bypassing the cache
+     */
+    static Object fetch(String targetURL) {
+        Object response = request(targetURL);
+        return response == NOT_FOUND ? null : response;
+    }
+
+    /**
+     * @return the parsed response, NOT_FOUND, or null if the request failed
+     */
+    private static Object request(String targetURL) {
         HttpURLConnection connection = null;
         try {
-            URL url = new URL( Constants.URL + targetURL);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "TBA-API-V3");
-            connection.setRequestProperty("X-TBA-Auth-Key", Constants.AUTH_TOKEN);
-            connection.setRequestProperty("Content-SortingType", "application/x-www-form-urlencoded");
-            connection.setRequestProperty("charset", "utf-8");
-            connection.setUseCaches(false);
-
+            connection = open(targetURL);
+            if(connection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) return NOT_FOUND;
             InputStream is = connection.getInputStream();
             BufferedReader rd = new BufferedReader(new InputStreamReader(is));
             StringBuilder response = new StringBuilder();
@@ -42,7 +84,11 @@ public class IO {
                 response.append('\r');
             }
             rd.close();
-            return parser.parse(response.toString());
+            // JSONParser isn't thread safe, and cache refreshes run next to the caller's requests
+            Object parsed = new JSONParser().parse(response.toString());
+            return parsed == null ? NOT_FOUND : parsed;
+        } catch(AuthTokenNotFoundException e) {
+            throw e;
         } catch(Exception e) {
             // do nothing, should be handled somewhere else
         } finally {
@@ -50,4 +96,108 @@ public class IO {
         }
         return null;
     }
+
+    /**
+     * Parses the response while it's being read instead of building the whole JSON tree, see ArrayStreamHandler.
+     * @param targetURL the request, relative to Constants.URL
+     * @param handler receives the parse events
+     * @return false if the request failed or the response was null, like doRequest(String). The handler may already have received part
+     * of the response.
+     */
+    public static boolean doRequest(String targetURL, ContentHandler handler) {
+        HttpURLConnection connection = null;
+        try {
+            connection = open(targetURL);
+            NullCheck check = new NullCheck(handler);
+            try(Reader rd = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                new JSONParser().parse(rd, check);
+            }
+            return !check.nullBody;
+        } catch(RuntimeException e) {
+            // thrown by the handler, or a missing auth token
+            throw e;
+        } catch(Exception e) {
+            // do nothing, should be handled somewhere else
+        } finally {
+            if(connection != null) connection.disconnect();
+        }
+        return false;
+    }
+
+    /**
+     * Passes the parse events on, and notes a response that's just null
+     */
+    private static class NullCheck implements ContentHandler {
+        private final ContentHandler handler;
+        private int depth;
+        private boolean nullBody;
+
+        NullCheck(ContentHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startJSON() throws ParseException, IOException {
+            handler.startJSON();
+        }
+
+        @Override
+        public void endJSON() throws ParseException, IOException {
+            handler.endJSON();
+        }
+
+        @Override
+        public boolean startObject() throws ParseException, IOException {
+            depth++;
+            return handler.startObject();
+        }
+
+        @Override
+        public boolean endObject() throws ParseException, IOException {
+            depth--;
+            return handler.endObject();
+        }
+
+        @Override
+        public boolean startObjectEntry(String key) throws ParseException, IOException {
+            return handler.startObjectEntry(key);
+        }
+
+        @Override
+        public boolean endObjectEntry() throws ParseException, IOException {
+            return handler.endObjectEntry();
+        }
+
+        @Override
+        public boolean startArray() throws ParseException, IOException {
+            depth++;
+            return handler.startArray();
+        }
+
+        @Override
+        public boolean endArray() throws ParseException, IOException {
+            depth--;
+            return handler.endArray();
+        }
+
+        @Override
+        public boolean primitive(Object value) throws ParseException, IOException {
+            if(depth == 0 && value == null) nullBody = true;
+            return handler.primitive(value);
+        }
+    }
+
+    private static HttpURLConnection open(String targetURL) throws IOException {
+        if(Constants.AUTH_TOKEN == null || Constants.AUTH_TOKEN.equals("")) throw new AuthTokenNotFoundException("You have not set an auth token for TBA-API-V3. Please set it with TBA.setAuthToken(String token).");
+
+        URL url = new URL( Constants.URL + targetURL);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setRequestProperty("User-Agent", "TBA-API-V3");
+        connection.setRequestProperty("X-TBA-Auth-Key", Constants.AUTH_TOKEN);
+        connection.setRequestProperty("Content-SortingType", "application/x-www-form-urlencoded");
+        connection.setRequestProperty("charset", "utf-8");
+        connection.setUseCaches(false);
+        return connection;
+    }
 }
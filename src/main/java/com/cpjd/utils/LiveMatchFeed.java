@@ -0,0 +1,287 @@
+package com.cpjd.utils;
+
+import com.cpjd.models.matches.Match;
+import com.cpjd.utils.exceptions.DataNotFoundException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A live feed of the matches of one event that only reports what changed. Each poll() fetches /event/{event_key}/matches and
+ * compares every match to the last poll: matches that are new, or whose content changed (scores posted, actual_time or
+ * post_result_time set, a video added...), are delivered to the listeners and subscribers. Unchanged matches are skipped.
+ *
+ * Changes are found by hashing the raw JSON of each match while the response is streamed (see ArrayStreamHandler), so unchanged
+ * matches are never converted into Match objects.
+ *
+ * Delivery is through Listener callbacks on the polling thread, and/or Flow publishers from publisher(). Each subscriber has
+ * a bounded buffer that keeps the newest version of each pending match, so a slow subscriber gets the latest state of a match
+ * instead of every intermediate one. If more distinct matches are pending than the buffer holds, the oldest are dropped and counted
+ * in getDropped().
+ *
+ * Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class LiveMatchFeed {
+
+    public interface Listener {
+        /**
+         * @param match the new state of the match
+         * @param previous the match as of the previous poll, or null if the match is new
+         */
+        void onMatch(Match match, Match previous);
+    }
+
+    private final String eventKey;
+    private final Parser parser = new Parser();
+
+    private final HashMap<String, Long> hashes = new HashMap<>();
+    private final HashMap<String, Match> matches = new HashMap<>();
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    /**
+     * Kept for the feed, as subscriptions are removed when they end
+     */
+    private final AtomicLong dropped = new AtomicLong();
+    private ScheduledFuture<?> task;
+    private volatile boolean closed;
+
+    /**
+     * @param eventKey TBA Event Key, eg 2016nytr
+     */
+    public LiveMatchFeed(String eventKey) {
+        this.eventKey = eventKey;
+    }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Fetches the event's matches and delivers the ones that were added or changed since the last poll
+     * @return the added or changed matches, in the order returned by the server
+     * @throws DataNotFoundException if the request fails, the feed keeps its state so the next poll picks up where this one left off
+     */
+    public synchronized List<Match> poll() {
+        // only kept once the whole response has been read, so a failed poll leaves the state as it was
+        List<String> keys = new ArrayList<>();
+        List<Long> newHashes = new ArrayList<>();
+        List<Match> changed = new ArrayList<>();
+        List<Object> raw = new ArrayList<>();
+        ArrayStreamHandler handler = new ArrayStreamHandler(element -> {
+            if(!(element instanceof Map)) return;
+            Object key = ((Map<?, ?>) element).get("key");
+            if(!(key instanceof String)) return;
+            long hash = Utils.contentHash(element);
+            Long last = hashes.get(key);
+            if(last != null && last == hash) return;
+            keys.add((String) key);
+            newHashes.add(hash);
+            changed.add(parser.parseMatch(element));
+            raw.add(element);
+        });
+        boolean seen = !hashes.isEmpty();
+        if(!IO.doRequest("event/"+eventKey+"/matches", handler)) throw new DataNotFoundException("No matches found for event with key: "+eventKey);
+
+        List<Match> previous = new ArrayList<>();
+        for(int i = 0; i < keys.size(); i++) {
+            hashes.put(keys.get(i), newHashes.get(i));
+            previous.add(matches.put(keys.get(i), changed.get(i)));
+        }
+
+        // the feed reads past the cache, so let it know about new results. The changed matches hold the team keys of the
+        // per-team responses that went stale.
+        ResponseCache cache = IO.getCache();
+        if(cache != null && seen && !changed.isEmpty()) cache.changed("event/"+eventKey+"/matches", raw);
+
+        for(int i = 0; i < changed.size(); i++) {
+            for(Listener l : listeners) l.onMatch(changed.get(i), previous.get(i));
+            for(FeedSubscription s : subscriptions) s.offer(changed.get(i));
+        }
+        return changed;
+    }
+
+    /**
+     * @return the latest state of every match seen so far
+     */
+    public synchronized List<Match> getMatches() {
+        return new ArrayList<>(matches.values());
+    }
+
+    /**
+     * Polls on the executor until stop() or close(). Failed polls are ignored and retried on the next period.
+     * @param executor runs the polls
+     * @param period the time between polls
+     * @param unit the unit of period
+     */
+    public synchronized void start(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        if(closed) throw new IllegalStateException("The feed for "+eventKey+" is closed");
+        if(task != null) task.cancel(false);
+        task = executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch(DataNotFoundException e) {
+                // no matches yet, or a network blip
+            }
+        }, 0, period, unit);
+    }
+
+    /**
+     * Stops scheduled polling, the feed can be started again
+     */
+    public synchronized void stop() {
+        if(task != null) task.cancel(false);
+        task = null;
+    }
+
+    /**
+     * Stops polling and completes every subscriber once it has received its pending matches
+     */
+    public void close() {
+        stop();
+        closed = true;
+        for(FeedSubscription s : subscriptions) s.complete();
+    }
+
+    /*
+     * Publishing
+     */
+
+    /**
+     * @param capacity the most matches buffered per subscriber
+     * @return a publisher of every added or changed match from now on
+     */
+    public Flow.Publisher<Match> publisher(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        return subscriber -> {
+            FeedSubscription s = new FeedSubscription(subscriber, capacity);
+            subscriptions.add(s);
+            subscriber.onSubscribe(s);
+            if(closed) s.complete();
+        };
+    }
+
+    /**
+     * @return the number of matches dropped from full subscriber buffers, including those of subscriptions that have ended
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private class FeedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Match> subscriber;
+        private final int capacity;
+        private final LinkedHashMap<String, Match> pending = new LinkedHashMap<>();
+        /**
+         * Makes sure only one thread delivers at a time, and that requests made from inside onNext() don't recurse
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private long demand;
+        private boolean cancelled, completed, terminated;
+        private Throwable error;
+
+        FeedSubscription(Flow.Subscriber<? super Match> subscriber, int capacity) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+        }
+
+        void offer(Match match) {
+            synchronized(this) {
+                if(cancelled || completed) return;
+                // keep only the newest version, and move it to the back
+                pending.remove(match.getKey());
+                if(pending.size() == capacity) {
+                    Iterator<String> oldest = pending.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.incrementAndGet();
+                }
+                pending.put(match.getKey(), match);
+            }
+            drain();
+        }
+
+        void complete() {
+            synchronized(this) {
+                completed = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized(this) {
+                if(cancelled) return;
+                if(n <= 0) {
+                    error = new IllegalArgumentException("Requested "+n+" items, must be positive");
+                    pending.clear();
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized(this) {
+                cancelled = true;
+                pending.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void drain() {
+            if(wip.getAndIncrement() != 0) return;
+            do {
+                while(true) {
+                    Match next = null;
+                    Throwable toSend = null;
+                    boolean done = false;
+                    synchronized(this) {
+                        if(cancelled || terminated) break;
+                        if(error != null) {
+                            toSend = error;
+                            terminated = true;
+                        } else if(demand > 0 && !pending.isEmpty()) {
+                            Iterator<Match> it = pending.values().iterator();
+                            next = it.next();
+                            it.remove();
+                            if(demand != Long.MAX_VALUE) demand--;
+                        } else if(completed && pending.isEmpty()) {
+                            done = true;
+                            terminated = true;
+                        } else break;
+                    }
+                    if(toSend != null) {
+                        subscriptions.remove(this);
+                        subscriber.onError(toSend);
+                    } else if(done) {
+                        subscriptions.remove(this);
+                        subscriber.onComplete();
+                    } else subscriber.onNext(next);
+                }
+            } while(wip.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.cpjd.utils;
+
+import com.cpjd.models.events.Award;
+import com.cpjd.models.matches.MatchTable;
+import com.cpjd.models.matches.SMatch;
+
+/**
+ * Receives models as they're parsed from server responses, so local indexes and caches can stay up to date
+ * with whatever data passes through the com.cpjd.requests classes. Register with Parser.addListener().
+ *
+ * Listeners are called on the thread that made the request, so they should be quick and thread safe.
+ *
+ * @since 1.0.1
+ */
+public interface ModelListener {
+
+    /**
+     * Called for every Match or SMatch parsed
+     */
+    default void onMatch(SMatch match) {}
+
+    /**
+     * Called for every MatchTable parsed
+     */
+    default void onMatchTable(MatchTable table) {}
+
+    /**
+     * Called for every Award parsed
+     */
+    default void onAward(Award award) {}
+
+    /**
+     * Called when the teams attending an event are fetched
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param teamKeys the team keys, eg frc254
+     */
+    default void onEventTeams(String eventKey, String[] teamKeys) {}
+
+}
@@ -0,0 +1,156 @@
+package com.cpjd.utils;
+
+import com.cpjd.utils.exceptions.DataNotFoundException;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Publishes the models of one or more list requests as they're parsed from the response, see ArrayStreamHandler.
+ *
+ * Each subscription downloads and parses on a thread of the executor, so downstream processing overlaps with the download.
+ * Demand is respected by pausing the parser: while the subscriber hasn't requested more items the response isn't read any
+ * further, so a slow subscriber holds back the download instead of buffering it. Requests are made one after another, in order.
+ * Items arrive in the order returned by the server, they aren't sorted.
+ *
+ * If a request fails the subscriber gets a DataNotFoundException, after any items that had already been parsed.
+ *
+ * @since 1.0.1
+ */
+public class ModelPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Daemon threads created as needed, so blocking downloads don't tie up the common pool
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "TBA-API-V3 publisher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String[] urls;
+    private final String key;
+    private final Function<Object, ? extends T> parser;
+    private final Executor executor;
+
+    /**
+     * @param urls the requests, relative to Constants.URL
+     * @param key the key of the array in the top level object, or null if the response is an array
+     * @param parser converts each element to a model, eg one of the Parser methods
+     */
+    public ModelPublisher(String[] urls, String key, Function<Object, ? extends T> parser) {
+        this(urls, key, parser, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * @param urls the requests, relative to Constants.URL
+     * @param key the key of the array in the top level object, or null if the response is an array
+     * @param parser converts each element to a model, eg one of the Parser methods
+     * @param executor runs the download and parse of each subscription
+     */
+    public ModelPublisher(String[] urls, String key, Function<Object, ? extends T> parser, Executor executor) {
+        this.urls = urls.clone();
+        this.key = key;
+        this.parser = parser;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if(subscriber == null) throw new NullPointerException("subscriber");
+        StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription);
+    }
+
+    private class StreamSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Object lock = new Object();
+        private long demand;
+        private boolean cancelled;
+        private Throwable error;
+        private ArrayStreamHandler handler;
+
+        StreamSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized(lock) {
+                if(cancelled) return;
+                if(n <= 0) {
+                    error = new IllegalArgumentException("Requested "+n+" items, must be positive");
+                    cancelled = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized(lock) {
+                cancelled = true;
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for(String url : urls) {
+                    handler = new ArrayStreamHandler(key, this::emit);
+                    boolean found = IO.doRequest(url, handler);
+                    if(terminated()) return;
+                    if(!found) {
+                        subscriber.onError(new DataNotFoundException("No data found for request: "+url));
+                        return;
+                    }
+                }
+                subscriber.onComplete();
+            } catch(RuntimeException e) {
+                if(!terminated()) subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Waits for demand, then hands the element's model to the subscriber. Called on the parsing thread.
+         */
+        private void emit(Object element) {
+            synchronized(lock) {
+                while(demand == 0 && !cancelled) {
+                    try {
+                        lock.wait();
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        cancelled = true;
+                    }
+                }
+                if(cancelled) {
+                    handler.stop();
+                    return;
+                }
+                if(demand != Long.MAX_VALUE) demand--;
+            }
+            subscriber.onNext(parser.apply(element));
+        }
+
+        /**
+         * @return true if the stream was cancelled, after sending the error of a bad request() if there was one
+         */
+        private boolean terminated() {
+            Throwable toSend;
+            synchronized(lock) {
+                if(!cancelled) return false;
+                toSend = error;
+                error = null;
+            }
+            if(toSend != null) subscriber.onError(toSend);
+            return true;
+        }
+    }
+}
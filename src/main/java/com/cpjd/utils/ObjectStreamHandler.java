@@ -0,0 +1,122 @@
+package com.cpjd.utils;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+
+import java.util.ArrayDeque;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams the entries of the top level JSON object of a response while it's being parsed, so only one value is in memory at a time.
+ * Each value is built into the same JSONObject / JSONArray / primitive the tree parser would produce and handed to the consumer
+ * with its key. For responses keyed by team or match, eg /event/{event_key}/teams/statuses. Use with IO.doRequest(String, ContentHandler).
+ *
+ * The array counterpart is ArrayStreamHandler.
+ *
+ * @since 1.0.1
+ */
+public class ObjectStreamHandler implements ContentHandler {
+
+    private final BiConsumer<String, Object> consumer;
+
+    /**
+     * Number of containers currently open
+     */
+    private int depth;
+    private String entry;
+    private int count;
+    private volatile boolean stopped;
+
+    private final ArrayDeque<Object> containers = new ArrayDeque<>();
+    private final ArrayDeque<String> keys = new ArrayDeque<>();
+
+    /**
+     * @param consumer receives the key and value of each entry, values may be null
+     */
+    public ObjectStreamHandler(BiConsumer<String, Object> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Stops parsing at the next token, the rest of the response is skipped
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the number of entries handed to the consumer
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void startJSON() {}
+
+    @Override
+    public void endJSON() {}
+
+    @Override
+    public boolean startObject() {
+        depth++;
+        if(depth > 1) containers.push(new JSONObject());
+        return !stopped;
+    }
+
+    @Override
+    public boolean endObject() {
+        if(depth > 1) value(containers.pop());
+        depth--;
+        return !stopped;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+        if(depth == 1) entry = key;
+        else keys.push(key);
+        return !stopped;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        if(depth == 1) entry = null;
+        else keys.pop();
+        return !stopped;
+    }
+
+    @Override
+    public boolean startArray() {
+        depth++;
+        // a top level array isn't streamed, its elements are skipped
+        if(depth > 1) containers.push(new JSONArray());
+        return !stopped;
+    }
+
+    @Override
+    public boolean endArray() {
+        if(depth > 1) value(containers.pop());
+        depth--;
+        return !stopped;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+        if(depth > 0) value(value);
+        return !stopped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void value(Object value) {
+        if(containers.isEmpty()) {
+            if(entry == null) return;
+            count++;
+            consumer.accept(entry, value);
+            return;
+        }
+        Object parent = containers.peek();
+        if(parent instanceof JSONArray) ((JSONArray) parent).add(value);
+        else ((JSONObject) parent).put(keys.peek(), value);
+    }
+}
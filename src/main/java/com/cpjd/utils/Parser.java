@@ -1,18 +1,23 @@
 package com.cpjd.utils;
 
+import com.cpjd.main.TBA;
 import com.cpjd.models.APIStatus;
 import com.cpjd.models.districts.District;
 import com.cpjd.models.events.*;
 import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.MatchTable;
 import com.cpjd.models.teams.Robot;
 import com.cpjd.models.matches.SMatch;
 import com.cpjd.models.teams.STeam;
 import com.cpjd.models.matches.Match;
 import com.cpjd.models.teams.Team;
+import com.cpjd.models.teams.TeamEventStatus;
+import com.cpjd.sorting.Sortable;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Converts the data received from the server into the models found in models/
@@ -23,6 +28,64 @@ import java.util.HashMap;
  */
 public class Parser {
 
+    private static final CopyOnWriteArrayList<ModelListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener that receives models as they're parsed
+     * @param listener the listener to add
+     */
+    public static void addListener(ModelListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(ModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    protected static void notifyEventTeams(String eventKey, String[] teamKeys) {
+        for(ModelListener l : listeners) l.onEventTeams(eventKey, teamKeys);
+    }
+
+    /**
+     * If false, list results are returned in the order the server sent them instead of being sorted with TBA.sort()
+     */
+    private boolean sortResults = true;
+
+    /**
+     * Shared handlers (see share()) are used by every TBA and CTBA, so their settings can't change
+     */
+    private boolean shared;
+
+    public boolean isSortResults() {
+        return sortResults;
+    }
+
+    public void setSortResults(boolean sortResults) {
+        if(shared) throw new IllegalStateException("This handler is shared by every TBA and CTBA instance, create your own to change its settings");
+        this.sortResults = sortResults;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Fixes the settings of a handler so it can be shared between threads and facades, see com.cpjd.requests.Handlers
+     * @param handler a new handler
+     * @param sortResults whether the handler sorts list results
+     * @return the handler
+     */
+    public static <T extends Parser> T share(T handler, boolean sortResults) {
+        Parser parser = handler;
+        parser.sortResults = sortResults;
+        parser.shared = true;
+        return handler;
+    }
+
+    protected <T extends Sortable<?>> void sort(T[] array) {
+        if(sortResults) TBA.sort(array);
+    }
+
     protected APIStatus parseStatus(Object object) {
         APIStatus status = new APIStatus();
         HashMap hash = (HashMap) object;
@@ -230,9 +293,31 @@ public class Parser {
         Media[] medias = new Media[videos.size()];
         for(int i = 0; i < videos.size(); i++) medias[i] = parseMedia(videos.get(i));
         m.setVideos(medias);
+        for(ModelListener l : listeners) l.onMatch(m);
         return m;
     }
 
+    protected MatchTable parseMatchTable(Object object) {
+        JSONArray matches = (JSONArray) object;
+        if(matches == null) return null;
+
+        MatchTable table = new MatchTable(matches.size());
+        for(Object o : matches) {
+            JSONObject hash = (JSONObject) o;
+            int row = table.add((String)hash.get("key"), (String)hash.get("event_key"), (String)hash.get("comp_level"),
+                    Utils.cleanLong(hash.get("set_number")), Utils.cleanLong(hash.get("match_number")),
+                    Utils.cleanLong(hash.get("time")), Utils.cleanLong(hash.get("actual_time")));
+            JSONObject allies = (JSONObject) hash.get("alliances");
+            if(allies == null) continue;
+            JSONObject red = (JSONObject) allies.get("red");
+            JSONObject blue = (JSONObject) allies.get("blue");
+            if(red != null) table.setAlliance(row, false, Utils.cleanLong(red.get("score")), Utils.jsonArrayToStringArray((JSONArray) red.get("team_keys")));
+            if(blue != null) table.setAlliance(row, true, Utils.cleanLong(blue.get("score")), Utils.jsonArrayToStringArray((JSONArray) blue.get("team_keys")));
+        }
+        for(ModelListener l : listeners) l.onMatchTable(table);
+        return table;
+    }
+
     protected Alliance parseEventAlliance(Object object) {
         Alliance alliance = new Alliance();
         HashMap hash = (HashMap) object;
@@ -286,6 +371,66 @@ public class Parser {
         return ranking;
     }
 
+    /**
+     * @param object a team event status, see /team/{team_key}/event/{event_key}/status
+     * @param teamKey the team's key, statuses don't include it
+     */
+    protected TeamEventStatus parseTeamEventStatus(Object object, String teamKey) {
+        HashMap hash = (HashMap) object;
+        if(hash == null) return null;
+        TeamEventStatus status = new TeamEventStatus();
+
+        status.setTeamKey(teamKey);
+        JSONObject qual = (JSONObject) hash.get("qual");
+        if(qual != null) {
+            status.setQualNumTeams(Utils.cleanLong(qual.get("num_teams")));
+            status.setQualStatus((String) qual.get("status"));
+            if(qual.get("ranking") != null) status.setQualRanking(parseEventRanking(qual.get("ranking")));
+            JSONArray info = (JSONArray) qual.get("sort_order_info");
+            if(info != null) {
+                String[] names = new String[info.size()];
+                for(int i = 0; i < names.length; i++) if(info.get(i) != null) names[i] = (String) ((JSONObject) info.get(i)).get("name");
+                status.setSortOrderNames(names);
+            }
+        }
+        JSONObject alliance = (JSONObject) hash.get("alliance");
+        if(alliance != null) {
+            status.setAllianceName((String) alliance.get("name"));
+            status.setAllianceNumber(Utils.cleanLong(alliance.get("number")));
+            status.setAlliancePick(Utils.cleanLong(alliance.get("pick")));
+            JSONObject backup = (JSONObject) alliance.get("backup");
+            if(backup != null) {
+                status.setAllianceBackupIn((String) backup.get("in"));
+                status.setAllianceBackupOut((String) backup.get("out"));
+            }
+        }
+        JSONObject playoff = (JSONObject) hash.get("playoff");
+        if(playoff != null) {
+            status.setPlayoffLevel((String) playoff.get("level"));
+            status.setPlayoffStatus((String) playoff.get("status"));
+            Object average = playoff.get("playoff_average");
+            if(average instanceof Number) status.setPlayoffAverage(((Number) average).doubleValue());
+            JSONObject record = (JSONObject) playoff.get("record");
+            if(record != null) {
+                status.setPlayoffRecordWins(Utils.cleanLong(record.get("wins")));
+                status.setPlayoffRecordLosses(Utils.cleanLong(record.get("losses")));
+                status.setPlayoffRecordTies(Utils.cleanLong(record.get("ties")));
+            }
+            JSONObject current = (JSONObject) playoff.get("current_level_record");
+            if(current != null) {
+                status.setCurrentLevelRecordWins(Utils.cleanLong(current.get("wins")));
+                status.setCurrentLevelRecordLosses(Utils.cleanLong(current.get("losses")));
+                status.setCurrentLevelRecordTies(Utils.cleanLong(current.get("ties")));
+            }
+        }
+        status.setAllianceStatusString((String) hash.get("alliance_status_str"));
+        status.setPlayoffStatusString((String) hash.get("playoff_status_str"));
+        status.setOverallStatusString((String) hash.get("overall_status_str"));
+        status.setNextMatchKey((String) hash.get("next_match_key"));
+        status.setLastMatchKey((String) hash.get("last_match_key"));
+        return status;
+    }
+
     protected SMatch parseSMatch(Object object) {
         SMatch m = new SMatch();
         HashMap hash = (HashMap) object;
@@ -319,6 +464,7 @@ public class Parser {
             m.setRed(redAlly);
             m.setBlue(blueAlly);
         }
+        for(ModelListener l : listeners) l.onMatch(m);
         return m;
     }
 
@@ -341,6 +487,7 @@ public class Parser {
             recipientsList[i] = ar;
         }
         a.setRecipients(recipientsList);
+        for(ModelListener l : listeners) l.onAward(a);
         return a;
     }
 
@@ -0,0 +1,181 @@
+package com.cpjd.utils;
+
+import org.json.simple.JSONArray;
+
+import java.util.Arrays;
+
+/**
+ * A compact index of which years each team competed in, so requests for a team's data in a year it didn't compete in are answered
+ * without going to the network, see ResponseCache.setParticipation(). The team-years are kept in a Bloom filter, about 1.2 bytes per
+ * team-year at a 1% false positive rate, instead of a set of boxed keys.
+ *
+ * A team is only known once its years have been added, from a /team/{team_key}/years_participated response going through the cache or
+ * with add(), eg with TBA.getYearsParticipated(). For a known team, cannotHaveData() is true for a year the filter has definitely not seen,
+ * that's no later than the last year listed for the team (it may still register for later seasons). False positives only mean
+ * the request goes to the network as usual.
+ *
+ * Requests covered are the team endpoints with a year or an event key that return lists: /team/{team_key}/events/{year},
+ * /team/{team_key}/matches/{year}, /team/{team_key}/awards/{year}, /team/{team_key}/media/{year},
+ * /team/{team_key}/event/{event_key}/matches and /team/{team_key}/event/{event_key}/awards, with their /simple and /keys variants.
+ *
+ * Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class ParticipationIndex {
+
+    /**
+     * Team numbers are indexed directly, anything larger isn't a team
+     */
+    private static final int MAX_NUMBER = 100000;
+
+    private final long[] bits;
+    private final int hashes;
+    /**
+     * The last year listed for each team number, 0 if the team isn't known
+     */
+    private short[] lastYears = new short[0];
+    private int size;
+
+    /**
+     * Sized for every team-year so far, about 120KB
+     */
+    public ParticipationIndex() {
+        this(100000, 0.01);
+    }
+
+    /**
+     * @param expected the number of team-years that will be added
+     * @param falsePositives the chance that a year a team didn't compete in isn't recognized, eg 0.01
+     */
+    public ParticipationIndex(int expected, double falsePositives) {
+        long m = (long) Math.ceil(-Math.max(expected, 1) * Math.log(falsePositives) / (Math.log(2) * Math.log(2)));
+        bits = new long[(int) Math.max(1, (m + 63) / 64)];
+        hashes = Math.max(1, (int) Math.round((double) bits.length * 64 / Math.max(expected, 1) * Math.log(2)));
+    }
+
+    /**
+     * @param number the team's frc number
+     * @param years every year the team competed in, see TBA.getYearsParticipated()
+     */
+    public synchronized void add(int number, long[] years) {
+        if(number <= 0 || number >= MAX_NUMBER) return;
+        long last = 0;
+        for(long year : years) {
+            probe(number, year, true);
+            last = Math.max(last, year);
+        }
+        if(last <= 0 || last > Short.MAX_VALUE) return;
+        if(number >= lastYears.length) lastYears = Arrays.copyOf(lastYears, Math.max(number + 1, lastYears.length * 2));
+        if(lastYears[number] == 0) size++;
+        lastYears[number] = (short) Math.max(lastYears[number], last);
+    }
+
+    /**
+     * @return true if the team's years have been added
+     */
+    public synchronized boolean isKnown(int number) {
+        return number > 0 && number < lastYears.length && lastYears[number] != 0;
+    }
+
+    /**
+     * @return the number of teams whose years have been added
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the team is known and definitely didn't compete in the year
+     */
+    public synchronized boolean cannotHaveData(int number, long year) {
+        return isKnown(number) && year <= lastYears[number] && !probe(number, year, false);
+    }
+
+    /**
+     * @param url a request, relative to Constants.URL
+     * @return true if it's one of the covered team requests and the team didn't compete in its year
+     */
+    public boolean cannotHaveData(String url) {
+        String[] segments = url.split("/");
+        if(segments.length < 4 || !segments[0].equals("team") || !segments[1].startsWith("frc")) return false;
+        int number;
+        try {
+            number = Integer.parseInt(segments[1].substring(3));
+        } catch(NumberFormatException e) {
+            return false;
+        }
+        String year;
+        switch(segments[2]) {
+            case "events": case "matches": case "awards": case "media":
+                if(!isList(segments, 4)) return false;
+                year = segments[3];
+                break;
+            case "event":
+                if(segments.length < 5 || !(segments[4].equals("matches") || segments[4].equals("awards")) || !isList(segments, 5)) return false;
+                year = segments[3];
+                break;
+            default:
+                return false;
+        }
+        if(year.length() < 4 || !isDigits(year.substring(0, 4))) return false;
+        return cannotHaveData(number, Long.parseLong(year.substring(0, 4)));
+    }
+
+    /**
+     * Adds the years of a /team/{team_key}/years_participated response
+     */
+    void learn(String url, Object response) {
+        if(!url.startsWith("team/frc") || !url.endsWith("/years_participated") || !(response instanceof JSONArray)) return;
+        int number;
+        try {
+            number = Integer.parseInt(url.substring("team/frc".length(), url.length() - "/years_participated".length()));
+        } catch(NumberFormatException e) {
+            return;
+        }
+        JSONArray array = (JSONArray) response;
+        long[] years = new long[array.size()];
+        for(int i = 0; i < years.length; i++) {
+            if(!(array.get(i) instanceof Number)) return;
+            years[i] = ((Number) array.get(i)).longValue();
+        }
+        add(number, years);
+    }
+
+    /**
+     * @param set true to add the team-year, false to only test it
+     * @return true if the team-year may be in the filter
+     */
+    private boolean probe(int number, long year, boolean set) {
+        // double hashing, see Kirsch and Mitzenmacher
+        long h1 = mix(number * 10000L + year);
+        long h2 = mix(h1) | 1;
+        long m = (long) bits.length * 64;
+        boolean present = true;
+        for(int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, m);
+            if(set) bits[(int) (bit >>> 6)] |= 1L << bit;
+            else if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) present = false;
+        }
+        return present;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * @param length the number of segments of the full endpoint
+     * @return true if the segments are the endpoint itself or its /simple or /keys variant, not something below it
+     */
+    private static boolean isList(String[] segments, int length) {
+        return segments.length == length || segments.length == length + 1 && (segments[length].equals("simple") || segments[length].equals("keys"));
+    }
+
+    private static boolean isDigits(String s) {
+        for(int i = 0; i < s.length(); i++) if(!Character.isDigit(s.charAt(i))) return false;
+        return true;
+    }
+}
@@ -0,0 +1,376 @@
+package com.cpjd.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches the requests that usually follow a request before they're made, so they're answered from the cache. Install one with
+ * ResponseCache.setPrefetcher(); every request that goes through the cache is then reported to it. Rules go between URL templates
+ * (see CacheDependencies for the variables), eg after getEvent() the matches, rankings, OPRs and teams of the event are usually requested:
+ *
+ * event/{event_key} -> event/{event_key}/matches, event/{event_key}/rankings, event/{event_key}/oprs, event/{event_key}/teams
+ *
+ * Rules are added with add(), and with setLearning() they are also learned from the requests: when a request is followed within the
+ * window by a request the first one's variables fully determine, eg event/2016nytr by event/2016nytr/oprs, the pair is counted, and it
+ * becomes a rule once it's been seen getMinSupport() times and follows at least getMinConfidence() of the first request's occurrences.
+ *
+ * Prefetches are speculative, so they stay out of the way of the caller's requests: they run one at a time on a minimum priority
+ * daemon thread, requests that are already cached fresh or queued are skipped, and at most getBudget() are issued per minute, the rest
+ * are dropped. Whether they paid off is in getUsed() and getHitRate().
+ *
+ * Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class Prefetcher {
+
+    /**
+     * One thread, so prefetches never run side by side
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "TBA-API-V3 prefetch");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /**
+     * Prefetched responses that haven't been requested yet are only tracked up to this many, the oldest are forgotten
+     */
+    private static final int MAX_TRACKED = 4096;
+
+    private static class Rule {
+        final UrlTemplate trigger;
+        final UrlTemplate followOn;
+
+        Rule(String trigger, String followOn) {
+            this.trigger = new UrlTemplate(trigger);
+            this.followOn = new UrlTemplate(followOn);
+        }
+    }
+
+    /**
+     * A request in the learning window
+     */
+    private static class Recent {
+        final String url;
+        final UrlTemplate template;
+        final Map<String, String> bindings;
+        final long time;
+        /**
+         * The follow-on templates already counted for this request, so each counts once per occurrence
+         */
+        final Set<UrlTemplate> counted = new HashSet<>();
+
+        Recent(String url, UrlTemplate template, long time) {
+            this.url = url;
+            this.template = template;
+            this.bindings = template.match(url);
+            this.time = time;
+        }
+    }
+
+    private final ArrayList<Rule> rules = new ArrayList<>();
+
+    private boolean learning;
+    private long window = 5000;
+    private int minSupport = 3;
+    private double minConfidence = 0.5;
+    private final ArrayDeque<Recent> recent = new ArrayDeque<>();
+    private final HashMap<UrlTemplate, Integer> occurrences = new HashMap<>();
+    private final HashMap<UrlTemplate, HashMap<UrlTemplate, Integer>> pairs = new HashMap<>();
+
+    private int budget = 60;
+    private long budgetStart;
+    private int budgetUsed;
+    private Executor executor = DEFAULT_EXECUTOR;
+
+    /**
+     * Prefetched requests, queued or done, that haven't been requested yet
+     */
+    private final LinkedHashMap<String, Boolean> prefetched = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TRACKED;
+        }
+    };
+    private final HashSet<String> queued = new HashSet<>();
+
+    private long issued;
+    private long completed;
+    private long failed;
+    private long used;
+    private long overBudget;
+
+    /**
+     * @return a prefetcher with the follow-ons of getEvent(): its matches, rankings, OPRs and teams
+     */
+    public static Prefetcher defaults() {
+        Prefetcher p = new Prefetcher();
+        p.add("event/{event_key}",
+                "event/{event_key}/matches",
+                "event/{event_key}/rankings",
+                "event/{event_key}/oprs",
+                "event/{event_key}/teams");
+        return p;
+    }
+
+    /**
+     * @param trigger a URL template, eg event/{event_key}
+     * @param followOns URL templates to prefetch after a request matching the trigger. Their variables must all be bound by the trigger.
+     */
+    public synchronized void add(String trigger, String... followOns) {
+        for(String followOn : followOns) rules.add(new Rule(trigger, followOn));
+    }
+
+    public synchronized boolean isLearning() {
+        return learning;
+    }
+
+    /**
+     * @param learning true to also prefetch the follow-ons learned from the requests
+     */
+    public synchronized void setLearning(boolean learning) {
+        this.learning = learning;
+    }
+
+    public synchronized long getWindow() {
+        return window;
+    }
+
+    /**
+     * @param window how long after a request, in milliseconds, another request counts as its follow-on, default 5 seconds
+     */
+    public synchronized void setWindow(long window) {
+        this.window = window;
+    }
+
+    public synchronized int getMinSupport() {
+        return minSupport;
+    }
+
+    /**
+     * @param minSupport how many times a follow-on has to be seen before it's learned, default 3
+     */
+    public synchronized void setMinSupport(int minSupport) {
+        this.minSupport = minSupport;
+    }
+
+    public synchronized double getMinConfidence() {
+        return minConfidence;
+    }
+
+    /**
+     * @param minConfidence the fraction of a request's occurrences a follow-on has to follow before it's learned, default 0.5
+     */
+    public synchronized void setMinConfidence(double minConfidence) {
+        this.minConfidence = minConfidence;
+    }
+
+    public synchronized int getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param budget the most prefetches to issue per minute, default 60
+     */
+    public synchronized void setBudget(int budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param executor runs the prefetches, by default one at a time on a minimum priority daemon thread
+     */
+    public synchronized void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the learned rules as trigger template -> follow-on templates
+     */
+    public synchronized Map<String, List<String>> getLearned() {
+        Map<String, List<String>> learned = new LinkedHashMap<>();
+        for(UrlTemplate trigger : pairs.keySet()) {
+            List<String> followOns = new ArrayList<>();
+            for(UrlTemplate followOn : learned(trigger)) followOns.add(followOn.toString());
+            if(!followOns.isEmpty()) learned.put(trigger.toString(), followOns);
+        }
+        return learned;
+    }
+
+    /**
+     * Called by the cache for every request
+     * @param url the request, relative to Constants.URL
+     * @param hit true if the cache answered it
+     * @param cache the cache the prefetched responses go to
+     */
+    void requested(String url, boolean hit, ResponseCache cache) {
+        List<String> followOns;
+        Executor executor;
+        synchronized(this) {
+            if(prefetched.remove(url) != null && hit) used++;
+            long now = System.currentTimeMillis();
+            if(learning) learn(url, now);
+            followOns = followOns(url);
+            for(Iterator<String> i = followOns.iterator(); i.hasNext(); ) {
+                String followOn = i.next();
+                if(queued.contains(followOn) || cache.isFresh(followOn)) {
+                    i.remove();
+                    continue;
+                }
+                if(now - budgetStart >= 60000) {
+                    budgetStart = now;
+                    budgetUsed = 0;
+                }
+                if(budgetUsed >= budget) {
+                    overBudget++;
+                    i.remove();
+                    continue;
+                }
+                budgetUsed++;
+                issued++;
+                queued.add(followOn);
+            }
+            executor = this.executor;
+        }
+        for(String followOn : followOns) {
+            try {
+                executor.execute(() -> prefetch(followOn, cache));
+            } catch(RuntimeException e) {
+                // rejected by the executor
+                synchronized(this) {
+                    queued.remove(followOn);
+                    failed++;
+                }
+            }
+        }
+    }
+
+    private void prefetch(String url, ResponseCache cache) {
+        // the caller may have requested it while this was queued
+        boolean skip = cache.isFresh(url);
+        Object value = null;
+        try {
+            if(!skip) value = IO.fetch(url);
+        } catch(RuntimeException e) {
+            // counted as failed below
+        }
+        if(value != null) cache.put(url, value);
+        synchronized(this) {
+            queued.remove(url);
+            if(skip) return;
+            if(value == null) {
+                failed++;
+                return;
+            }
+            completed++;
+            prefetched.put(url, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return the requests to prefetch after the url, from the rules and what's been learned
+     */
+    private List<String> followOns(String url) {
+        LinkedHashSet<String> urls = new LinkedHashSet<>();
+        for(Rule rule : rules) {
+            Map<String, String> bindings = rule.trigger.match(url);
+            if(bindings != null && rule.followOn.canFill(bindings, false)) urls.add(rule.followOn.fill(bindings, null));
+        }
+        if(learning) {
+            UrlTemplate template = UrlTemplate.of(url);
+            Map<String, String> bindings = template.match(url);
+            for(UrlTemplate followOn : learned(template)) urls.add(followOn.fill(bindings, null));
+        }
+        urls.remove(url);
+        return new ArrayList<>(urls);
+    }
+
+    /*
+     * Learning
+     */
+
+    private void learn(String url, long now) {
+        while(!recent.isEmpty() && now - recent.peekFirst().time > window) recent.pollFirst();
+
+        UrlTemplate template = UrlTemplate.of(url);
+        for(Recent r : recent) {
+            if(r.url.equals(url) || r.counted.contains(template)) continue;
+            // only follow-ons the earlier request fully determines can be prefetched
+            if(!template.canFill(r.bindings, false) || !template.fill(r.bindings, null).equals(url)) continue;
+            r.counted.add(template);
+            pairs.computeIfAbsent(r.template, k -> new HashMap<>()).merge(template, 1, Integer::sum);
+        }
+        occurrences.merge(template, 1, Integer::sum);
+        recent.addLast(new Recent(url, template, now));
+    }
+
+    private List<UrlTemplate> learned(UrlTemplate trigger) {
+        List<UrlTemplate> learned = new ArrayList<>();
+        HashMap<UrlTemplate, Integer> followOns = pairs.get(trigger);
+        if(followOns == null) return learned;
+        int total = occurrences.getOrDefault(trigger, 0);
+        for(Map.Entry<UrlTemplate, Integer> e : followOns.entrySet()) {
+            int count = e.getValue();
+            if(count >= minSupport && count >= minConfidence * total) learned.add(e.getKey());
+        }
+        return learned;
+    }
+
+    /*
+     * Accounting
+     */
+
+    /**
+     * @return the number of prefetches issued, including ones that found the request cached by the time they ran
+     */
+    public synchronized long getIssued() {
+        return issued;
+    }
+
+    /**
+     * @return the number of prefetches that stored a response in the cache
+     */
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the number of prefetches that got no response
+     */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of prefetched responses that were requested and answered from the cache
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * @return the number of prefetches dropped because the budget ran out
+     */
+    public synchronized long getOverBudget() {
+        return overBudget;
+    }
+
+    /**
+     * @return the fraction of completed prefetches that were used, 0 if none completed
+     */
+    public synchronized double getHitRate() {
+        return completed == 0 ? 0 : (double) used / completed;
+    }
+}
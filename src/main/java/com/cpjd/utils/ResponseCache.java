@@ -0,0 +1,547 @@
+package com.cpjd.utils;
+
+import com.cpjd.requests.FetchPlanner.Kind;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps parsed responses in memory so repeated requests don't go to the network. Install one with TBA.setCache(); IO.doRequest(String)
+ * then answers from it while an entry is fresh, and stores what it fetches.
+ *
+ * The cache knows the model hierarchy of the endpoints: a /simple or /keys variant is derived locally from a fresh response of a richer
+ * variant of the same endpoint. After event/{event_key}/matches, both event/{event_key}/matches/simple (each match reduced to the
+ * fields of the simple model) and event/{event_key}/matches/keys are answered without a request, and the same goes for teams and events.
+ * Derived responses are stored with the expiry of the response they came from.
+ *
+ * With setMaxStale(), the cache serves stale-while-revalidate: an expired response that's no older than the staleness ceiling is returned
+ * immediately, and a single background refresh per request runs through IO on the refresh executor. Readers never wait on the
+ * network until a response is older than the ceiling. If a refresh fails the stale response keeps being served, up to the ceiling.
+ *
+ * Responses stay fresh for the TTL, or for as long as the CachePolicy set with setPolicy() says, eg SeasonPolicy to keep
+ * historical data forever.
+ *
+ * With setDependencies(), a response that comes back with different content invalidates the cached responses that depend on it
+ * (see CacheDependencies), or refreshes them in the background with setRefreshDependents(). Changes detected elsewhere, eg by a
+ * LiveMatchFeed, are reported with changed().
+ *
+ * With setNegativeTtl(), requests the server has no data for (a 404 or a null response) are remembered for that long and answered with
+ * null without a request, and empty lists and objects are kept no longer than that, unless the policy keeps them forever. With
+ * setParticipation(), team requests for a year the team didn't compete in are answered with an empty list, see ParticipationIndex.
+ *
+ * With setPrefetcher(), every request is reported to a Prefetcher, which fetches the requests that usually follow it into the cache.
+ *
+ * Cached values are shared between callers and must not be modified. Thread safe.
+ *
+ * @since 1.0.1
+ */
+public class ResponseCache {
+
+    private static final String SIMPLE = "/simple";
+    private static final String KEYS = "/keys";
+
+    /**
+     * Daemon threads created as needed, so a slow refresh doesn't hold up the others
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "TBA-API-V3 cache refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static class Entry {
+        final Object value;
+        final long expires;
+        /**
+         * Utils.contentHash() of the value, only computed when there are dependencies
+         */
+        final long hash;
+
+        Entry(Object value, long expires, long hash) {
+            this.value = value;
+            this.expires = expires;
+            this.hash = hash;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long ttl;
+    /**
+     * Overrides ttl when set
+     */
+    private volatile CachePolicy policy;
+
+    /**
+     * How long after expiring a response may still be served while it's refreshed, 0 to never serve stale responses
+     */
+    private volatile long maxStale;
+    private volatile Executor executor = DEFAULT_EXECUTOR;
+    /**
+     * Requests with a refresh running, so each is only refreshed once at a time
+     */
+    private final ConcurrentHashMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    private volatile CacheDependencies dependencies;
+    private volatile boolean refreshDependents;
+    private volatile Prefetcher prefetcher;
+
+    /**
+     * Expiry times of the requests the server had no data for
+     */
+    private final ConcurrentHashMap<String, Long> missing = new ConcurrentHashMap<>();
+    private volatile long negativeTtl;
+    private volatile ParticipationIndex participation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong derived = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong shortCircuits = new AtomicLong();
+
+    /**
+     * @param ttl how long responses stay fresh, in milliseconds
+     */
+    public ResponseCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param policy decides the TTL of each response, or null to use getTtl() for every response
+     */
+    public void setPolicy(CachePolicy policy) {
+        this.policy = policy;
+    }
+
+    public long getMaxStale() {
+        return maxStale;
+    }
+
+    /**
+     * Turns on stale-while-revalidate
+     * @param maxStale how long after expiring a response may still be served while it's refreshed in the background,
+     *                 in milliseconds, 0 to turn it off (the default)
+     */
+    public void setMaxStale(long maxStale) {
+        this.maxStale = maxStale;
+    }
+
+    /**
+     * @param executor runs the background refreshes
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public CacheDependencies getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * @param dependencies the dependencies between endpoints, eg CacheDependencies.defaults(), or null to only replace the changed response
+     */
+    public void setDependencies(CacheDependencies dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public boolean isRefreshDependents() {
+        return refreshDependents;
+    }
+
+    /**
+     * @param refreshDependents true to refresh the dependents of a changed response in the background instead of dropping them. They keep
+     *                          being served until their refresh completes.
+     */
+    public void setRefreshDependents(boolean refreshDependents) {
+        this.refreshDependents = refreshDependents;
+    }
+
+    public long getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Turns on negative caching
+     * @param negativeTtl how long to remember that a request has no data, and the most to keep an empty response, in milliseconds,
+     *                    eg 30 seconds, 0 to turn it off (the default)
+     */
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+        if(negativeTtl <= 0) missing.clear();
+    }
+
+    public ParticipationIndex getParticipation() {
+        return participation;
+    }
+
+    /**
+     * @param participation answers team requests for years the team didn't compete in, and learns from the years_participated
+     *                      responses stored in this cache, or null to not use one
+     */
+    public void setParticipation(ParticipationIndex participation) {
+        this.participation = participation;
+    }
+
+    public Prefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * @param prefetcher fetches the follow-ons of each request into this cache, eg Prefetcher.defaults(), or null to not prefetch
+     */
+    public void setPrefetcher(Prefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * @param url the request, relative to Constants.URL
+     * @return the fresh response, derived from a richer variant if needed, or null
+     */
+    public Object get(String url) {
+        Object value = lookup(url);
+        Prefetcher prefetcher = this.prefetcher;
+        if(prefetcher != null) prefetcher.requested(url, value != null, this);
+        return value;
+    }
+
+    /**
+     * @return true if the request has a fresh stored response, without counting it as a hit
+     */
+    boolean isFresh(String url) {
+        return fresh(url, System.currentTimeMillis()) != null;
+    }
+
+    /**
+     * @param url the request, relative to Constants.URL
+     * @return true if the server recently had no data for the request, or for the request it's a /simple or /keys variant of
+     */
+    public boolean isMissing(String url) {
+        if(missing.isEmpty()) return false;
+        long now = System.currentTimeMillis();
+        boolean found = isMissing(url, now);
+        if(!found && url.endsWith(SIMPLE)) found = isMissing(url.substring(0, url.length() - SIMPLE.length()), now);
+        else if(!found && url.endsWith(KEYS)) {
+            String base = url.substring(0, url.length() - KEYS.length());
+            found = isMissing(base, now) || isMissing(base+SIMPLE, now);
+        }
+        if(found) negativeHits.incrementAndGet();
+        return found;
+    }
+
+    private boolean isMissing(String url, long now) {
+        Long expires = missing.get(url);
+        if(expires == null) return false;
+        if(now < expires) return true;
+        missing.remove(url, expires);
+        return false;
+    }
+
+    /**
+     * Remembers that the server has no data for a request, if negative caching is on
+     * @param url the request, relative to Constants.URL
+     */
+    public void putMissing(String url) {
+        long negativeTtl = this.negativeTtl;
+        if(negativeTtl <= 0) return;
+        entries.remove(url);
+        missing.put(url, System.currentTimeMillis() + negativeTtl);
+    }
+
+    private Object lookup(String url) {
+        ParticipationIndex participation = this.participation;
+        if(participation != null && participation.cannotHaveData(url)) {
+            shortCircuits.incrementAndGet();
+            // what the server answers, a new one each time as it isn't stored
+            return new JSONArray();
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(url);
+        if(entry != null && now < entry.expires) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+        Object value = derive(url, now);
+        if(value != null) {
+            derived.incrementAndGet();
+            return value;
+        }
+        if(entry != null && now - entry.expires < maxStale) {
+            staleHits.incrementAndGet();
+            refresh(url);
+            return entry.value;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Refetches the request in the background unless a refresh of it is already running
+     */
+    private void refresh(String url) {
+        if(refreshing.putIfAbsent(url, Boolean.TRUE) != null) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    Object value = IO.fetch(url);
+                    refreshes.incrementAndGet();
+                    if(value != null) put(url, value);
+                    else refreshFailures.incrementAndGet();
+                } catch(RuntimeException e) {
+                    refreshFailures.incrementAndGet();
+                } finally {
+                    refreshing.remove(url);
+                }
+            });
+        } catch(RuntimeException e) {
+            // rejected by the executor, the next read tries again
+            refreshing.remove(url);
+        }
+    }
+
+    /**
+     * @param url the request, relative to Constants.URL
+     * @param value the parsed response
+     */
+    public void put(String url, Object value) {
+        if(value == null) return;
+        CachePolicy policy = this.policy;
+        long ttl = policy == null ? this.ttl : policy.ttl(url, value);
+        long negativeTtl = this.negativeTtl;
+        if(negativeTtl > 0 && ttl != CachePolicy.FOREVER && isEmpty(value)) ttl = Math.min(ttl, negativeTtl);
+        ParticipationIndex participation = this.participation;
+        if(participation != null) participation.learn(url, value);
+        missing.remove(url);
+        if(ttl <= 0) return;
+        long now = System.currentTimeMillis();
+        CacheDependencies dependencies = this.dependencies;
+        long hash = dependencies == null ? 0 : Utils.contentHash(value);
+        Entry old = entries.put(url, new Entry(value, ttl > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl, hash));
+        if(old != null && dependencies != null && old.hash != hash) invalidateDependents(url, dependencies, old.value, value);
+    }
+
+    public void invalidate(String url) {
+        entries.remove(url);
+        missing.remove(url);
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof List && ((List<?>) value).isEmpty() || value instanceof Map && ((Map<?, ?>) value).isEmpty();
+    }
+
+    /**
+     * Reports that a request's response changed without going through the cache. The cached response and everything that depends on it are
+     * invalidated (or refreshed, see setRefreshDependents()).
+     * @param url the request, relative to Constants.URL
+     */
+    public void changed(String url) {
+        changed(url, null);
+    }
+
+    /**
+     * Same as changed(String), for when the new content is known. Dependents are found from the team keys in both the cached and the
+     * new content, so the per-team responses are invalidated even if the changed response was never cached.
+     * @param url the request, relative to Constants.URL
+     * @param response the new response, or the part of it that changed, eg the changed matches. It isn't stored.
+     */
+    public void changed(String url, Object response) {
+        missing.remove(url);
+        // the variants derived from the old response go in every case
+        if(entries.remove(url+SIMPLE) != null) invalidations.incrementAndGet();
+        if(entries.remove(url+KEYS) != null) invalidations.incrementAndGet();
+        Entry old = entries.get(url);
+        if(old != null && refreshDependents) {
+            // the refresh brings the new content, which refreshes the dependents when it's stored
+            refresh(url);
+            return;
+        }
+        if(old != null && entries.remove(url) != null) invalidations.incrementAndGet();
+        CacheDependencies dependencies = this.dependencies;
+        if(dependencies != null) invalidateDependents(url, dependencies, old == null ? null : old.value, response);
+    }
+
+    private void invalidateDependents(String url, CacheDependencies dependencies, Object oldValue, Object newValue) {
+        // the variants derived from the old response
+        if(entries.remove(url+SIMPLE) != null) invalidations.incrementAndGet();
+        if(entries.remove(url+KEYS) != null) invalidations.incrementAndGet();
+        for(String dependent : dependencies.dependents(url, oldValue, newValue)) {
+            missing.remove(dependent);
+            if(!entries.containsKey(dependent)) continue;
+            invalidations.incrementAndGet();
+            if(refreshDependents && !dependent.endsWith(SIMPLE) && !dependent.endsWith(KEYS)) refresh(dependent);
+            else entries.remove(dependent);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        missing.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of requests answered with a stored response
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests answered by deriving a /simple or /keys response from a richer one
+     */
+    public long getDerived() {
+        return derived.get();
+    }
+
+    /**
+     * @return the number of requests that had to go to the network
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of requests answered with an expired response while it was refreshed
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * @return the number of background refreshes that completed, including failed ones
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * @return the number of background refreshes that got no response
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * @return the number of cached responses dropped or refreshed because a response they depend on changed
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the number of requests answered with null because the server recently had no data for them
+     */
+    public long getNegativeHits() {
+        return negativeHits.get();
+    }
+
+    /**
+     * @return the number of requests answered with an empty list because the team didn't compete in the year
+     */
+    public long getShortCircuits() {
+        return shortCircuits.get();
+    }
+
+    /*
+     * Deriving
+     */
+
+    private Object derive(String url, long now) {
+        boolean keys = url.endsWith(KEYS);
+        if(!keys && !url.endsWith(SIMPLE)) return null;
+        String base = url.substring(0, url.length() - (keys ? KEYS : SIMPLE).length());
+        Kind kind = kindOf(base);
+        if(kind == null) return null;
+
+        // the full response, or for keys the simple one
+        Entry source = fresh(base, now);
+        if(source == null && keys) source = fresh(base+SIMPLE, now);
+        if(source == null) return null;
+
+        Object value;
+        if(source.value instanceof JSONArray) value = keys ? keys((JSONArray) source.value) : simple((JSONArray) source.value, kind);
+        else if(source.value instanceof JSONObject && !keys) value = simple((JSONObject) source.value, kind);
+        else return null;
+        if(value == null) return null;
+        // hashed like put() does, or the first put() of the url would look like a change
+        entries.put(url, new Entry(value, source.expires, dependencies == null ? 0 : Utils.contentHash(value)));
+        return value;
+    }
+
+    private Entry fresh(String url, long now) {
+        Entry entry = entries.get(url);
+        return entry != null && now < entry.expires ? entry : null;
+    }
+
+    /**
+     * @param base a full endpoint, eg team/frc254/matches/2017
+     * @return the kind of model it returns, from its last collection segment, or null if it has no simple / keys variants
+     */
+    static Kind kindOf(String base) {
+        Kind kind = null;
+        for(String segment : base.split("/")) {
+            switch(segment) {
+                case "team": case "teams": kind = Kind.TEAM; break;
+                case "event": case "events": kind = Kind.EVENT; break;
+                case "match": case "matches": kind = Kind.MATCH; break;
+                case "district": case "districts": case "awards": case "media": case "status": case "statuses": kind = null; break;
+                default:
+            }
+        }
+        return kind;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONArray keys(JSONArray models) {
+        JSONArray keys = new JSONArray();
+        for(Object o : models) {
+            if(!(o instanceof Map)) return null;
+            keys.add(((Map<?, ?>) o).get("key"));
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONArray simple(JSONArray models, Kind kind) {
+        JSONArray simple = new JSONArray();
+        for(Object o : models) {
+            if(!(o instanceof JSONObject)) return null;
+            simple.add(simple((JSONObject) o, kind));
+        }
+        return simple;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject simple(JSONObject model, Kind kind) {
+        JSONObject simple = new JSONObject();
+        for(Object e : model.entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) e;
+            if(kind.isSimpleField((String) entry.getKey())) simple.put(entry.getKey(), entry.getValue());
+        }
+        return simple;
+    }
+}
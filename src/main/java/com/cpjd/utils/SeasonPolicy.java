@@ -0,0 +1,123 @@
+package com.cpjd.utils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache policy that treats historical data as immutable. The year of a request is read from its URL: a year segment
+ * (events/2016, team/frc254/matches/2016), or the year prefix of an event, district or match key (event/2016nytr/matches,
+ * match/2016nytr_qm1, district/2016fim/rankings). Then:
+ *
+ * - a year before the current season is cached forever
+ * - a request scoped to an event that has finished is cached forever. An event counts as finished a day after its end_date,
+ *   so late score corrections are still picked up
+ * - any other request scoped to an event of the current season is live, and gets the short live TTL
+ * - everything else, including requests without a year, gets the default TTL
+ *
+ * The current season and the events' end dates are learned from the responses going through the cache: the status endpoint
+ * sets the current season, and every Event or SEvent (single or in a list) records its end date. The current season can also
+ * be set directly, eg from TBA.getStatus().getCurrentSeason(). Until it's known, only finished events are cached forever.
+ *
+ * @since 1.0.1
+ */
+public class SeasonPolicy implements CachePolicy {
+
+    private volatile long currentSeason;
+    private final long liveTtl;
+    private final long defaultTtl;
+
+    private final ConcurrentHashMap<String, LocalDate> endDates = new ConcurrentHashMap<>();
+
+    /**
+     * @param liveTtl milliseconds to keep requests about events of the current season that haven't finished, eg 30 seconds
+     * @param defaultTtl milliseconds to keep everything else that isn't historical, eg 10 minutes
+     */
+    public SeasonPolicy(long liveTtl, long defaultTtl) {
+        this.liveTtl = liveTtl;
+        this.defaultTtl = defaultTtl;
+    }
+
+    public long getCurrentSeason() {
+        return currentSeason;
+    }
+
+    /**
+     * @param currentSeason the current season, see APIStatus.getCurrentSeason()
+     */
+    public void setCurrentSeason(long currentSeason) {
+        this.currentSeason = currentSeason;
+    }
+
+    /**
+     * Records when an event ends, for events that weren't seen in a response
+     * @param eventKey TBA Event Key, eg 2016nytr
+     * @param endDate the event's end date, yyyy-mm-dd like Event.getEndDate()
+     */
+    public void setEndDate(String eventKey, String endDate) {
+        try {
+            endDates.put(eventKey, LocalDate.parse(endDate));
+        } catch(DateTimeParseException e) {
+            // not a date, the event is treated as live
+        }
+    }
+
+    @Override
+    public long ttl(String url, Object response) {
+        learn(url, response);
+
+        long year = 0;
+        String eventKey = null;
+        String[] segments = url.split("/");
+        for(int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if(segment.length() < 4 || !isDigits(segment, 4)) continue;
+            if(segment.length() == 4) {
+                year = Long.parseLong(segment);
+                continue;
+            }
+            // an event, district or match key
+            year = Long.parseLong(segment.substring(0, 4));
+            String previous = i == 0 ? "" : segments[i - 1];
+            if(previous.equals("event")) eventKey = segment;
+            else if(previous.equals("match") && segment.indexOf('_') != -1) eventKey = segment.substring(0, segment.indexOf('_'));
+        }
+
+        if(year != 0 && currentSeason != 0 && year < currentSeason) return FOREVER;
+        if(eventKey != null) {
+            LocalDate end = endDates.get(eventKey);
+            if(end != null && LocalDate.now().isAfter(end.plusDays(1))) return FOREVER;
+            if(year == 0 || currentSeason == 0 || year >= currentSeason) return liveTtl;
+        }
+        return defaultTtl;
+    }
+
+    /**
+     * Picks up the current season and event end dates
+     */
+    private void learn(String url, Object response) {
+        if(url.equals("status") && response instanceof Map) {
+            Object season = ((Map<?, ?>) response).get("current_season");
+            if(season instanceof Number) currentSeason = ((Number) season).longValue();
+        } else if(response instanceof Map) {
+            learnEvent((Map<?, ?>) response);
+        } else if(response instanceof Iterable) {
+            for(Object o : (Iterable<?>) response) {
+                if(!(o instanceof Map)) return;
+                learnEvent((Map<?, ?>) o);
+            }
+        }
+    }
+
+    private void learnEvent(Map<?, ?> event) {
+        Object key = event.get("key");
+        Object end = event.get("end_date");
+        if(key instanceof String && end instanceof String) setEndDate((String) key, (String) end);
+    }
+
+    private static boolean isDigits(String s, int count) {
+        for(int i = 0; i < count; i++) if(!Character.isDigit(s.charAt(i))) return false;
+        return true;
+    }
+}
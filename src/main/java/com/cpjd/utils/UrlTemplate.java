@@ -0,0 +1,122 @@
+package com.cpjd.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request URL with variables, eg event/{event_key}/matches. Used by CacheDependencies and Prefetcher.
+ *
+ * @since 1.0.1
+ */
+class UrlTemplate {
+
+    static final String EVENT_KEY = "{event_key}";
+    static final String TEAM_KEY = "{team_key}";
+    static final String MATCH_KEY = "{match_key}";
+    static final String YEAR = "{year}";
+
+    private final String template;
+    private final String[] segments;
+
+    UrlTemplate(String template) {
+        this.template = template;
+        this.segments = template.split("/");
+    }
+
+    /**
+     * Replaces the keys and years of a URL with variables, eg team/frc254/event/2016nytr/matches becomes
+     * team/{team_key}/event/{event_key}/matches
+     */
+    static UrlTemplate of(String url) {
+        String[] segments = url.split("/");
+        StringBuilder template = new StringBuilder();
+        for(int i = 0; i < segments.length; i++) {
+            if(i > 0) template.append('/');
+            template.append(variableOf(segments[i]));
+        }
+        return new UrlTemplate(template.toString());
+    }
+
+    private static String variableOf(String segment) {
+        if(segment.length() > 3 && segment.startsWith("frc") && isDigits(segment, 3, segment.length())) return TEAM_KEY;
+        if(segment.length() == 4 && isDigits(segment, 0, 4)) return YEAR;
+        if(segment.length() > 4 && isDigits(segment, 0, 4)) return segment.indexOf('_') == -1 ? EVENT_KEY : MATCH_KEY;
+        return segment;
+    }
+
+    /**
+     * @return the variable bindings if the url matches, else null. {event_key} and {year} are also bound from a match or event key.
+     */
+    Map<String, String> match(String url) {
+        String[] parts = url.split("/");
+        if(parts.length != segments.length) return null;
+        HashMap<String, String> bindings = new HashMap<>();
+        for(int i = 0; i < segments.length; i++) {
+            if(isVariable(segments[i])) bindings.put(segments[i], parts[i]);
+            else if(!segments[i].equals(parts[i])) return null;
+        }
+        String match = bindings.get(MATCH_KEY);
+        if(match != null && match.indexOf('_') != -1) bindings.putIfAbsent(EVENT_KEY, match.substring(0, match.indexOf('_')));
+        String event = bindings.get(EVENT_KEY);
+        if(event != null && event.length() >= 4) bindings.putIfAbsent(YEAR, event.substring(0, 4));
+        return bindings;
+    }
+
+    /**
+     * @return true if every variable is in the bindings, or is {team_key} and teams are allowed
+     */
+    boolean canFill(Map<String, String> bindings, boolean teams) {
+        for(String segment : segments) {
+            if(!isVariable(segment) || bindings.containsKey(segment)) continue;
+            if(!(teams && segment.equals(TEAM_KEY))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param team the value of an unbound {team_key}, may be null if there isn't one
+     */
+    String fill(Map<String, String> bindings, String team) {
+        StringBuilder url = new StringBuilder();
+        for(int i = 0; i < segments.length; i++) {
+            if(i > 0) url.append('/');
+            String segment = segments[i];
+            if(!isVariable(segment)) url.append(segment);
+            else if(bindings.containsKey(segment)) url.append(bindings.get(segment));
+            else url.append(team);
+        }
+        return url.toString();
+    }
+
+    /**
+     * @return true if the template has an unbound {team_key}
+     */
+    boolean needsTeam(Map<String, String> bindings) {
+        for(String segment : segments) if(segment.equals(TEAM_KEY) && !bindings.containsKey(segment)) return true;
+        return false;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        for(int i = from; i < to; i++) if(!Character.isDigit(s.charAt(i))) return false;
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UrlTemplate && template.equals(((UrlTemplate) o).template);
+    }
+
+    @Override
+    public int hashCode() {
+        return template.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -2,6 +2,9 @@ package com.cpjd.utils;
 
 import org.json.simple.JSONArray;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created by Will Davies on 7/7/2017.
  */
@@ -48,4 +51,39 @@ public class Utils {
         return toReturn;
     }
 
+    /**
+     * A 64 bit hash of a parsed JSON value, for telling whether a response changed. Objects hash the same regardless of key order.
+     */
+    public static long contentHash(Object value) {
+        if(value == null) return 0x9E3779B97F4A7C15L;
+        if(value instanceof Map) {
+            long h = 0x51AF;
+            for(Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) h += mix(contentHash(e.getKey()) * 31 + contentHash(e.getValue()));
+            return mix(h);
+        }
+        if(value instanceof List) {
+            long h = 0x1157;
+            for(Object o : (List<?>) value) h = h * 31 + contentHash(o);
+            return mix(h);
+        }
+        if(value instanceof String) {
+            String s = (String) value;
+            long h = 0xCBF29CE484222325L;
+            for(int i = 0; i < s.length(); i++) h = (h ^ s.charAt(i)) * 0x100000001B3L;
+            return h;
+        }
+        if(value instanceof Double) return mix(Double.doubleToLongBits((Double) value) ^ 0xD0);
+        if(value instanceof Number) return mix(((Number) value).longValue());
+        if(value instanceof Boolean) return (Boolean) value ? 0x7F4A7C15L : 0x3C6EF372L;
+        return mix(value.hashCode());
+    }
+
+    /**
+     * The splitmix64 finalizer
+     */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
 }
@@ -0,0 +1,60 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.matches.SMatch;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that EloRating processes a table's matches in the same order as feeding them one at a time in chronological order.
+ */
+public class EloRatingTest {
+
+    /**
+     * 2036, 2039 and 2040, the last two don't fit in a signed int
+     */
+    @Test
+    public void ordersMatchTimesAfter2038() {
+        SMatch a = match("2036test_qm1", 2100000000L, 0, new int[] {1, 2, 3, 4, 5, 6}, 100, 20);
+        SMatch b = match("2036test_qm2", 0, 2200000000L, new int[] {1, 4, 7, 2, 5, 8}, 10, 90);
+        SMatch c = match("2036test_qm3", 2208988800L, 0, new int[] {2, 3, 7, 1, 6, 8}, 50, 60);
+        assertSameRatings(new SMatch[] {c, b, a}, a, b, c);
+    }
+
+    /**
+     * A match without a time is processed with its own season, not ahead of every timed match
+     */
+    @Test
+    public void keepsSeasonsInOrder() {
+        SMatch a = match("2016test_qm1", 1460000000L, 0, new int[] {1, 2, 3, 4, 5, 6}, 100, 20);
+        SMatch b = match("2016test_qm2", 1460000600L, 0, new int[] {1, 4, 7, 2, 5, 8}, 10, 90);
+        SMatch c = match("2017test_qm1", 0, 0, new int[] {2, 3, 7, 1, 6, 8}, 50, 60);
+        SMatch d = match("2017test_qm2", 1490000000L, 0, new int[] {1, 2, 3, 4, 5, 6}, 70, 60);
+        assertSameRatings(new SMatch[] {d, c, b, a}, a, b, c, d);
+    }
+
+    /**
+     * @param table the matches in any order
+     * @param inOrder the same matches in the order they have to be processed
+     */
+    private static void assertSameRatings(SMatch[] table, SMatch... inOrder) {
+        EloRating elo = new EloRating();
+        elo.process(table);
+        EloRating expected = new EloRating();
+        for(SMatch m : inOrder) expected.process(new SMatch[] {m});
+
+        assertEquals(expected.getMatchCount(), elo.getMatchCount());
+        for(int team = 1; team <= 8; team++) assertEquals("frc"+team, expected.getRating(team), elo.getRating(team), 1e-9);
+    }
+
+    private static SMatch match(String key, long time, long actualTime, int[] teams, int redScore, int blueScore) {
+        SMatch m = OPRCalculatorTest.match(Integer.parseInt(key.substring(key.indexOf("qm") + 2)), teams);
+        m.setKey(key);
+        m.setEventKey(key.substring(0, key.indexOf('_')));
+        m.setTime(time);
+        m.setActualTime(actualTime);
+        m.getRed().setScore(redScore);
+        m.getBlue().setScore(blueScore);
+        return m;
+    }
+}
@@ -0,0 +1,146 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.events.EventOPR;
+import com.cpjd.models.matches.SMatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks IncrementalOPR against a full recalculation with OPRCalculator after every update.
+ */
+public class IncrementalOPRTest {
+
+    /**
+     * IncrementalOPR always has a tiny ridge, which shows early in an event when the system is badly conditioned, so the tolerance
+     * is relative to the size of the values
+     */
+    private static final double TOLERANCE = 1e-4;
+
+    @Test
+    public void matchesFullRecalculationAfterEachMatch() {
+        Random random = new Random(4);
+        List<SMatch> matches = matches(OPRCalculatorTest.schedule(24, 70, random), random);
+        IncrementalOPR incremental = new IncrementalOPR();
+        List<SMatch> posted = new ArrayList<>();
+        for(SMatch m : matches) {
+            posted.add(m);
+            assertTrue(incremental.update(m));
+            assertSame(posted, incremental);
+        }
+        assertEquals(70, incremental.getMatchCount());
+    }
+
+    @Test
+    public void skipsMatchesThatDidNotChange() {
+        Random random = new Random(5);
+        SMatch[] matches = matches(OPRCalculatorTest.schedule(24, 40, random), random).toArray(new SMatch[0]);
+        IncrementalOPR incremental = new IncrementalOPR();
+        assertEquals(40, incremental.update(matches));
+        assertEquals(0, incremental.update(matches));
+        assertFalse(incremental.update(matches[3]));
+    }
+
+    @Test
+    public void scoreCorrections() {
+        Random random = new Random(6);
+        List<SMatch> matches = matches(OPRCalculatorTest.schedule(24, 50, random), random);
+        IncrementalOPR incremental = new IncrementalOPR();
+        incremental.update(matches.toArray(new SMatch[0]));
+        assertSame(matches, incremental);
+
+        for(int i = 0; i < 10; i++) {
+            SMatch m = matches.get(random.nextInt(matches.size()));
+            m.getRed().setScore(m.getRed().getScore() + 1 + random.nextInt(20));
+            m.getBlue().setScore(random.nextInt(150));
+            assertEquals(1, incremental.update(matches.toArray(new SMatch[0])));
+            assertSame(matches, incremental);
+        }
+    }
+
+    @Test
+    public void changedTeamsRebuild() {
+        Random random = new Random(7);
+        List<SMatch> matches = matches(OPRCalculatorTest.schedule(24, 50, random), random);
+        IncrementalOPR incremental = new IncrementalOPR();
+        incremental.update(matches.toArray(new SMatch[0]));
+
+        // a team replaced by one that hasn't played yet, then a swap between the alliances
+        SMatch m = matches.get(12);
+        String[] red = m.getRed().getTeamKeys().clone();
+        red[1] = "frc25";
+        m.getRed().setTeamKeys(red);
+        assertTrue(incremental.update(m));
+        assertSame(matches, incremental);
+
+        SMatch other = matches.get(30);
+        String[] blue = other.getBlue().getTeamKeys().clone();
+        String[] otherRed = other.getRed().getTeamKeys().clone();
+        String swapped = blue[0];
+        blue[0] = otherRed[2];
+        otherRed[2] = swapped;
+        other.getBlue().setTeamKeys(blue);
+        other.getRed().setTeamKeys(otherRed);
+        assertTrue(incremental.update(other));
+        assertSame(matches, incremental);
+    }
+
+    @Test
+    public void clearForgetsMatches() {
+        Random random = new Random(8);
+        List<SMatch> matches = matches(OPRCalculatorTest.schedule(24, 40, random), random);
+        IncrementalOPR incremental = new IncrementalOPR();
+        incremental.update(matches.toArray(new SMatch[0]));
+        incremental.clear();
+        assertEquals(0, incremental.getMatchCount());
+        assertEquals(0, incremental.getOpr(1), 0);
+
+        List<SMatch> half = matches.subList(0, 20);
+        incremental.update(half.toArray(new SMatch[0]));
+        assertSame(half, incremental);
+    }
+
+    /**
+     * Compares every team's OPR, DPR and CCWM with OPRCalculator's results for the same matches
+     */
+    private static void assertSame(List<SMatch> matches, IncrementalOPR incremental) {
+        // by team, as close values may be sorted differently
+        Map<String, EventOPR> expected = new HashMap<>();
+        for(EventOPR o : new OPRCalculator().calculate(matches.toArray(new SMatch[0]))) expected.put(o.getTeamKey(), o);
+        EventOPR[] actual = incremental.getOprs();
+        assertEquals(expected.size(), actual.length);
+        for(EventOPR a : actual) {
+            EventOPR e = expected.get(a.getTeamKey());
+            assertNotNull(a.getTeamKey(), e);
+            assertEquals(a.getTeamKey(), e.getOpr(), a.getOpr(), TOLERANCE * Math.max(1, Math.abs(e.getOpr())));
+            assertEquals(a.getTeamKey(), e.getDpr(), a.getDpr(), TOLERANCE * Math.max(1, Math.abs(e.getDpr())));
+            assertEquals(a.getTeamKey(), e.getCcwm(), a.getCcwm(), TOLERANCE * Math.max(1, Math.abs(e.getCcwm())));
+            int team = Integer.parseInt(a.getTeamKey().substring(3));
+            assertEquals(a.getOpr(), incremental.getOpr(team), 0);
+            assertEquals(a.getDpr(), incremental.getDpr(team), 0);
+        }
+    }
+
+    /**
+     * @return played qualification matches with random scores
+     */
+    private static List<SMatch> matches(int[][] schedule, Random random) {
+        List<SMatch> matches = new ArrayList<>();
+        for(int i = 0; i < schedule.length; i++) {
+            SMatch m = OPRCalculatorTest.match(i + 1, schedule[i]);
+            m.getRed().setScore(random.nextInt(150));
+            m.getBlue().setScore(random.nextInt(150));
+            matches.add(m);
+        }
+        return matches;
+    }
+}
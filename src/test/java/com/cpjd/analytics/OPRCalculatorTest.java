@@ -0,0 +1,147 @@
+package com.cpjd.analytics;
+
+import com.cpjd.models.events.EventOPR;
+import com.cpjd.models.matches.MatchAlliance;
+import com.cpjd.models.matches.SMatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks OPRCalculator against events whose OPRs are known exactly: every alliance score is the sum of a fixed contribution per team,
+ * so least squares has to give back those contributions.
+ */
+public class OPRCalculatorTest {
+
+    /**
+     * Contribution of team i, team 0 doesn't exist
+     */
+    private static final int[] CONTRIBUTIONS = {0, 3, 33, 37, 36, 36, 25, 20, 21, 36, 26, 12, 1, 10, 2, 32, 25, 15, 24, 30, 26, 28, 10, 30, 30};
+
+    /**
+     * The first 9 matches of an event, red 1-3 then blue 1-3. The normal matrix is singular, and factoring it leaves pivots of
+     * roundoff size instead of 0.
+     */
+    private static final int[][] EARLY_SCHEDULE = {
+            {7, 3, 20, 9, 8, 12},
+            {14, 22, 10, 18, 7, 6},
+            {9, 16, 22, 6, 18, 23},
+            {22, 4, 18, 20, 21, 8},
+            {8, 12, 15, 22, 6, 17},
+            {16, 6, 20, 1, 7, 3},
+            {24, 23, 1, 10, 8, 20},
+            {21, 15, 4, 22, 20, 23},
+            {6, 11, 23, 16, 12, 19},
+    };
+
+    @Test
+    public void fullEventGivesContributions() {
+        int[][] schedule = schedule(24, 60, new Random(973));
+        EventOPR[] oprs = new OPRCalculator().calculate(matches(schedule));
+
+        assertEquals(24, oprs.length);
+        for(EventOPR o : oprs) {
+            int team = Integer.parseInt(o.getTeamKey().substring(3));
+            assertEquals(o.getTeamKey(), CONTRIBUTIONS[team], o.getOpr(), 1e-6);
+            assertEquals(o.getTeamKey(), o.getOpr() - o.getDpr(), o.getCcwm(), 1e-9);
+        }
+    }
+
+    /**
+     * Before every team has played with enough partners the least squares solution isn't unique. The calculator has to fall back to
+     * its ridge and return the smallest solution, which reproduces every score and is no larger than the real contributions.
+     */
+    @Test
+    public void earlyEventGivesSmallestSolution() {
+        EventOPR[] oprs = new OPRCalculator().calculate(matches(EARLY_SCHEDULE));
+
+        double[] opr = new double[CONTRIBUTIONS.length];
+        double norm = 0, expectedNorm = 0;
+        for(EventOPR o : oprs) {
+            int team = Integer.parseInt(o.getTeamKey().substring(3));
+            opr[team] = o.getOpr();
+            norm += o.getOpr() * o.getOpr();
+            expectedNorm += CONTRIBUTIONS[team] * CONTRIBUTIONS[team];
+        }
+        assertTrue("OPRs are larger than the contributions: "+Math.sqrt(norm), norm <= expectedNorm * (1 + 1e-6));
+
+        for(int[] m : EARLY_SCHEDULE) {
+            assertEquals(score(m, 0), opr[m[0]] + opr[m[1]] + opr[m[2]], 1e-3);
+            assertEquals(score(m, 3), opr[m[3]] + opr[m[4]] + opr[m[5]], 1e-3);
+        }
+    }
+
+    @Test
+    public void onlyPlayedQualificationMatchesCount() {
+        List<SMatch> matches = new ArrayList<>();
+        Collections.addAll(matches, matches(schedule(24, 60, new Random(973))));
+        SMatch unplayed = match(61, new int[] {1, 2, 3, 4, 5, 6});
+        unplayed.getRed().setScore(-1);
+        unplayed.getBlue().setScore(-1);
+        matches.add(unplayed);
+        SMatch playoff = match(62, new int[] {1, 2, 3, 4, 5, 6});
+        playoff.setCompLevel("qf");
+        playoff.getRed().setScore(500);
+        matches.add(playoff);
+
+        for(EventOPR o : new OPRCalculator().calculate(matches.toArray(new SMatch[0]))) {
+            assertEquals(o.getTeamKey(), CONTRIBUTIONS[Integer.parseInt(o.getTeamKey().substring(3))], o.getOpr(), 1e-6);
+        }
+    }
+
+    /*
+     * Fixtures
+     */
+
+    /**
+     * @return random alliances of distinct teams numbered 1 to teams
+     */
+    static int[][] schedule(int teams, int count, Random random) {
+        List<Integer> pool = new ArrayList<>();
+        for(int t = 1; t <= teams; t++) pool.add(t);
+        int[][] schedule = new int[count][6];
+        for(int i = 0; i < count; i++) {
+            Collections.shuffle(pool, random);
+            for(int k = 0; k < 6; k++) schedule[i][k] = pool.get(k);
+        }
+        return schedule;
+    }
+
+    static SMatch[] matches(int[][] schedule) {
+        SMatch[] matches = new SMatch[schedule.length];
+        for(int i = 0; i < schedule.length; i++) matches[i] = match(i + 1, schedule[i]);
+        return matches;
+    }
+
+    /**
+     * @return a played qualification match, scored from CONTRIBUTIONS
+     */
+    static SMatch match(int number, int[] teams) {
+        SMatch m = new SMatch();
+        m.setKey("2017test_qm"+number);
+        m.setEventKey("2017test");
+        m.setCompLevel("qm");
+        m.setSetNumber(1);
+        m.setMatchNumber(number);
+        m.setRed(alliance(teams, 0));
+        m.setBlue(alliance(teams, 3));
+        return m;
+    }
+
+    private static MatchAlliance alliance(int[] teams, int offset) {
+        MatchAlliance a = new MatchAlliance();
+        a.setTeamKeys(new String[] {"frc"+teams[offset], "frc"+teams[offset + 1], "frc"+teams[offset + 2]});
+        a.setScore(score(teams, offset));
+        return a;
+    }
+
+    static int score(int[] teams, int offset) {
+        return CONTRIBUTIONS[teams[offset]] + CONTRIBUTIONS[teams[offset + 1]] + CONTRIBUTIONS[teams[offset + 2]];
+    }
+}